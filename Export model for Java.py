@@ -0,0 +1,28 @@
+import pickle
+import importlib.util
+import os
+
+# Re-exports an already trained xgboost_model.pkl / xgboost_encoders.pkl as
+# xgboost_model.json / xgboost_encoders.json for the in-process Java engine,
+# without retraining.
+
+BASE_DIR = os.path.dirname(os.path.abspath(__file__))
+MODEL_PATH = os.path.join(BASE_DIR, 'xgboost_model.pkl')
+ENCODERS_PATH = os.path.join(BASE_DIR, 'xgboost_encoders.pkl')
+TRAINING_SCRIPT_PATH = os.path.join(BASE_DIR, 'Training Script XGBoost.py')
+
+def load_training_script():
+    """Import the training script (its file name is not a valid module name)"""
+    spec = importlib.util.spec_from_file_location('training_script', TRAINING_SCRIPT_PATH)
+    module = importlib.util.module_from_spec(spec)
+    spec.loader.exec_module(module)
+    return module
+
+if __name__ == '__main__':
+    with open(MODEL_PATH, 'rb') as f:
+        model = pickle.load(f)
+    
+    with open(ENCODERS_PATH, 'rb') as f:
+        label_encoders = pickle.load(f)
+    
+    load_training_script().save_model_json(model, label_encoders)
@@ -0,0 +1,201 @@
+import json
+import os
+import shutil
+import sqlite3
+import sys
+import tempfile
+from datetime import datetime
+
+# Writes the fixture the Java parity tests (com.Fablemaze/src/test) check the in-process
+# scoring engine against: feature rows built by segment_predictor.py's own pipeline, and the
+# dropout probabilities predict_proba() gives for them, for a sample of users and movies plus
+# a user and a movie with missing and unknown values. Run it again after retraining.
+#
+#   python "Generate parity fixture.py" [database]
+
+BASE_DIR = os.path.dirname(os.path.abspath(__file__))
+sys.path.insert(0, BASE_DIR)
+import segment_predictor
+
+DB_PATH = os.path.join(BASE_DIR, 'movie_app_Jose.db')
+FIXTURE_PATH = os.path.join(BASE_DIR, 'com.Fablemaze', 'src', 'test', 'resources', 'parity', 'xgboost_parity.json')
+
+# Pinned so age, viewing_hour and is_weekend_int don't depend on when the script runs; a Saturday
+FIXED_NOW = datetime(2026, 10, 17, 21, 30)
+SAMPLE_USERS = 4
+SAMPLE_MOVIES = 3
+
+# Edge cases added to a copy of the database
+EDGE_USER_ID = 900001
+EDGE_MOVIE_ID = 900001
+EDGE_ID_BASE = 900000
+
+USER_COLUMNS = ['user_id', 'dob', 'sex', 'openness', 'conscientiousness', 'extraversion', 'agreeableness',
+                'neuroticism', 'total_watch_time', 'preferred_pacing', 'favourite_genres', 'avg_session_length']
+MOVIE_COLUMNS = ['movie_id', 'title', 'release_year', 'duration', 'genres', 'rating', 'imdb_rating', 'scene_count']
+VARIANT_COLUMNS = ['variant_id', 'variant_name', 'file_path', 'pacing_score', 'intensity_score', 'dialogue_density',
+                   'action_level', 'character_focus', 'emotional_tone', 'duration']
+
+
+class FixedDatetime(datetime):
+    @classmethod
+    def now(cls, tz=None):
+        return FIXED_NOW
+
+
+def prepare_database(source, target):
+    """Copy of the database with the edge cases added"""
+    shutil.copyfile(source, target)
+    conn = sqlite3.connect(target)
+
+    # Every nullable trait missing: the COALESCE defaults, and 'drama' as an unknown favourite_genres
+    conn.execute("""
+        INSERT INTO User (user_id, username, password_hash, dob, sex, openness, conscientiousness,
+                          extraversion, agreeableness, neuroticism, total_watch_time, preferred_pacing,
+                          favourite_genres, avg_session_length, registration_date)
+        VALUES (?, 'parity_edge', '', '1988-02-29', 'Prefer not to say',
+                NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL)""",
+        [EDGE_USER_ID])
+
+    # A copy of the first movie with missing metadata, an unknown rating, genre and variant name,
+    # and every other variant missing its pacing and intensity scores
+    first_movie = conn.execute("SELECT movie_id, scene_count FROM Movie ORDER BY movie_id LIMIT 1").fetchone()
+    conn.execute("""
+        INSERT INTO Movie (movie_id, title, release_year, duration, genres, rating, imdb_rating, scene_count)
+        VALUES (?, 'Parity Edge', NULL, NULL, '["western"]', NULL, NULL, ?)""",
+        [EDGE_MOVIE_ID, first_movie[1]])
+    scenes = conn.execute("SELECT scene_id, scene_index FROM Scene WHERE movie_id = ? ORDER BY scene_index",
+                          [first_movie[0]]).fetchall()
+    variant_number = 0
+    for scene_id, scene_index in scenes:
+        edge_scene_id = EDGE_ID_BASE + scene_id
+        conn.execute("INSERT INTO Scene (scene_id, movie_id, scene_index) VALUES (?, ?, ?)",
+                     [edge_scene_id, EDGE_MOVIE_ID, scene_index])
+        variants = conn.execute(f"""
+            SELECT {', '.join(VARIANT_COLUMNS)} FROM SceneVariant WHERE scene_id = ? ORDER BY variant_id""",
+            [scene_id]).fetchall()
+        for variant in variants:
+            values = dict(zip(VARIANT_COLUMNS, variant))
+            values['variant_id'] = EDGE_ID_BASE + values['variant_id']
+            if variant_number % 2 == 1:
+                values['pacing_score'] = None
+                values['intensity_score'] = None
+            if variant_number % 5 == 0:
+                values['variant_name'] = 'Variant_9'
+            variant_number += 1
+            conn.execute(f"""
+                INSERT INTO SceneVariant (scene_id, {', '.join(VARIANT_COLUMNS)})
+                VALUES (?, {', '.join('?' for _ in VARIANT_COLUMNS)})""",
+                [edge_scene_id] + [values[c] for c in VARIANT_COLUMNS])
+    conn.commit()
+    conn.close()
+
+
+def spread(ids, count):
+    """count ids spread evenly over the sorted list"""
+    step = max(1, len(ids) // count)
+    return ids[::step][:count]
+
+
+def read_inputs(db_path, user_ids, movie_ids):
+    """Raw rows, NULLs kept, for the Java side to build its User and MovieGraph objects from"""
+    conn = sqlite3.connect(db_path)
+    users = []
+    for user_id in user_ids:
+        row = conn.execute(f"SELECT {', '.join(USER_COLUMNS)} FROM User WHERE user_id = ?", [user_id]).fetchone()
+        users.append(dict(zip(USER_COLUMNS, row)))
+
+    movies = []
+    for movie_id in movie_ids:
+        row = conn.execute(f"SELECT {', '.join(MOVIE_COLUMNS)} FROM Movie WHERE movie_id = ?", [movie_id]).fetchone()
+        movie = dict(zip(MOVIE_COLUMNS, row))
+        movie['scenes'] = []
+        for scene_id, scene_index in conn.execute(
+                "SELECT scene_id, scene_index FROM Scene WHERE movie_id = ? ORDER BY scene_index", [movie_id]):
+            variants = conn.execute(f"""
+                SELECT {', '.join(VARIANT_COLUMNS)} FROM SceneVariant WHERE scene_id = ? ORDER BY variant_id""",
+                [scene_id]).fetchall()
+            movie['scenes'].append({
+                'scene_id': scene_id,
+                'scene_index': scene_index,
+                'variants': [dict(zip(VARIANT_COLUMNS, v)) for v in variants],
+            })
+        movies.append(movie)
+    conn.close()
+    return users, movies
+
+
+def build_case(predictor, user_id, movie_id):
+    """Rows and probabilities exactly as predict_segment_sequence() computes them"""
+    user_profile, user_stats = predictor.get_user_profile(user_id)
+    segments_df = predictor.get_movie_segments(movie_id)
+    prediction_df = predictor.create_prediction_features(user_profile, user_stats, segments_df)
+    feature_data = predictor.preprocess_features(prediction_df)
+    dropout = predictor.model.predict_proba(feature_data)[:, 1]
+
+    return {
+        'user_id': int(user_id),
+        'movie_id': int(movie_id),
+        'variant_ids': [int(v) for v in prediction_df['variant_id']],
+        'features': [[float(x) for x in row] for row in feature_data.values.tolist()],
+        'dropout': [float(p) for p in dropout],
+    }
+
+
+def write_fixture(fixture, path):
+    """JSON with one feature row per line, so a regenerated fixture diffs readably"""
+    os.makedirs(os.path.dirname(path), exist_ok=True)
+    with open(path, 'w') as f:
+        f.write('{\n')
+        for key in ['generated_at', 'device_type', 'feature_columns', 'users', 'movies']:
+            f.write(f'  {json.dumps(key)}: {json.dumps(fixture[key])},\n')
+        f.write('  "cases": [\n')
+        for i, case in enumerate(fixture['cases']):
+            f.write('    {\n')
+            for key in ['user_id', 'movie_id', 'variant_ids', 'dropout']:
+                f.write(f'      {json.dumps(key)}: {json.dumps(case[key])},\n')
+            f.write('      "features": [\n')
+            rows = [f'        {json.dumps(row)}' for row in case['features']]
+            f.write(',\n'.join(rows) + '\n')
+            f.write('      ]\n')
+            f.write('    }' + (',' if i < len(fixture['cases']) - 1 else '') + '\n')
+        f.write('  ]\n}\n')
+
+
+if __name__ == '__main__':
+    source_db = sys.argv[1] if len(sys.argv) > 1 else DB_PATH
+    segment_predictor.datetime = FixedDatetime
+
+    with tempfile.TemporaryDirectory() as tmp:
+        db_path = os.path.join(tmp, 'parity.db')
+        prepare_database(source_db, db_path)
+        predictor = segment_predictor.SegmentSequencePredictor(db_path=db_path)
+
+        conn = sqlite3.connect(db_path)
+        user_ids = [r[0] for r in conn.execute("SELECT user_id FROM User WHERE user_id < ? ORDER BY user_id",
+                                               [EDGE_ID_BASE])]
+        movie_ids = [r[0] for r in conn.execute("SELECT movie_id FROM Movie WHERE movie_id < ? ORDER BY movie_id",
+                                                [EDGE_ID_BASE])]
+        conn.close()
+        user_ids = spread(user_ids, SAMPLE_USERS) + [EDGE_USER_ID]
+        movie_ids = spread(movie_ids, SAMPLE_MOVIES) + [EDGE_MOVIE_ID]
+
+        # Each user against two movies, so every movie meets several users without scoring every pair
+        pairs = []
+        for i, user_id in enumerate(user_ids):
+            for j in range(2):
+                pairs.append((user_id, movie_ids[(i + j) % len(movie_ids)]))
+        pairs.append((EDGE_USER_ID, EDGE_MOVIE_ID))
+
+        users, movies = read_inputs(db_path, user_ids, movie_ids)
+        fixture = {
+            'generated_at': FIXED_NOW.isoformat(),
+            'device_type': 'desktop',
+            'feature_columns': predictor.feature_columns,
+            'users': users,
+            'movies': movies,
+            'cases': [build_case(predictor, user_id, movie_id) for user_id, movie_id in pairs],
+        }
+
+    write_fixture(fixture, FIXTURE_PATH)
+    print(f"{len(fixture['cases'])} cases written to {FIXTURE_PATH}")
@@ -18,6 +18,26 @@ DB_PATH = os.path.join(BASE_DIR, 'movie_app.db')
 MODEL_PATH = os.path.join(BASE_DIR, 'xgboost_model.pkl')
 ENCODERS_PATH = os.path.join(BASE_DIR, 'xgboost_encoders.pkl')
 FEATURES_PATH = os.path.join(BASE_DIR, 'xgboost_features.json')
+MODEL_JSON_PATH = os.path.join(BASE_DIR, 'xgboost_model.json')
+ENCODERS_JSON_PATH = os.path.join(BASE_DIR, 'xgboost_encoders.json')
+
+def save_model_json(model, label_encoders, model_json_path=MODEL_JSON_PATH,
+                    encoders_json_path=ENCODERS_JSON_PATH):
+    """Save the booster and encoder classes as JSON for the Java scoring engine"""
+    booster = model.get_booster()
+    
+    # Keep early stopping's best_iteration so Java uses the same number of trees
+    if getattr(model, 'best_iteration', None) is not None:
+        booster.set_attr(best_iteration=str(model.best_iteration))
+    booster.save_model(model_json_path)
+    
+    # LabelEncoder codes are positions in classes_; NaN is stored as 'nan' like str(x) in transform
+    classes = {col: [str(c) for c in encoder.classes_] for col, encoder in label_encoders.items()}
+    with open(encoders_json_path, 'w') as f:
+        json.dump(classes, f, indent=2)
+    
+    print(f"Model JSON saved to {model_json_path}")
+    print(f"Encoder classes saved to {encoders_json_path}")
 
 class XGBoostMovieRetentionTrainer:
     def __init__(self, db_path=DB_PATH):
@@ -284,6 +304,9 @@ class XGBoostMovieRetentionTrainer:
         with open(features_path, 'w') as f:
             json.dump(self.feature_columns, f)
         
+        # Save JSON copies for the Java scoring engine
+        save_model_json(self.model, self.label_encoders)
+        
         print(f"\nXGBoost Model saved to {model_path}")
         print(f"Encoders saved to {encoders_path}")
         print(f"Features saved to {features_path}")
@@ -24,6 +24,25 @@ def predict_sequence():
         traceback.print_exc()
         return jsonify({'error': str(e)}), 500
 
+@app.route('/predict_batch', methods=['POST'])
+def predict_batch():
+    try:
+        data = request.get_json()
+        device_type = data.get('device_type', 'desktop')
+        
+        # Either one user_id with movie_ids, or user_ids with one movie_id
+        if 'movie_ids' in data:
+            user_ids = [int(data.get('user_id'))]
+            movie_ids = [int(m) for m in data.get('movie_ids')]
+        else:
+            user_ids = [int(u) for u in data.get('user_ids')]
+            movie_ids = [int(data.get('movie_id'))]
+        
+        return jsonify(predictor.predict_batch(user_ids, movie_ids, device_type)), 200
+    except Exception as e:
+        traceback.print_exc()
+        return jsonify({'error': str(e)}), 500
+
 @app.route('/alternatives', methods=['POST'])
 def get_alternatives():
     try:
@@ -0,0 +1,113 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package cache;
+
+import dao.DataChangeEvents;
+import dao.DataChangeListener;
+import dao.MovieGraphDAO;
+import model.Movie;
+import model.MovieGraph;
+import model.Scene;
+import model.SceneVariant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide cache of the movie catalog.
+ * Readers get the current CatalogSnapshot through a single volatile read and never lock.
+ * Inserts reported through DataChangeEvents reload only the affected movie's graph and
+ * publish a new snapshot with an incremented version.
+ */
+public class CatalogCache implements DataChangeListener {
+
+    private static class Holder {
+        private static final CatalogCache INSTANCE = new CatalogCache(new MovieGraphDAO());
+    }
+
+    private final MovieGraphDAO movieGraphDAO;
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>(CatalogSnapshot.empty());
+    private final Object rebuildLock = new Object();
+
+    // Metrics
+    private final LongAdder fullReloads = new LongAdder();
+    private final LongAdder incrementalReloads = new LongAdder();
+
+    public CatalogCache(MovieGraphDAO movieGraphDAO) {
+        this.movieGraphDAO = movieGraphDAO;
+        reload();
+        DataChangeEvents.addListener(this);
+    }
+
+    // Loaded on first use
+    public static CatalogCache getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    public CatalogSnapshot getSnapshot() { return snapshot.get(); }
+
+    public long getVersion() { return snapshot.get().getVersion(); }
+
+    public List<Movie> getMovies() { return snapshot.get().getMovies(); }
+
+    public MovieGraph getMovieGraph(int movieId) { return snapshot.get().getMovieGraph(movieId); }
+
+    // Rebuilds the whole snapshot in one query; keeps the current one if the load fails
+    public void reload() {
+        synchronized (rebuildLock) {
+            List<MovieGraph> graphs = movieGraphDAO.getAllMovieGraphs();
+            if (graphs == null) {
+                return;
+            }
+            snapshot.set(new CatalogSnapshot(snapshot.get().getVersion() + 1, graphs));
+            fullReloads.increment();
+        }
+    }
+
+    // Re-reads one movie's graph and swaps it into a new snapshot
+    public void reloadMovie(int movieId) {
+        synchronized (rebuildLock) {
+            MovieGraph graph = movieGraphDAO.getMovieGraph(movieId);
+            if (graph == null) {
+                return;
+            }
+            snapshot.set(snapshot.get().withMovieGraph(graph));
+            incrementalReloads.increment();
+        }
+    }
+
+    @Override
+    public void movieInserted(Movie movie) {
+        reloadMovie(movie.getMovieId());
+    }
+
+    @Override
+    public void sceneInserted(Scene scene) {
+        reloadMovie(scene.getMovieId());
+    }
+
+    @Override
+    public void sceneVariantInserted(SceneVariant variant) {
+        Scene scene = snapshot.get().getScene(variant.getSceneId());
+        if (scene != null) {
+            reloadMovie(scene.getMovieId());
+        } else {
+            // Scene was written without going through SceneDAO; can't tell which movie changed
+            reload();
+        }
+    }
+
+    public long getFullReloads() { return fullReloads.sum(); }
+
+    public long getIncrementalReloads() { return incrementalReloads.sum(); }
+
+    @Override
+    public String toString() {
+        CatalogSnapshot current = snapshot.get();
+        return String.format("CatalogCache[version=%d movies=%d scenes=%d variants=%d fullReloads=%d incrementalReloads=%d]",
+                current.getVersion(), current.getMovieCount(), current.getSceneCount(), current.getVariantCount(),
+                getFullReloads(), getIncrementalReloads());
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package cache;
+
+import model.Movie;
+import model.MovieGraph;
+import model.Scene;
+import model.SceneVariant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable view of the whole Movie/Scene/SceneVariant catalog at one version.
+ * Every lookup is a single hash probe; a snapshot never changes once published.
+ */
+public class CatalogSnapshot {
+    private final long version;
+    private final List<Movie> movies;
+    private final Map<Integer, MovieGraph> graphsByMovieId;
+    private final Map<Integer, Scene> scenesById;
+    private final Map<Integer, SceneVariant> variantsById;
+    private final VariantFeatureStore featureStore;
+
+    // graphs may be in any order; movies are exposed in movie_id order
+    public CatalogSnapshot(long version, Collection<MovieGraph> graphs) {
+        this.version = version;
+
+        Map<Integer, MovieGraph> byMovie = new TreeMap<>();
+        for (MovieGraph graph : graphs) {
+            byMovie.put(graph.getMovie().getMovieId(), graph);
+        }
+
+        List<Movie> movieList = new ArrayList<>(byMovie.size());
+        Map<Integer, Scene> byScene = new HashMap<>();
+        Map<Integer, SceneVariant> byVariant = new HashMap<>();
+        for (MovieGraph graph : byMovie.values()) {
+            movieList.add(graph.getMovie());
+            index(graph, byScene, byVariant);
+        }
+
+        this.movies = Collections.unmodifiableList(movieList);
+        this.graphsByMovieId = Collections.unmodifiableMap(new HashMap<>(byMovie));
+        this.scenesById = Collections.unmodifiableMap(byScene);
+        this.variantsById = Collections.unmodifiableMap(byVariant);
+        this.featureStore = new VariantFeatureStore(byMovie.values());
+    }
+
+    private CatalogSnapshot(long version, List<Movie> movies, Map<Integer, MovieGraph> graphsByMovieId,
+                            Map<Integer, Scene> scenesById, Map<Integer, SceneVariant> variantsById,
+                            VariantFeatureStore featureStore) {
+        this.version = version;
+        this.movies = Collections.unmodifiableList(movies);
+        this.graphsByMovieId = Collections.unmodifiableMap(graphsByMovieId);
+        this.scenesById = Collections.unmodifiableMap(scenesById);
+        this.variantsById = Collections.unmodifiableMap(variantsById);
+        this.featureStore = featureStore;
+    }
+
+    public static CatalogSnapshot empty() {
+        return new CatalogSnapshot(0, List.of());
+    }
+
+    /**
+     * New snapshot at version + 1 with one movie's graph added or replaced.
+     * The maps are copied and only that movie's entries patched; the feature store re-reads only
+     * its variants. No other graph is walked, so an insert doesn't cost a whole-catalog rebuild.
+     */
+    public CatalogSnapshot withMovieGraph(MovieGraph graph) {
+        Movie movie = graph.getMovie();
+        MovieGraph previous = graphsByMovieId.get(movie.getMovieId());
+
+        List<Movie> movieList = new ArrayList<>(movies);
+        int position = Collections.binarySearch(movieList, movie, Comparator.comparingInt(Movie::getMovieId));
+        if (position >= 0) {
+            movieList.set(position, movie);
+        } else {
+            movieList.add(-position - 1, movie);
+        }
+
+        Map<Integer, MovieGraph> graphs = new HashMap<>(graphsByMovieId);
+        graphs.put(movie.getMovieId(), graph);
+
+        Map<Integer, Scene> byScene = new HashMap<>(scenesById);
+        Map<Integer, SceneVariant> byVariant = new HashMap<>(variantsById);
+        if (previous != null) {
+            for (Scene scene : previous.getScenes()) {
+                byScene.remove(scene.getSceneId());
+                for (SceneVariant variant : previous.getVariants(scene.getSceneIndex())) {
+                    byVariant.remove(variant.getVariantId());
+                }
+            }
+        }
+        index(graph, byScene, byVariant);
+
+        return new CatalogSnapshot(version + 1, movieList, graphs, byScene, byVariant, featureStore.withMovie(graph));
+    }
+
+    private static void index(MovieGraph graph, Map<Integer, Scene> byScene, Map<Integer, SceneVariant> byVariant) {
+        for (Scene scene : graph.getScenes()) {
+            byScene.put(scene.getSceneId(), scene);
+            for (SceneVariant variant : graph.getVariants(scene.getSceneIndex())) {
+                byVariant.put(variant.getVariantId(), variant);
+            }
+        }
+    }
+
+    // Bumped on every rebuild; compare against a remembered value to detect stale data
+    public long getVersion() { return version; }
+
+    public List<Movie> getMovies() { return movies; }
+
+    public Collection<MovieGraph> getMovieGraphs() { return graphsByMovieId.values(); }
+
+    public MovieGraph getMovieGraph(int movieId) { return graphsByMovieId.get(movieId); }
+
+    public Movie getMovie(int movieId) {
+        MovieGraph graph = graphsByMovieId.get(movieId);
+        return graph == null ? null : graph.getMovie();
+    }
+
+    public Scene getScene(int sceneId) { return scenesById.get(sceneId); }
+
+    public Scene getScene(int movieId, int sceneIndex) {
+        MovieGraph graph = graphsByMovieId.get(movieId);
+        return graph == null ? null : graph.getScene(sceneIndex);
+    }
+
+    public SceneVariant getVariant(int variantId) { return variantsById.get(variantId); }
+
+    // Content scores of every variant in this snapshot, in primitive columns
+    public VariantFeatureStore getFeatureStore() { return featureStore; }
+
+    public int getMovieCount() { return movies.size(); }
+
+    public int getSceneCount() { return scenesById.size(); }
+
+    public int getVariantCount() { return variantsById.size(); }
+}
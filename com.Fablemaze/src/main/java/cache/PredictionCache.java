@@ -0,0 +1,323 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package cache;
+
+import dao.DataChangeEvents;
+import dao.DataChangeListener;
+import dao.ViewingSessionDAO;
+import model.Movie;
+import model.Scene;
+import model.SceneVariant;
+import model.SceneViewing;
+import model.ViewingSession;
+import util.FrequencySketch;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Bounded cache of predicted variant sequences keyed by (user_id, movie_id, device_type).
+ * Eviction follows W-TinyLFU: new entries land in a small LRU window; when the window
+ * overflows, its oldest entry only displaces the main segment's LRU victim if it has been
+ * requested more often recently (FrequencySketch). Entries also expire after a TTL.
+ * Entries are dropped as soon as a SceneViewing for their user is committed or their
+ * movie's scenes/variants change, as reported through DataChangeEvents.
+ * A sequence computed while such a change lands must not be cached either: callers take
+ * generation() before computing and hand it to put(), which drops the sequence if an
+ * invalidation for its user or movie has happened in between.
+ */
+public class PredictionCache implements DataChangeListener, AutoCloseable {
+
+    private static final int SESSION_MEMORY = 4096;
+    // Invalidation counters are striped by id; a shared stripe only costs an occasional dropped put
+    private static final int GENERATION_STRIPES = 1024;
+
+    private static final class Key {
+        final int userId;
+        final int movieId;
+        final String deviceType;
+
+        Key(int userId, int movieId, String deviceType) {
+            this.userId = userId;
+            this.movieId = movieId;
+            this.deviceType = deviceType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return userId == other.userId && movieId == other.movieId && Objects.equals(deviceType, other.deviceType);
+        }
+
+        @Override
+        public int hashCode() {
+            return (userId * 31 + movieId) * 31 + Objects.hashCode(deviceType);
+        }
+    }
+
+    private static final class Entry {
+        final int[] sequence;
+        final long expiresAt;
+
+        Entry(int[] sequence, long expiresAt) {
+            this.sequence = sequence;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final int windowSize;
+    private final int mainSize;
+    private final long ttlNanos;
+    private final ViewingSessionDAO sessionDAO;
+
+    // Access-ordered, eldest first; guarded by this
+    private final LinkedHashMap<Key, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<Key, Entry> main = new LinkedHashMap<>(16, 0.75f, true);
+    private final FrequencySketch sketch;
+
+    // Bumped on every invalidation; only ever increase, so their sum moves whenever one of them does. Guarded by this
+    private final long[] userGenerations = new long[GENERATION_STRIPES];
+    private final long[] movieGenerations = new long[GENERATION_STRIPES];
+    private long clearGeneration;
+
+    // session_id -> user_id for recent sessions, so viewings can be mapped to users without a query
+    private final Map<Integer, Integer> sessionUsers = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Integer> eldest) {
+            return size() > SESSION_MEMORY;
+        }
+    };
+
+    // Metrics
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder stalePuts = new LongAdder();
+
+    public PredictionCache(int maxSize, long ttlMillis, ViewingSessionDAO sessionDAO) {
+        int size = Math.max(2, maxSize);
+        this.windowSize = Math.max(1, size / 100);
+        this.mainSize = size - windowSize;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.sessionDAO = sessionDAO;
+        this.sketch = new FrequencySketch(size);
+        DataChangeEvents.addListener(this);
+    }
+
+    // Configured through -Dfablemaze.predictionCache.maxSize and -Dfablemaze.predictionCache.ttlMs
+    public static PredictionCache fromSystemProperties(ViewingSessionDAO sessionDAO) {
+        return new PredictionCache(
+            Integer.getInteger("fablemaze.predictionCache.maxSize", 10000),
+            Long.getLong("fablemaze.predictionCache.ttlMs", TimeUnit.MINUTES.toMillis(30)),
+            sessionDAO
+        );
+    }
+
+    // Cached sequence, or null on a miss
+    public synchronized int[] get(int userId, int movieId, String deviceType) {
+        Key key = new Key(userId, movieId, deviceType);
+        sketch.increment(key);
+
+        Entry entry = window.get(key);
+        if (entry == null) {
+            entry = main.get(key);
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAt >= 0) {
+            window.remove(key);
+            main.remove(key);
+            expirations.increment();
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.sequence.clone();
+    }
+
+    // Taken before computing a sequence to put(); changes whenever the user's or movie's entries are invalidated
+    public synchronized long generation(int userId, int movieId) {
+        return clearGeneration + userGenerations[stripe(userId)] + movieGenerations[stripe(movieId)];
+    }
+
+    // Dropped if the user or movie was invalidated since generation was taken
+    public synchronized void put(int userId, int movieId, String deviceType, int[] sequence, long generation) {
+        if (generation != generation(userId, movieId)) {
+            stalePuts.increment();
+            return;
+        }
+
+        Key key = new Key(userId, movieId, deviceType);
+        Entry entry = new Entry(sequence.clone(), System.nanoTime() + ttlNanos);
+
+        if (main.containsKey(key)) {
+            main.put(key, entry);
+            return;
+        }
+        window.put(key, entry);
+        if (window.size() <= windowSize) {
+            return;
+        }
+
+        // Window overflow: its eldest entry competes with the main segment's LRU victim
+        Iterator<Map.Entry<Key, Entry>> it = window.entrySet().iterator();
+        Map.Entry<Key, Entry> candidate = it.next();
+        it.remove();
+        if (main.size() < mainSize) {
+            main.put(candidate.getKey(), candidate.getValue());
+            return;
+        }
+
+        Map.Entry<Key, Entry> victim = main.entrySet().iterator().next();
+        if (sketch.frequency(candidate.getKey()) > sketch.frequency(victim.getKey())) {
+            main.remove(victim.getKey());
+            main.put(candidate.getKey(), candidate.getValue());
+            evictions.increment();
+        } else {
+            rejections.increment();
+        }
+    }
+
+    public synchronized void invalidateUser(int userId) {
+        userGenerations[stripe(userId)]++;
+        removeIf(key -> key.userId == userId);
+    }
+
+    public synchronized void invalidateMovie(int movieId) {
+        movieGenerations[stripe(movieId)]++;
+        removeIf(key -> key.movieId == movieId);
+    }
+
+    public synchronized void clear() {
+        clearGeneration++;
+        invalidations.add(window.size() + main.size());
+        window.clear();
+        main.clear();
+    }
+
+    private static int stripe(int id) {
+        return id & (GENERATION_STRIPES - 1);
+    }
+
+    private void removeIf(Predicate<Key> matches) {
+        for (LinkedHashMap<Key, Entry> segment : List.of(window, main)) {
+            Iterator<Key> it = segment.keySet().iterator();
+            while (it.hasNext()) {
+                if (matches.test(it.next())) {
+                    it.remove();
+                    invalidations.increment();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void viewingSessionsInserted(List<ViewingSession> sessions) {
+        synchronized (sessionUsers) {
+            for (ViewingSession session : sessions) {
+                sessionUsers.put(session.getSessionId(), session.getUserId());
+            }
+        }
+    }
+
+    @Override
+    public void sceneViewingsInserted(List<SceneViewing> viewings) {
+        Set<Integer> sessionIds = new HashSet<>();
+        for (SceneViewing viewing : viewings) {
+            sessionIds.add(viewing.getSessionId());
+        }
+
+        Set<Integer> userIds = new HashSet<>();
+        for (int sessionId : sessionIds) {
+            Integer userId;
+            synchronized (sessionUsers) {
+                userId = sessionUsers.get(sessionId);
+            }
+            if (userId == null) {
+                // Session started before this process; look it up once and remember it
+                ViewingSession session = sessionDAO.getViewingSessionById(sessionId);
+                if (session == null) {
+                    continue;
+                }
+                userId = session.getUserId();
+                synchronized (sessionUsers) {
+                    sessionUsers.put(sessionId, userId);
+                }
+            }
+            userIds.add(userId);
+        }
+
+        synchronized (this) {
+            for (int userId : userIds) {
+                userGenerations[stripe(userId)]++;
+            }
+            removeIf(key -> userIds.contains(key.userId));
+        }
+    }
+
+    @Override
+    public void movieInserted(Movie movie) {
+        invalidateMovie(movie.getMovieId());
+    }
+
+    @Override
+    public void sceneInserted(Scene scene) {
+        invalidateMovie(scene.getMovieId());
+    }
+
+    @Override
+    public void sceneVariantInserted(SceneVariant variant) {
+        Scene scene = CatalogCache.getInstance().getSnapshot().getScene(variant.getSceneId());
+        if (scene != null) {
+            invalidateMovie(scene.getMovieId());
+        } else {
+            clear();
+        }
+    }
+
+    // Stops listening for data changes
+    @Override
+    public void close() {
+        DataChangeEvents.removeListener(this);
+    }
+
+    // Metrics
+    public synchronized int size() { return window.size() + main.size(); }
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+    public long getEvictions() { return evictions.sum(); }
+    public long getRejections() { return rejections.sum(); }
+    public long getExpirations() { return expirations.sum(); }
+    public long getInvalidations() { return invalidations.sum(); }
+    public long getStalePuts() { return stalePuts.sum(); }
+
+    public double getHitRate() {
+        long total = hits.sum() + misses.sum();
+        return total == 0 ? 0.0 : hits.sum() / (double) total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PredictionCache[size=%d hitRate=%.3f hits=%d misses=%d evictions=%d rejected=%d "
+                + "expired=%d invalidated=%d stalePuts=%d]",
+                size(), getHitRate(), getHits(), getMisses(), getEvictions(), getRejections(),
+                getExpirations(), getInvalidations(), getStalePuts());
+    }
+}
@@ -0,0 +1,346 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import model.MovieGraph;
+import model.Scene;
+import model.SceneVariant;
+import prediction.VariantAlternative;
+
+/**
+ * Speculatively fetches what the next scenes need while the current one plays.
+ * When the viewer reaches scene k, scenes k+1 .. k+lookahead get their variant ranking
+ * (through an AlternativesSource such as /alternatives) and then, for the ranked variants,
+ * their thumbnails and media files. Work runs on a small pool of minimum-priority daemon
+ * threads. Thumbnails are kept in a bounded LRU; media files are read through once so
+ * they sit in the OS page cache, without being held on the heap.
+ * Moving to another movie, or past a scene, cancels the work that is no longer needed.
+ * The hit rate counts the lookups whose result is used: rankings through getAlternatives() and
+ * thumbnails through getThumbnail(), which ThumbnailService asks before loading one itself.
+ * Warmed media has no reader yet that could tell a hit, so it is only counted as warmed.
+ */
+public class ScenePrefetcher implements AutoCloseable {
+
+    // Ranked variants for one scene, e.g. PythonAPIClient::alternativesAsync
+    public interface AlternativesSource {
+        CompletableFuture<List<VariantAlternative>> alternatives(int userId, int movieId, int sceneIndex, int topN);
+    }
+
+    // Thumbnail bytes for a variant's file_path; null if there is none
+    public interface ThumbnailLoader {
+        byte[] load(String filePath) throws IOException;
+    }
+
+    private static final int MEDIA_CHUNK = 64 * 1024;
+
+    // Prefetch state for one upcoming scene
+    private static final class SceneTask {
+        final int sceneIndex;
+        final CompletableFuture<List<VariantAlternative>> alternatives = new CompletableFuture<>();
+        volatile CompletableFuture<List<VariantAlternative>> request;
+        volatile boolean cancelled;
+
+        SceneTask(int sceneIndex) {
+            this.sceneIndex = sceneIndex;
+        }
+    }
+
+    private final AlternativesSource source;
+    private final ThumbnailLoader thumbnailLoader;
+    private final Path mediaDir;
+    private final int lookahead;
+    private final int topN;
+    private final ThreadPoolExecutor executor;
+
+    // Guarded by this
+    private int sessionUserId = -1;
+    private int sessionMovieId = -1;
+    private final Map<Integer, SceneTask> tasks = new HashMap<>();
+
+    private final Map<String, byte[]> thumbnails;
+    private final Set<String> warmMedia = ConcurrentHashMap.newKeySet();
+
+    // Metrics
+    private final LongAdder scheduled = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder thumbnailsLoaded = new LongAdder();
+    private final LongAdder mediaWarmed = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ScenePrefetcher(AlternativesSource source, ThumbnailLoader thumbnailLoader, Path mediaDir,
+                           int lookahead, int topN, int threads, int thumbnailCapacity) {
+        this.source = source;
+        this.thumbnailLoader = thumbnailLoader;
+        this.mediaDir = mediaDir;
+        this.lookahead = Math.max(1, lookahead);
+        this.topN = Math.max(1, topN);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "scene-prefetch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+
+        int capacity = Math.max(1, thumbnailCapacity);
+        this.thumbnails = Collections.synchronizedMap(new LinkedHashMap<String, byte[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                return size() > capacity;
+            }
+        });
+    }
+
+    // Configured through -Dfablemaze.prefetch.* system properties
+    public static ScenePrefetcher fromSystemProperties(AlternativesSource source) {
+        return new ScenePrefetcher(
+            source,
+            ScenePrefetcher::loadClasspathThumbnail,
+            Paths.get(System.getProperty("fablemaze.media.dir", ".")),
+            Integer.getInteger("fablemaze.prefetch.lookahead", 3),
+            Integer.getInteger("fablemaze.prefetch.topN", 3),
+            Integer.getInteger("fablemaze.prefetch.threads", 2),
+            Integer.getInteger("fablemaze.prefetch.thumbnails", 256)
+        );
+    }
+
+    // Thumbnails ship as /images/<file_path> resources, where the watch page loads them from
+    public static byte[] loadClasspathThumbnail(String filePath) throws IOException {
+        try (InputStream in = ScenePrefetcher.class.getResourceAsStream("/images/" + filePath)) {
+            return in == null ? null : in.readAllBytes();
+        }
+    }
+
+    /**
+     * The viewer is now on sceneIndex of the graph's movie. Cancels work for other movies
+     * and for scenes before this one, and schedules the next lookahead scenes not yet scheduled.
+     */
+    public synchronized void onSceneStarted(int userId, MovieGraph graph, int sceneIndex) {
+        int movieId = graph.getMovie().getMovieId();
+        if (userId != sessionUserId || movieId != sessionMovieId) {
+            cancelAll();
+            sessionUserId = userId;
+            sessionMovieId = movieId;
+            warmMedia.clear();
+        }
+
+        Iterator<SceneTask> it = tasks.values().iterator();
+        while (it.hasNext()) {
+            SceneTask task = it.next();
+            if (task.sceneIndex < sceneIndex) {
+                cancel(task);
+                it.remove();
+            }
+        }
+
+        int ahead = 0;
+        for (Scene scene : graph.getScenes()) {
+            if (scene.getSceneIndex() <= sceneIndex) {
+                continue;
+            }
+            if (ahead++ == lookahead) {
+                break;
+            }
+            if (!tasks.containsKey(scene.getSceneIndex())) {
+                SceneTask task = new SceneTask(scene.getSceneIndex());
+                tasks.put(task.sceneIndex, task);
+                schedule(task, userId, graph);
+            }
+        }
+    }
+
+    // Navigation away from the watch page; drops everything still pending
+    public synchronized void cancelAll() {
+        for (SceneTask task : tasks.values()) {
+            cancel(task);
+        }
+        tasks.clear();
+        sessionUserId = -1;
+        sessionMovieId = -1;
+    }
+
+    private void cancel(SceneTask task) {
+        task.cancelled = true;
+        if (task.alternatives.cancel(false)) {
+            cancelled.increment();
+        }
+        // Lets the source drop a ranking request nobody is waiting for any more
+        CompletableFuture<List<VariantAlternative>> request = task.request;
+        if (request != null) {
+            request.cancel(false);
+        }
+    }
+
+    private void schedule(SceneTask task, int userId, MovieGraph graph) {
+        scheduled.increment();
+        submit(() -> {
+            if (task.cancelled) {
+                return;
+            }
+            CompletableFuture<List<VariantAlternative>> ranked;
+            try {
+                ranked = source.alternatives(userId, graph.getMovie().getMovieId(), task.sceneIndex, topN);
+            } catch (RuntimeException e) {
+                ranked = CompletableFuture.failedFuture(e);
+            }
+            task.request = ranked;
+            if (task.cancelled) {
+                ranked.cancel(false);
+                return;
+            }
+            ranked.whenComplete((list, error) -> {
+                if (task.cancelled) {
+                    return;
+                }
+                List<String> paths = new ArrayList<>();
+                if (error == null && list != null) {
+                    task.alternatives.complete(list);
+                    for (VariantAlternative alternative : list) {
+                        paths.add(alternative.getFilePath());
+                    }
+                } else {
+                    failed.increment();
+                    task.alternatives.completeExceptionally(error != null ? error : new IllegalStateException("no ranking"));
+                    // Without a ranking any variant may be next
+                    for (SceneVariant variant : graph.getVariants(task.sceneIndex)) {
+                        paths.add(variant.getFilePath());
+                    }
+                }
+                submit(() -> loadAssets(task, paths));
+            });
+        });
+    }
+
+    private void submit(Runnable work) {
+        try {
+            executor.execute(work);
+        } catch (RejectedExecutionException e) {
+            // Closed; nothing left to prefetch for
+        }
+    }
+
+    private void loadAssets(SceneTask task, List<String> paths) {
+        for (String path : paths) {
+            if (task.cancelled) {
+                return;
+            }
+            if (path == null) {
+                continue;
+            }
+            try {
+                if (!thumbnails.containsKey(path)) {
+                    byte[] thumbnail = thumbnailLoader.load(path);
+                    if (thumbnail != null) {
+                        thumbnails.put(path, thumbnail);
+                        thumbnailsLoaded.increment();
+                    }
+                }
+                if (!warmMedia.contains(path) && warm(task, mediaDir.resolve(path))) {
+                    warmMedia.add(path);
+                    mediaWarmed.increment();
+                }
+            } catch (IOException e) {
+                failed.increment();
+                System.err.println("Prefetch of " + path + " failed: " + e.getMessage());
+            }
+        }
+    }
+
+    // Reads the file through once so the OS has it cached; false if it doesn't exist or the task was cancelled.
+    // Relative file_paths are under mediaDir
+    private boolean warm(SceneTask task, Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return false;
+        }
+        byte[] buffer = new byte[MEDIA_CHUNK];
+        try (InputStream in = Files.newInputStream(file)) {
+            while (in.read(buffer) >= 0) {
+                if (task.cancelled) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // Prefetched ranking for a scene of the current session, or null if it isn't ready yet
+    public List<VariantAlternative> getAlternatives(int movieId, int sceneIndex) {
+        SceneTask task;
+        synchronized (this) {
+            task = movieId == sessionMovieId ? tasks.get(sceneIndex) : null;
+        }
+        if (task != null && task.alternatives.isDone() && !task.alternatives.isCompletedExceptionally()) {
+            hits.increment();
+            return task.alternatives.join();
+        }
+        misses.increment();
+        return null;
+    }
+
+    // Prefetched thumbnail bytes, or null if the caller has to load it itself
+    public byte[] getThumbnail(String filePath) {
+        byte[] thumbnail = thumbnails.get(filePath);
+        if (thumbnail != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return thumbnail;
+    }
+
+    @Override
+    public void close() {
+        cancelAll();
+        executor.shutdownNow();
+    }
+
+    // Metrics
+    public long getScheduled() { return scheduled.sum(); }
+    public long getCancelled() { return cancelled.sum(); }
+    public long getFailed() { return failed.sum(); }
+    public long getThumbnailsLoaded() { return thumbnailsLoaded.sum(); }
+    public long getMediaWarmed() { return mediaWarmed.sum(); }
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : h / (double) total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ScenePrefetcher[scheduled=%d cancelled=%d failed=%d thumbnails=%d media=%d "
+                + "hits=%d misses=%d hitRate=%.2f queue=%d]",
+                getScheduled(), getCancelled(), getFailed(), getThumbnailsLoaded(), getMediaWarmed(),
+                getHits(), getMisses(), getHitRate(), executor.getQueue().size());
+    }
+}
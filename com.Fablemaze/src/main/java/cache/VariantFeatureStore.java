@@ -0,0 +1,332 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package cache;
+
+import model.MovieGraph;
+import model.Scene;
+import model.SceneVariant;
+import model.User;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * SceneVariant content scores packed into primitive arrays, one array per score
+ * (struct-of-arrays), indexed by a dense variant index 0..size()-1.
+ * Variants are laid out by movie, then scene_index, so one movie is a contiguous
+ * index range and a full-catalog scan walks each array front to back.
+ * Missing scores are stored as NaN. Immutable once built.
+ */
+public class VariantFeatureStore {
+
+    // Score columns, in the order used by score(index, feature)
+    public static final int PACING = 0;
+    public static final int INTENSITY = 1;
+    public static final int DIALOGUE = 2;
+    public static final int ACTION = 3;
+    public static final int CHARACTER = 4;
+    public static final int EMOTION = 5;
+    public static final int FEATURE_COUNT = 6;
+
+    private final int size;
+    private final int[] variantIds;
+    private final int[] sceneIds;
+    private final int[] movieIds;
+    private final int[] sceneIndexes;
+    private final int[] durations;
+    private final float[][] scores;
+
+    // variant_id -> dense index (-1 if absent); ids are AUTOINCREMENT so the table stays compact
+    private final int[] indexByVariantId;
+    // movie_id -> {start, end} index range
+    private final Map<Integer, int[]> movieRanges;
+
+    // graphs must be in the order the variants should be laid out (CatalogSnapshot passes movie_id order)
+    public VariantFeatureStore(Collection<MovieGraph> graphs) {
+        int count = 0;
+        int maxVariantId = -1;
+        for (MovieGraph graph : graphs) {
+            for (Scene scene : graph.getScenes()) {
+                for (SceneVariant variant : graph.getVariants(scene.getSceneIndex())) {
+                    count++;
+                    maxVariantId = Math.max(maxVariantId, variant.getVariantId());
+                }
+            }
+        }
+
+        this.size = count;
+        this.variantIds = new int[count];
+        this.sceneIds = new int[count];
+        this.movieIds = new int[count];
+        this.sceneIndexes = new int[count];
+        this.durations = new int[count];
+        this.scores = new float[FEATURE_COUNT][count];
+        this.indexByVariantId = new int[maxVariantId + 1];
+        Arrays.fill(indexByVariantId, -1);
+        this.movieRanges = new HashMap<>();
+
+        int i = 0;
+        for (MovieGraph graph : graphs) {
+            int start = i;
+            i = fill(graph, i);
+            movieRanges.put(graph.getMovie().getMovieId(), new int[] {start, i});
+        }
+    }
+
+    private VariantFeatureStore(int size, int[] indexByVariantId, Map<Integer, int[]> movieRanges) {
+        this.size = size;
+        this.variantIds = new int[size];
+        this.sceneIds = new int[size];
+        this.movieIds = new int[size];
+        this.sceneIndexes = new int[size];
+        this.durations = new int[size];
+        this.scores = new float[FEATURE_COUNT][size];
+        this.indexByVariantId = indexByVariantId;
+        this.movieRanges = movieRanges;
+    }
+
+    // Writes a movie's variants from index i on; returns one past the last index written
+    private int fill(MovieGraph graph, int i) {
+        int movieId = graph.getMovie().getMovieId();
+        for (Scene scene : graph.getScenes()) {
+            for (SceneVariant variant : graph.getVariants(scene.getSceneIndex())) {
+                variantIds[i] = variant.getVariantId();
+                sceneIds[i] = scene.getSceneId();
+                movieIds[i] = movieId;
+                sceneIndexes[i] = scene.getSceneIndex();
+                durations[i] = variant.getDuration();
+                scores[PACING][i] = toFloat(variant.getPacingScore());
+                scores[INTENSITY][i] = toFloat(variant.getIntensityScore());
+                scores[DIALOGUE][i] = toFloat(variant.getDialogueDensity());
+                scores[ACTION][i] = toFloat(variant.getActionLevel());
+                scores[CHARACTER][i] = toFloat(variant.getCharacterFocus());
+                scores[EMOTION][i] = toFloat(variant.getEmotionalTone());
+                indexByVariantId[variant.getVariantId()] = i;
+                i++;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * New store with one movie's variants added or replaced, laid out as the constructor would.
+     * Only that movie's variants are read from its graph; the others are block-copied, and only the
+     * indexes of the variants after it move. A new movie with the highest movie_id is a plain append.
+     */
+    public VariantFeatureStore withMovie(MovieGraph graph) {
+        int movieId = graph.getMovie().getMovieId();
+        int[] range = movieRanges.get(movieId);
+        int start;
+        int end;
+        if (range != null) {
+            start = range[0];
+            end = range[1];
+        } else {
+            // movieIds is ascending; the new movie goes before the first one with a higher id
+            start = lowerBound(movieId + 1);
+            end = start;
+        }
+
+        int count = 0;
+        int maxVariantId = indexByVariantId.length - 1;
+        for (Scene scene : graph.getScenes()) {
+            for (SceneVariant variant : graph.getVariants(scene.getSceneIndex())) {
+                count++;
+                maxVariantId = Math.max(maxVariantId, variant.getVariantId());
+            }
+        }
+        int shift = count - (end - start);
+
+        int[] index = Arrays.copyOf(indexByVariantId, maxVariantId + 1);
+        if (maxVariantId >= indexByVariantId.length) {
+            Arrays.fill(index, indexByVariantId.length, index.length, -1);
+        }
+        for (int i = start; i < end; i++) {
+            index[variantIds[i]] = -1;
+        }
+        // Movies are laid out in movie_id order, so exactly the ones with a higher id move
+        Map<Integer, int[]> ranges = new HashMap<>(movieRanges);
+        if (shift != 0) {
+            for (Map.Entry<Integer, int[]> entry : ranges.entrySet()) {
+                if (entry.getKey() > movieId) {
+                    int[] r = entry.getValue();
+                    entry.setValue(new int[] {r[0] + shift, r[1] + shift});
+                }
+            }
+        }
+        ranges.put(movieId, new int[] {start, start + count});
+
+        VariantFeatureStore store = new VariantFeatureStore(size + shift, index, ranges);
+        store.copyFrom(this, 0, 0, start);
+        store.fill(graph, start);
+        store.copyFrom(this, end, start + count, size - end);
+        if (shift != 0) {
+            for (int i = start + count; i < store.size; i++) {
+                index[store.variantIds[i]] = i;
+            }
+        }
+        return store;
+    }
+
+    private void copyFrom(VariantFeatureStore from, int fromIndex, int toIndex, int length) {
+        System.arraycopy(from.variantIds, fromIndex, variantIds, toIndex, length);
+        System.arraycopy(from.sceneIds, fromIndex, sceneIds, toIndex, length);
+        System.arraycopy(from.movieIds, fromIndex, movieIds, toIndex, length);
+        System.arraycopy(from.sceneIndexes, fromIndex, sceneIndexes, toIndex, length);
+        System.arraycopy(from.durations, fromIndex, durations, toIndex, length);
+        for (int f = 0; f < FEATURE_COUNT; f++) {
+            System.arraycopy(from.scores[f], fromIndex, scores[f], toIndex, length);
+        }
+    }
+
+    // First index whose movie_id is at least movieId, or size if there is none
+    private int lowerBound(int movieId) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (movieIds[mid] < movieId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static float toFloat(Double value) {
+        return value == null ? Float.NaN : value.floatValue();
+    }
+
+    public int size() { return size; }
+
+    // Dense index of a variant, or -1 if it isn't in the store
+    public int indexOf(int variantId) {
+        return variantId >= 0 && variantId < indexByVariantId.length ? indexByVariantId[variantId] : -1;
+    }
+
+    public int getVariantId(int index) { return variantIds[index]; }
+    public int getSceneId(int index) { return sceneIds[index]; }
+    public int getMovieId(int index) { return movieIds[index]; }
+    public int getSceneIndex(int index) { return sceneIndexes[index]; }
+    public int getDuration(int index) { return durations[index]; }
+    public float score(int index, int feature) { return scores[feature][index]; }
+
+    // First index of a movie's variants, or -1 if the movie has none
+    public int movieStart(int movieId) {
+        int[] range = movieRanges.get(movieId);
+        return range == null ? -1 : range[0];
+    }
+
+    // One past the last index of a movie's variants, or -1 if the movie has none
+    public int movieEnd(int movieId) {
+        int[] range = movieRanges.get(movieId);
+        return range == null ? -1 : range[1];
+    }
+
+    // Copies a variant's six scores into out (length >= FEATURE_COUNT)
+    public void copyScores(int index, float[] out) {
+        for (int f = 0; f < FEATURE_COUNT; f++) {
+            out[f] = scores[f][index];
+        }
+    }
+
+    /**
+     * Personality/content affinity for every variant in [from, to), written to out[0 .. to-from).
+     * Same formula the training data was generated with:
+     * O*(dialogue+emotion) + C*(10-|pacing-5|) + E*(intensity+action) + A*(character+dialogue) + (10-N)*(10-|emotion-5|)
+     */
+    public void affinity(double openness, double conscientiousness, double extraversion,
+                         double agreeableness, double neuroticism, int from, int to, float[] out) {
+        float o = (float) openness;
+        float c = (float) conscientiousness;
+        float e = (float) extraversion;
+        float a = (float) agreeableness;
+        float n = 10f - (float) neuroticism;
+        float[] pacing = scores[PACING];
+        float[] intensity = scores[INTENSITY];
+        float[] dialogue = scores[DIALOGUE];
+        float[] action = scores[ACTION];
+        float[] character = scores[CHARACTER];
+        float[] emotion = scores[EMOTION];
+
+        for (int i = from; i < to; i++) {
+            out[i - from] = o * (dialogue[i] + emotion[i])
+                    + c * (10f - Math.abs(pacing[i] - 5f))
+                    + e * (intensity[i] + action[i])
+                    + a * (character[i] + dialogue[i])
+                    + n * (10f - Math.abs(emotion[i] - 5f));
+        }
+    }
+
+    // Affinity for a user's Big Five traits; missing traits count as the neutral 5.0
+    public void affinity(User user, int from, int to, float[] out) {
+        affinity(orNeutral(user.getOpenness()), orNeutral(user.getConscientiousness()),
+                orNeutral(user.getExtraversion()), orNeutral(user.getAgreeableness()),
+                orNeutral(user.getNeuroticism()), from, to, out);
+    }
+
+    private static double orNeutral(Double trait) {
+        return trait == null ? 5.0 : trait;
+    }
+
+    /**
+     * Similarity of every variant in [from, to) to the query scores, written to out[0 .. to-from)
+     * as 1 / (1 + euclidean distance): 1.0 for identical scores, towards 0 as they diverge.
+     */
+    public void similarity(float[] query, int from, int to, float[] out) {
+        Arrays.fill(out, 0, to - from, 0f);
+        // Accumulate squared distance one column at a time so each pass is a sequential scan
+        for (int f = 0; f < FEATURE_COUNT; f++) {
+            float[] column = scores[f];
+            float q = query[f];
+            for (int i = from; i < to; i++) {
+                float d = column[i] - q;
+                out[i - from] += d * d;
+            }
+        }
+        for (int i = 0; i < to - from; i++) {
+            out[i] = 1f / (1f + (float) Math.sqrt(out[i]));
+        }
+    }
+
+    // Variant ids of the k variants in the whole catalog most similar to the given one, best first
+    public int[] mostSimilar(int variantId, int k) {
+        int self = indexOf(variantId);
+        if (self < 0 || k <= 0) {
+            return new int[0];
+        }
+        float[] query = new float[FEATURE_COUNT];
+        copyScores(self, query);
+        float[] sims = new float[size];
+        similarity(query, 0, size, sims);
+        sims[self] = Float.NEGATIVE_INFINITY;
+
+        // Partial selection; k is small compared with the catalog
+        int limit = Math.min(k, size - 1);
+        int[] best = new int[limit];
+        boolean[] taken = new boolean[size];
+        taken[self] = true;
+        for (int r = 0; r < limit; r++) {
+            int bestIndex = -1;
+            for (int i = 0; i < size; i++) {
+                if (!taken[i] && (bestIndex < 0 || sims[i] > sims[bestIndex])) {
+                    bestIndex = i;
+                }
+            }
+            taken[bestIndex] = true;
+            best[r] = variantIds[bestIndex];
+        }
+        return best;
+    }
+
+    // Approximate heap footprint of the arrays, for comparing against the SceneVariant object graph
+    public long estimateBytes() {
+        long perArrayHeader = 16;
+        return (5L * size * Integer.BYTES) + (FEATURE_COUNT * (long) size * Float.BYTES)
+                + ((long) indexByVariantId.length * Integer.BYTES) + (12 * perArrayHeader);
+    }
+}
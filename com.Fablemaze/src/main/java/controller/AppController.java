@@ -4,28 +4,70 @@
 
 package controller;
 
+import cache.CatalogCache;
+import cache.CatalogSnapshot;
+import cache.PredictionCache;
+import cache.ScenePrefetcher;
 import dao.*;
 import java.util.ArrayList;
 import model.*;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 
 import java.util.List;
 import java.util.Map;
 import java.util.OptionalDouble;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import job.PrecomputeJob;
+import prediction.LocalSequencePredictor;
+import prediction.ResilientSequencePredictor;
+import prediction.SequencePlanner;
+import prediction.SessionContext;
+import prediction.SessionReplanner;
+import prediction.VariantAlternative;
+import telemetry.TelemetryWriter;
+import util.SingleFlight;
 
 public class AppController {
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    // How long a request waits for an identical one already being planned
+    private static final Duration PLAN_DEADLINE = Duration.ofSeconds(10);
+    
     private final UserDAO userDAO = new UserDAO();
     private final MovieDAO movieDAO = new MovieDAO();
     private final SceneDAO sceneDAO = new SceneDAO();
     private final SceneVariantDAO variantDAO = new SceneVariantDAO();
     private final SceneViewingDAO sceneViewingDAO = new SceneViewingDAO();
     private final ViewingSessionDAO viewingSessionDAO = new ViewingSessionDAO();
+    private final PrecomputedSequenceDAO precomputedSequenceDAO = new PrecomputedSequenceDAO();
+    private final CatalogCache catalogCache = CatalogCache.getInstance();
+    private final TelemetryWriter telemetryWriter = TelemetryWriter.fromSystemProperties(sceneViewingDAO);
+    private final LocalSequencePredictor sequencePredictor = LocalSequencePredictor.fromSystemProperties();
+    private final SequencePlanner sequencePlanner = SequencePlanner.fromSystemProperties();
+    private final PredictionCache predictionCache = PredictionCache.fromSystemProperties(viewingSessionDAO);
+    // Only needed when the model couldn't be loaded in-process
+    private final ResilientSequencePredictor remotePredictor = sequencePredictor == null
+            ? ResilientSequencePredictor.fromSystemProperties(catalogCache, predictionCache) : null;
+    // A precomputed row is only used if it was scored by the same model and planner settings
+    private final long scorerSignature = sequencePredictor != null
+            ? PrecomputeJob.scorerSignature(sequencePredictor.getModelSignature(), sequencePlanner)
+            : PrecomputeJob.REMOTE_SCORER_SIGNATURE;
+    private final ScenePrefetcher scenePrefetcher = ScenePrefetcher.fromSystemProperties(this::rankAlternatives);
+    private final SingleFlight<String, int[]> planFlights = new SingleFlight<>();
     
-    private User currentUser;
+    private volatile User currentUser;
+    private volatile SessionReplanner sessionReplanner;
+    private volatile int watchingSessionId;
+    private volatile MovieGraph watchingGraph;
+    // Sequence the current session opened with, when there is no SessionReplanner to re-plan it
+    private volatile List<SceneVariant> watchingPlan;
     private Map<String, String> questionToTrait = new HashMap();
     private Map<Integer, String> valueToOption = new HashMap();
     private Map<String, List<Integer>> traitToAnswers = new HashMap();
@@ -97,6 +139,9 @@ public class AppController {
         );
         
         traitToAnswers.clear();
+        
+        // New traits change every prediction for this user
+        predictionCache.invalidateUser(currentUser.getUserId());
     }
     
     public String login(String username, String password) {
@@ -149,19 +194,273 @@ public class AppController {
     }
     
     public List<Movie> getMovies() {
-        return movieDAO.getAllMovies();
+        return catalogCache.getMovies();
+    }
+    
+    // Paged catalog for the home grid, which only loads the rows it shows; afterMovieId, the last movie
+    // of the page before when the grid has it, lets the next page seek by key instead of skipping offset rows
+    public List<Movie> getMoviesPage(int offset, int limit, int afterMovieId) {
+        return afterMovieId > 0 ? movieDAO.getMoviesAfter(afterMovieId, limit) : movieDAO.getMoviesPage(offset, limit);
+    }
+    
+    public int getMovieCount() {
+        return movieDAO.countMovies();
     }
     
     public List<SceneVariant> getSceneVariantSequence(Movie movie) {
-        List<Scene> scenes = sceneDAO.getScenesByMovieId(movie.getMovieId());
-        Map<Scene, List<SceneVariant>> scenesToVariants = new HashMap<>();
-        List<SceneVariant> sceneVariants = new ArrayList<>();
+        MovieGraph graph = catalogCache.getMovieGraph(movie.getMovieId());
         
-        for (Scene scene : scenes) {
-            scenesToVariants.put(scene, variantDAO.getVariantsBySceneId(scene.getSceneId()));
-            sceneVariants.add(scenesToVariants.get(scene).get(0));
+        if (graph == null) {
+            return new ArrayList<>();
+        }
+        
+        if (currentUser == null) {
+            return graph.getDefaultSequence();
+        }
+        
+        // Re-read the user so traits saved by completeProfile() are picked up
+        User user = userDAO.getUserById(currentUser.getUserId());
+        if (user == null) {
+            return graph.getDefaultSequence();
         }
         
-        return sceneVariants;
+        String deviceType = "desktop";
+        if (sequencePredictor != null) {
+            return graph.resolveSequence(plannedSequence(user, graph, deviceType));
+        }
+        
+        int[] sequence = predictionCache.get(user.getUserId(), graph.getMovie().getMovieId(), deviceType);
+        if (sequence == null) {
+            // Taken before reading anything the sequence depends on; put() drops it if a viewing lands meanwhile
+            long generation = predictionCache.generation(user.getUserId(), graph.getMovie().getMovieId());
+            sequence = getPrecomputedSequence(user, graph, deviceType);
+            if (sequence == null) {
+                // Cached and coalesced per user/movie/device inside the predictor and its client
+                return remotePredictor.predictSceneVariants(user, graph, deviceType);
+            }
+            predictionCache.put(user.getUserId(), graph.getMovie().getMovieId(), deviceType, sequence, generation);
+        }
+        
+        return graph.resolveSequence(sequence);
+    }
+    
+    /**
+     * In-process plan: the cached one, else a valid precomputed row, else a fresh plan from the model.
+     * Identical requests made while one is being planned (opening the same movie twice, say) wait
+     * for that one instead of scoring the movie again.
+     */
+    private int[] plannedSequence(User user, MovieGraph graph, String deviceType) {
+        int userId = user.getUserId();
+        int movieId = graph.getMovie().getMovieId();
+        int[] sequence = predictionCache.get(userId, movieId, deviceType);
+        if (sequence != null) {
+            return sequence;
+        }
+        
+        try {
+            return planFlights.execute(userId + ":" + movieId + ":" + deviceType, PLAN_DEADLINE, deadline -> {
+                // Taken before reading anything the sequence depends on; put() drops it if a viewing lands meanwhile
+                long generation = predictionCache.generation(userId, movieId);
+                int[] planned = getPrecomputedSequence(user, graph, deviceType);
+                if (planned == null) {
+                    planned = sequencePredictor.planVariantSequence(user, graph, deviceType, sequencePlanner, 0);
+                }
+                predictionCache.put(userId, movieId, deviceType, planned, generation);
+                return CompletableFuture.completedFuture(planned);
+            }).join().clone();
+        } catch (CompletionException e) {
+            System.err.println("Plan sequence failed: " + e.getCause().getMessage());
+            return graph.getDefaultSequence().stream().mapToInt(SceneVariant::getVariantId).toArray();
+        }
+    }
+    
+    // Row written by PrecomputeJob, if it was computed from this profile, these variants and this scorer
+    private int[] getPrecomputedSequence(User user, MovieGraph graph, String deviceType) {
+        PrecomputedSequence stored = precomputedSequenceDAO.getSequence(user.getUserId(), graph.getMovie().getMovieId(), deviceType);
+        if (stored == null
+                || stored.getUserSignature() != PrecomputeJob.userSignature(user)
+                || stored.getMovieSignature() != PrecomputeJob.movieSignature(graph)
+                || stored.getScorerSignature() != scorerSignature) {
+            return null;
+        }
+        return stored.getVariantSequence();
+    }
+    
+    // Starts a viewing session whose remaining scenes are re-planned by recordSceneViewing()
+    public List<SceneVariant> startWatching(Movie movie) {
+        stopWatching();
+        MovieGraph graph = catalogCache.getMovieGraph(movie.getMovieId());
+        
+        if (graph == null || currentUser == null) {
+            return getSceneVariantSequence(movie);
+        }
+        
+        // Scene outcomes from the watch page are recorded against this session
+        ViewingSession session = new ViewingSession(currentUser.getUserId(), movie.getMovieId(),
+                LocalDateTime.now().format(TIMESTAMP_FORMAT), null, "desktop", false);
+        if (viewingSessionDAO.insertViewingSession(session)) {
+            watchingSessionId = session.getSessionId();
+        }
+        
+        // Rankings and media for the first scenes load while the page opens
+        watchingGraph = graph;
+        if (!graph.getScenes().isEmpty()) {
+            scenePrefetcher.onSceneStarted(currentUser.getUserId(), graph, graph.getScenes().get(0).getSceneIndex());
+        }
+        
+        if (sequencePredictor == null) {
+            List<SceneVariant> sequence = getSceneVariantSequence(movie);
+            watchingPlan = sequence;
+            return sequence;
+        }
+        
+        User user = userDAO.getUserById(currentUser.getUserId());
+        if (user == null) {
+            return graph.getDefaultSequence();
+        }
+        
+        // Starts from the cached, precomputed or freshly planned sequence; the model scores again only to re-plan
+        int[] planned = plannedSequence(user, graph, "desktop");
+        SessionReplanner replanner = sequencePredictor.startSession(user, graph, "desktop", sequencePlanner, planned);
+        sessionReplanner = replanner;
+        return graph.resolveSequence(replanner.getPlannedVariantIds());
+    }
+    
+    // Leaving the watch page; pending prefetches are cancelled
+    public void stopWatching() {
+        watchingSessionId = 0;
+        sessionReplanner = null;
+        watchingGraph = null;
+        watchingPlan = null;
+        scenePrefetcher.cancelAll();
+    }
+    
+    // Ranking source for the prefetcher: the in-process model if loaded, otherwise /alternatives behind the breaker
+    private CompletableFuture<List<VariantAlternative>> rankAlternatives(int userId, int movieId, int sceneIndex, int topN) {
+        if (sequencePredictor == null) {
+            return remotePredictor.alternativesAsync(userId, movieId, sceneIndex, topN);
+        }
+        
+        User user = userDAO.getUserById(userId);
+        MovieGraph graph = catalogCache.getMovieGraph(movieId);
+        if (user == null || graph == null) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        return CompletableFuture.completedFuture(
+                sequencePredictor.predictAlternatives(user, graph, SessionContext.now("desktop"), sceneIndex, topN));
+    }
+    
+    // Variants still to be watched in the current session, after re-planning
+    public List<SceneVariant> getRemainingSequence(Movie movie) {
+        SessionReplanner replanner = sessionReplanner;
+        MovieGraph graph = catalogCache.getMovieGraph(movie.getMovieId());
+        
+        if (replanner == null || graph == null) {
+            return new ArrayList<>();
+        }
+        return graph.resolveSequence(replanner.getRemainingVariantIds());
+    }
+    
+    // Queued for a group commit; never waits on SQLite. Also re-plans the rest of the current session
+    public boolean recordSceneViewing(SceneViewing viewing) {
+        SessionReplanner replanner = sessionReplanner;
+        if (replanner != null) {
+            replanner.onSceneOutcome(viewing);
+        }
+        
+        // Keep prefetching ahead of the scene after the one just watched
+        MovieGraph graph = watchingGraph;
+        Scene scene = graph == null ? null : sceneOf(viewing.getVariantId());
+        if (scene != null && scene.getMovieId() == graph.getMovie().getMovieId() && currentUser != null) {
+            scenePrefetcher.onSceneStarted(currentUser.getUserId(), graph, scene.getSceneIndex());
+        }
+        
+        return telemetryWriter.record(viewing);
+    }
+    
+    /**
+     * A scene of the current session ended on the watch page: watched to the end, or dropped
+     * part way. Records it for the session through recordSceneViewing() and returns the
+     * variants now planned for the scenes after it (empty when nothing is being re-planned).
+     * Without an in-process model there is no SessionReplanner; the next scene then takes the
+     * top variant of the ranking the ScenePrefetcher already fetched for it, if it has one.
+     */
+    public List<SceneVariant> recordSceneOutcome(Movie movie, SceneVariant variant, boolean droppedOff) {
+        int sessionId = watchingSessionId;
+        MovieGraph graph = watchingGraph;
+        // Late outcome from a movie the page has since left
+        if (sessionId == 0 || graph == null || graph.getMovie().getMovieId() != movie.getMovieId()) {
+            return new ArrayList<>();
+        }
+        recordSceneViewing(new SceneViewing(sessionId, variant.getVariantId(), droppedOff ? 0 : variant.getDuration(),
+                droppedOff, LocalDateTime.now().format(TIMESTAMP_FORMAT)));
+        
+        return sessionReplanner != null
+                ? getRemainingSequence(movie)
+                : prefetchedRemaining(graph, variant);
+    }
+    
+    // The opening plan after the ended variant's scene, its next scene re-ranked from the prefetched ranking
+    private List<SceneVariant> prefetchedRemaining(MovieGraph graph, SceneVariant ended) {
+        List<SceneVariant> plan = watchingPlan;
+        int position = -1;
+        for (int i = 0; plan != null && i < plan.size(); i++) {
+            if (plan.get(i).getVariantId() == ended.getVariantId()) {
+                position = i;
+                break;
+            }
+        }
+        if (position < 0) {
+            return new ArrayList<>();
+        }
+        
+        List<SceneVariant> remaining = new ArrayList<>(plan.subList(position + 1, plan.size()));
+        Scene nextScene = remaining.isEmpty() ? null : sceneOf(remaining.get(0).getVariantId());
+        if (nextScene == null) {
+            return remaining;
+        }
+        List<VariantAlternative> ranked = scenePrefetcher.getAlternatives(graph.getMovie().getMovieId(),
+                nextScene.getSceneIndex());
+        SceneVariant best = ranked == null || ranked.isEmpty()
+                ? null : catalogCache.getSnapshot().getVariant(ranked.get(0).getVariantId());
+        if (best != null && best.getSceneId() == nextScene.getSceneId()) {
+            remaining.set(0, best);
+            // Later outcomes continue from the re-ranked plan
+            List<SceneVariant> updated = new ArrayList<>(plan.subList(0, position + 1));
+            updated.addAll(remaining);
+            watchingPlan = updated;
+        }
+        return remaining;
+    }
+    
+    private Scene sceneOf(int variantId) {
+        CatalogSnapshot snapshot = catalogCache.getSnapshot();
+        SceneVariant variant = snapshot.getVariant(variantId);
+        return variant == null ? null : snapshot.getScene(variant.getSceneId());
+    }
+    
+    public ScenePrefetcher getScenePrefetcher() {
+        return scenePrefetcher;
+    }
+    
+    public SessionReplanner getSessionReplanner() {
+        return sessionReplanner;
+    }
+    
+    public TelemetryWriter getTelemetryWriter() {
+        return telemetryWriter;
+    }
+    
+    public PredictionCache getPredictionCache() {
+        return predictionCache;
+    }
+    
+    public void shutdown() {
+        telemetryWriter.close();
+        predictionCache.close();
+        scenePrefetcher.close();
+        if (remotePredictor != null) {
+            remotePredictor.shutdown();
+        }
     }
 }
@@ -0,0 +1,59 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package dao;
+
+import model.Movie;
+import model.Scene;
+import model.SceneVariant;
+import model.SceneViewing;
+import model.ViewingSession;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Process-wide registry the DAOs publish committed writes to
+public class DataChangeEvents {
+
+    private static final List<DataChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    public static void addListener(DataChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public static void removeListener(DataChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    static void fireMovieInserted(Movie movie) {
+        fire(listener -> listener.movieInserted(movie));
+    }
+
+    static void fireSceneInserted(Scene scene) {
+        fire(listener -> listener.sceneInserted(scene));
+    }
+
+    static void fireSceneVariantInserted(SceneVariant variant) {
+        fire(listener -> listener.sceneVariantInserted(variant));
+    }
+
+    static void fireViewingSessionsInserted(List<ViewingSession> sessions) {
+        fire(listener -> listener.viewingSessionsInserted(sessions));
+    }
+
+    static void fireSceneViewingsInserted(List<SceneViewing> viewings) {
+        fire(listener -> listener.sceneViewingsInserted(viewings));
+    }
+
+    // A failing listener must not fail the write that triggered it
+    private static void fire(Consumer<DataChangeListener> event) {
+        for (DataChangeListener listener : listeners) {
+            try {
+                event.accept(listener);
+            } catch (RuntimeException e) {
+                System.err.println("Data change listener failed: " + e.getMessage());
+            }
+        }
+    }
+}
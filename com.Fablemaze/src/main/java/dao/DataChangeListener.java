@@ -0,0 +1,26 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package dao;
+
+import model.Movie;
+import model.Scene;
+import model.SceneVariant;
+import model.SceneViewing;
+import model.ViewingSession;
+import java.util.List;
+
+// Notified after a DAO write has been committed; implement only the events you care about
+public interface DataChangeListener {
+
+    default void movieInserted(Movie movie) {}
+
+    default void sceneInserted(Scene scene) {}
+
+    default void sceneVariantInserted(SceneVariant variant) {}
+
+    default void viewingSessionsInserted(List<ViewingSession> sessions) {}
+
+    default void sceneViewingsInserted(List<SceneViewing> viewings) {}
+}
@@ -49,6 +49,7 @@ public class MovieDAO {
                         movie.setMovieId(rs.getInt(1));
                     }
                 }
+                DataChangeEvents.fireMovieInserted(movie);
                 return true;
             }
 
@@ -112,4 +113,66 @@ public class MovieDAO {
 
         return movies;
     }
+
+    /**
+     * One page of the catalog in movie_id order, by position. SQLite reads and skips every row before
+     * offset, so a deep page costs O(offset); use getMoviesAfter() when the previous page is known.
+     */
+    public List<Movie> getMoviesPage(int offset, int limit) {
+        return queryPage("SELECT * FROM Movie ORDER BY movie_id LIMIT ? OFFSET ?", limit, offset);
+    }
+
+    // The limit movies after afterMovieId in movie_id order; a seek on the primary key, whatever the depth
+    public List<Movie> getMoviesAfter(int afterMovieId, int limit) {
+        return queryPage("SELECT * FROM Movie WHERE movie_id > ? ORDER BY movie_id LIMIT ?", afterMovieId, limit);
+    }
+
+    // Null on failure, so a page that couldn't be read isn't mistaken for the end of the catalog
+    private List<Movie> queryPage(String sql, int first, int second) {
+        List<Movie> movies = new ArrayList<>();
+
+        try (Connection conn = DatabaseManager.connect();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, first);
+            stmt.setInt(2, second);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                movies.add(new Movie(
+                    rs.getInt("movie_id"),
+                    rs.getString("title"),
+                    rs.getObject("release_year", Integer.class),
+                    rs.getObject("duration", Integer.class),
+                    rs.getString("genres"),
+                    rs.getString("rating"),
+                    rs.getDouble("imdb_rating"),
+                    rs.getInt("scene_count")
+                ));
+            }
+        } catch (SQLException e) {
+            System.err.println("Fetch page failed: " + e.getMessage());
+            return null;
+        }
+
+        return movies;
+    }
+
+    // Number of movies in the catalog, or -1 if the count failed
+    public int countMovies() {
+        String sql = "SELECT COUNT(*) FROM Movie";
+
+        try (Connection conn = DatabaseManager.connect();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+        } catch (SQLException e) {
+            System.err.println("Count failed: " + e.getMessage());
+        }
+
+        return -1;
+    }
 }
@@ -0,0 +1,135 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package dao;
+
+import model.Movie;
+import model.MovieGraph;
+import model.Scene;
+import model.SceneVariant;
+import util.DatabaseManager;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class MovieGraphDAO {
+
+    private static final String GRAPH_COLUMNS = """
+        SELECT m.movie_id, m.title, m.release_year, m.duration AS movie_duration, m.genres,
+               m.rating, m.imdb_rating, m.scene_count,
+               s.scene_id, s.scene_index,
+               sv.variant_id, sv.variant_name, sv.file_path,
+               sv.pacing_score, sv.intensity_score, sv.dialogue_density,
+               sv.action_level, sv.character_focus, sv.emotional_tone, sv.duration AS variant_duration
+        FROM Movie m
+        LEFT JOIN Scene s ON s.movie_id = m.movie_id
+        LEFT JOIN SceneVariant sv ON sv.scene_id = s.scene_id
+    """;
+
+    private static final String GRAPH_SQL = GRAPH_COLUMNS + """
+        WHERE m.movie_id = ?
+        ORDER BY s.scene_index, sv.variant_id
+    """;
+
+    private static final String ALL_GRAPHS_SQL = GRAPH_COLUMNS + """
+        ORDER BY m.movie_id, s.scene_index, sv.variant_id
+    """;
+
+    // Loads the whole movie in one ordered join; returns null if the movie doesn't exist
+    public MovieGraph getMovieGraph(int movieId) {
+        try (Connection conn = DatabaseManager.connect();
+             PreparedStatement stmt = conn.prepareStatement(GRAPH_SQL)) {
+
+            stmt.setInt(1, movieId);
+            List<MovieGraph> graphs = readGraphs(stmt.executeQuery());
+            return graphs.isEmpty() ? null : graphs.get(0);
+
+        } catch (SQLException e) {
+            System.err.println("Fetch movie graph failed: " + e.getMessage());
+        }
+
+        return null;
+    }
+
+    // Loads every movie in one ordered join, in movie_id order; returns null on failure
+    public List<MovieGraph> getAllMovieGraphs() {
+        try (Connection conn = DatabaseManager.connect();
+             PreparedStatement stmt = conn.prepareStatement(ALL_GRAPHS_SQL)) {
+
+            return readGraphs(stmt.executeQuery());
+
+        } catch (SQLException e) {
+            System.err.println("Fetch all movie graphs failed: " + e.getMessage());
+        }
+
+        return null;
+    }
+
+    // Rows must be grouped by movie and ordered by scene_index within each movie
+    private List<MovieGraph> readGraphs(ResultSet rs) throws SQLException {
+        List<MovieGraph> graphs = new ArrayList<>();
+
+        Movie movie = null;
+        List<Scene> scenes = null;
+        Map<Integer, List<SceneVariant>> variantsBySceneId = null;
+        Scene currentScene = null;
+
+        while (rs.next()) {
+            int movieId = rs.getInt("movie_id");
+            if (movie == null || movie.getMovieId() != movieId) {
+                if (movie != null) {
+                    graphs.add(new MovieGraph(movie, scenes, variantsBySceneId));
+                }
+                movie = new Movie(
+                    movieId,
+                    rs.getString("title"),
+                    rs.getObject("release_year", Integer.class),
+                    rs.getObject("movie_duration", Integer.class),
+                    rs.getString("genres"),
+                    rs.getString("rating"),
+                    rs.getDouble("imdb_rating"),
+                    rs.getInt("scene_count")
+                );
+                scenes = new ArrayList<>();
+                variantsBySceneId = new HashMap<>();
+                currentScene = null;
+            }
+
+            int sceneId = rs.getInt("scene_id");
+            if (rs.wasNull()) {
+                continue;
+            }
+            if (currentScene == null || currentScene.getSceneId() != sceneId) {
+                currentScene = new Scene(sceneId, movieId, rs.getInt("scene_index"));
+                scenes.add(currentScene);
+                variantsBySceneId.put(sceneId, new ArrayList<>());
+            }
+
+            int variantId = rs.getInt("variant_id");
+            if (rs.wasNull()) {
+                continue;
+            }
+            variantsBySceneId.get(sceneId).add(new SceneVariant(
+                variantId,
+                sceneId,
+                rs.getString("variant_name"),
+                rs.getString("file_path"),
+                rs.getDouble("pacing_score"),
+                rs.getDouble("intensity_score"),
+                rs.getDouble("dialogue_density"),
+                rs.getDouble("action_level"),
+                rs.getDouble("character_focus"),
+                rs.getDouble("emotional_tone"),
+                rs.getInt("variant_duration")
+            ));
+        }
+
+        if (movie != null) {
+            graphs.add(new MovieGraph(movie, scenes, variantsBySceneId));
+        }
+        return graphs;
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package dao;
+
+import model.PrecomputedSequence;
+import util.DatabaseManager;
+import util.LatencyHistogram;
+import java.sql.*;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class PrecomputedSequenceDAO {
+
+    private static final String UPSERT_SQL = """
+        INSERT INTO PrecomputedSequence (user_id, movie_id, device_type, variant_sequence, avg_engagement,
+                                         user_signature, movie_signature, scorer_signature, history_mark, computed_at)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP)
+        ON CONFLICT (user_id, movie_id, device_type) DO UPDATE SET
+            variant_sequence = excluded.variant_sequence,
+            avg_engagement = excluded.avg_engagement,
+            user_signature = excluded.user_signature,
+            movie_signature = excluded.movie_signature,
+            scorer_signature = excluded.scorer_signature,
+            history_mark = excluded.history_mark,
+            computed_at = excluded.computed_at
+    """;
+
+    // Wall time of each upsertSequences() call, from borrow to commit
+    private static final LatencyHistogram batchLatency = new LatencyHistogram();
+
+    public static LatencyHistogram getBatchLatency() {
+        return batchLatency;
+    }
+
+    // Get the stored sequence for one user/movie/device, or null if there is none
+    public PrecomputedSequence getSequence(int userId, int movieId, String deviceType) {
+        String sql = "SELECT * FROM PrecomputedSequence WHERE user_id = ? AND movie_id = ? AND device_type = ?";
+
+        try (Connection conn = DatabaseManager.connect();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, userId);
+            stmt.setInt(2, movieId);
+            stmt.setString(3, deviceType);
+            ResultSet rs = stmt.executeQuery();
+
+            if (rs.next()) {
+                return read(rs);
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Fetch precomputed sequence failed: " + e.getMessage());
+        }
+
+        return null;
+    }
+
+    // All of one user's stored sequences for a device, by movie_id; a primary-key prefix scan
+    public Map<Integer, PrecomputedSequence> getSequencesForUser(int userId, String deviceType) {
+        Map<Integer, PrecomputedSequence> sequences = new HashMap<>();
+        String sql = "SELECT * FROM PrecomputedSequence WHERE user_id = ? AND device_type = ?";
+
+        try (Connection conn = DatabaseManager.connect();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, userId);
+            stmt.setString(2, deviceType);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                PrecomputedSequence sequence = read(rs);
+                sequences.put(sequence.getMovieId(), sequence);
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Fetch precomputed sequences failed: " + e.getMessage());
+            return null;
+        }
+
+        return sequences;
+    }
+
+    // Insert or replace many rows in one transaction
+    public boolean upsertSequences(List<PrecomputedSequence> sequences) {
+        if (sequences.isEmpty()) {
+            return true;
+        }
+
+        long start = System.nanoTime();
+        try (Connection conn = DatabaseManager.connect()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(UPSERT_SQL)) {
+                for (PrecomputedSequence sequence : sequences) {
+                    stmt.setInt(1, sequence.getUserId());
+                    stmt.setInt(2, sequence.getMovieId());
+                    stmt.setString(3, sequence.getDeviceType());
+                    stmt.setString(4, join(sequence.getVariantSequence()));
+                    stmt.setDouble(5, sequence.getAvgEngagement());
+                    stmt.setLong(6, sequence.getUserSignature());
+                    stmt.setLong(7, sequence.getMovieSignature());
+                    stmt.setLong(8, sequence.getScorerSignature());
+                    stmt.setLong(9, sequence.getHistoryMark());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                conn.commit();
+                return true;
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Batch upsert precomputed sequences failed: " + e.getMessage());
+        } finally {
+            batchLatency.record(System.nanoTime() - start);
+        }
+
+        return false;
+    }
+
+    // Highest viewing_id covered by the job's last complete run; -1 if it has never completed
+    public long getWatermark(String jobName) {
+        String sql = "SELECT viewing_id FROM JobWatermark WHERE job_name = ?";
+
+        try (Connection conn = DatabaseManager.connect();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, jobName);
+            ResultSet rs = stmt.executeQuery();
+
+            if (rs.next()) {
+                return rs.getLong(1);
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Fetch job watermark failed: " + e.getMessage());
+        }
+
+        return -1;
+    }
+
+    public boolean setWatermark(String jobName, long viewingId) {
+        String sql = """
+            INSERT INTO JobWatermark (job_name, viewing_id, completed_at) VALUES (?, ?, CURRENT_TIMESTAMP)
+            ON CONFLICT (job_name) DO UPDATE SET viewing_id = excluded.viewing_id, completed_at = excluded.completed_at
+        """;
+
+        try (Connection conn = DatabaseManager.connect();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, jobName);
+            stmt.setLong(2, viewingId);
+            return stmt.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            System.err.println("Update job watermark failed: " + e.getMessage());
+        }
+
+        return false;
+    }
+
+    private PrecomputedSequence read(ResultSet rs) throws SQLException {
+        return new PrecomputedSequence(
+            rs.getInt("user_id"),
+            rs.getInt("movie_id"),
+            rs.getString("device_type"),
+            split(rs.getString("variant_sequence")),
+            rs.getDouble("avg_engagement"),
+            rs.getLong("user_signature"),
+            rs.getLong("movie_signature"),
+            rs.getLong("scorer_signature"),
+            rs.getLong("history_mark"),
+            rs.getString("computed_at")
+        );
+    }
+
+    private static String join(int[] variantIds) {
+        StringBuilder sb = new StringBuilder(variantIds.length * 4);
+        for (int i = 0; i < variantIds.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(variantIds[i]);
+        }
+        return sb.toString();
+    }
+
+    private static int[] split(String variantSequence) {
+        if (variantSequence == null || variantSequence.isEmpty()) {
+            return new int[0];
+        }
+        String[] parts = variantSequence.split(",");
+        int[] variantIds = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            variantIds[i] = Integer.parseInt(parts[i]);
+        }
+        return variantIds;
+    }
+}
@@ -19,17 +19,21 @@ public class SceneDAO {
         """;
 
         try (Connection conn = DatabaseManager.connect();
-             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, scene.getMovieId());
             stmt.setInt(2, scene.getSceneIndex());
 
             int rowsInserted = stmt.executeUpdate();
             if (rowsInserted > 0) {
-                ResultSet keys = stmt.getGeneratedKeys();
-                if (keys.next()) {
-                    scene.setSceneId(keys.getInt(1));
+                // getGeneratedKeys() is not supported by this sqlite-jdbc version
+                try (Statement idStmt = conn.createStatement();
+                     ResultSet rs = idStmt.executeQuery("SELECT last_insert_rowid()")) {
+                    if (rs.next()) {
+                        scene.setSceneId(rs.getInt(1));
+                    }
                 }
+                DataChangeEvents.fireSceneInserted(scene);
                 return true;
             }
 
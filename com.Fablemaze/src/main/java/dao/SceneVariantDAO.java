@@ -44,6 +44,7 @@ public class SceneVariantDAO {
                     variant.setVariantId(rs.getInt(1));
                 }
             }
+            DataChangeEvents.fireSceneVariantInserted(variant);
             return true;
         }
 
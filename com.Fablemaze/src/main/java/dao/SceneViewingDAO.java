@@ -6,27 +6,33 @@ package dao;
 
 import model.SceneViewing;
 import util.DatabaseManager;
+import util.LatencyHistogram;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class SceneViewingDAO {
 
-    // Insert a new SceneViewing row
-    public boolean insertSceneViewing(SceneViewing viewing) {
-        String sql = """
-            INSERT INTO SceneViewing (session_id, variant_id, watch_duration, dropped_off, timestamp)
-            VALUES (?, ?, ?, ?, ?)
-        """;
+    private static final String INSERT_SQL = """
+        INSERT INTO SceneViewing (session_id, variant_id, watch_duration, dropped_off, timestamp)
+        VALUES (?, ?, ?, ?, ?)
+    """;
+
+    // Wall time of each insertSceneViewings() call, from borrow to commit
+    private static final LatencyHistogram batchLatency = new LatencyHistogram();
 
+    public static LatencyHistogram getBatchLatency() {
+        return batchLatency;
+    }
+
+    // Insert a new SceneViewing row; the insert trigger updates the user's UserPreferenceStats in the same statement
+    public boolean insertSceneViewing(SceneViewing viewing) {
         try (Connection conn = DatabaseManager.connect();
-             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
 
-            stmt.setInt(1, viewing.getSessionId());
-            stmt.setInt(2, viewing.getVariantId());
-            stmt.setInt(3, viewing.getWatchDuration());
-            stmt.setBoolean(4, viewing.isDroppedOff());
-            stmt.setString(5, viewing.getTimestamp());
+            bind(stmt, viewing);
 
             int rows = stmt.executeUpdate();
             if (rows > 0) {
@@ -36,6 +42,7 @@ public class SceneViewingDAO {
                         viewing.setViewingId(rs.getInt(1));
                     }
                 }
+                DataChangeEvents.fireSceneViewingsInserted(List.of(viewing));
                 return true;
             }
 
@@ -46,6 +53,63 @@ public class SceneViewingDAO {
         return false;
     }
 
+    // Insert many rows in one transaction; ids are assigned back onto the objects
+    public boolean insertSceneViewings(List<SceneViewing> viewings) {
+        if (viewings.isEmpty()) {
+            return true;
+        }
+
+        long start = System.nanoTime();
+        try (Connection conn = DatabaseManager.connect()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL);
+                 Statement idStmt = conn.createStatement()) {
+
+                for (SceneViewing viewing : viewings) {
+                    bind(stmt, viewing);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+
+                // AUTOINCREMENT ids are consecutive inside a single write transaction
+                try (ResultSet rs = idStmt.executeQuery("SELECT last_insert_rowid()")) {
+                    if (rs.next()) {
+                        int firstId = rs.getInt(1) - viewings.size() + 1;
+                        for (int i = 0; i < viewings.size(); i++) {
+                            viewings.get(i).setViewingId(firstId + i);
+                        }
+                    }
+                }
+
+                conn.commit();
+                DataChangeEvents.fireSceneViewingsInserted(viewings);
+                return true;
+
+            } catch (SQLException e) {
+                conn.rollback();
+                for (SceneViewing viewing : viewings) {
+                    viewing.setViewingId(0);
+                }
+                throw e;
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Batch insert scene viewings failed: " + e.getMessage());
+        } finally {
+            batchLatency.record(System.nanoTime() - start);
+        }
+
+        return false;
+    }
+
+    private void bind(PreparedStatement stmt, SceneViewing viewing) throws SQLException {
+        stmt.setInt(1, viewing.getSessionId());
+        stmt.setInt(2, viewing.getVariantId());
+        stmt.setInt(3, viewing.getWatchDuration());
+        stmt.setBoolean(4, viewing.isDroppedOff());
+        stmt.setString(5, viewing.getTimestamp());
+    }
+
     // Get SceneViewing by ID
     public SceneViewing getSceneViewingById(int id) {
         String sql = "SELECT * FROM SceneViewing WHERE viewing_id = ?";
@@ -101,4 +165,54 @@ public class SceneViewingDAO {
 
         return viewings;
     }
+
+    // Highest viewing_id so far; 0 if there are no viewings
+    public long getMaxViewingId() {
+        String sql = "SELECT COALESCE(MAX(viewing_id), 0) FROM SceneViewing";
+
+        try (Connection conn = DatabaseManager.connect();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            if (rs.next()) {
+                return rs.getLong(1);
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Fetch max viewing ID failed: " + e.getMessage());
+        }
+
+        return 0;
+    }
+
+    // Latest viewing_id per user among viewings in (afterViewingId, upToViewingId]; a rowid range scan.
+    // Returns null if the query failed
+    public Map<Integer, Long> getLatestViewingIdsByUser(long afterViewingId, long upToViewingId) {
+        Map<Integer, Long> latest = new HashMap<>();
+        String sql = """
+            SELECT vs.user_id, MAX(sv.viewing_id)
+            FROM SceneViewing sv
+            JOIN ViewingSession vs ON vs.session_id = sv.session_id
+            WHERE sv.viewing_id > ? AND sv.viewing_id <= ?
+            GROUP BY vs.user_id
+        """;
+
+        try (Connection conn = DatabaseManager.connect();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, afterViewingId);
+            stmt.setLong(2, upToViewingId);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                latest.put(rs.getInt(1), rs.getLong(2));
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Fetch latest viewings by user failed: " + e.getMessage());
+            return null;
+        }
+
+        return latest;
+    }
 }
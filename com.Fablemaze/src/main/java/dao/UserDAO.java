@@ -84,15 +84,15 @@ public class UserDAO {
                     rs.getString("password_hash"),
                     rs.getString("dob"),
                     rs.getString("sex"),
-                    rs.getDouble("openness"),
-                    rs.getDouble("conscientiousness"),
-                    rs.getDouble("extraversion"),
-                    rs.getDouble("agreeableness"),
-                    rs.getDouble("neuroticism"),
+                    rs.getObject("openness", Double.class),
+                    rs.getObject("conscientiousness", Double.class),
+                    rs.getObject("extraversion", Double.class),
+                    rs.getObject("agreeableness", Double.class),
+                    rs.getObject("neuroticism", Double.class),
                     rs.getInt("total_watch_time"),
-                    rs.getDouble("preferred_pacing"),
+                    rs.getObject("preferred_pacing", Double.class),
                     rs.getString("favourite_genres"),
-                    rs.getDouble("avg_session_length"),
+                    rs.getObject("avg_session_length", Double.class),
                     rs.getString("registration_date")
                 );
             }
@@ -118,15 +118,15 @@ public class UserDAO {
                     rs.getString("password_hash"),
                     rs.getString("dob"),
                     rs.getString("sex"),
-                    rs.getDouble("openness"),
-                    rs.getDouble("conscientiousness"),
-                    rs.getDouble("extraversion"),
-                    rs.getDouble("agreeableness"),
-                    rs.getDouble("neuroticism"),
+                    rs.getObject("openness", Double.class),
+                    rs.getObject("conscientiousness", Double.class),
+                    rs.getObject("extraversion", Double.class),
+                    rs.getObject("agreeableness", Double.class),
+                    rs.getObject("neuroticism", Double.class),
                     rs.getInt("total_watch_time"),
-                    rs.getDouble("preferred_pacing"),
+                    rs.getObject("preferred_pacing", Double.class),
                     rs.getString("favourite_genres"),
-                    rs.getDouble("avg_session_length"),
+                    rs.getObject("avg_session_length", Double.class),
                     rs.getString("registration_date")
                 );
             }
@@ -152,15 +152,15 @@ public class UserDAO {
                     rs.getString("password_hash"),
                     rs.getString("dob"),
                     rs.getString("sex"),
-                    rs.getDouble("openness"),
-                    rs.getDouble("conscientiousness"),
-                    rs.getDouble("extraversion"),
-                    rs.getDouble("agreeableness"),
-                    rs.getDouble("neuroticism"),
+                    rs.getObject("openness", Double.class),
+                    rs.getObject("conscientiousness", Double.class),
+                    rs.getObject("extraversion", Double.class),
+                    rs.getObject("agreeableness", Double.class),
+                    rs.getObject("neuroticism", Double.class),
                     rs.getInt("total_watch_time"),
-                    rs.getDouble("preferred_pacing"),
+                    rs.getObject("preferred_pacing", Double.class),
                     rs.getString("favourite_genres"),
-                    rs.getDouble("avg_session_length"),
+                    rs.getObject("avg_session_length", Double.class),
                     rs.getString("registration_date")
                 ));
             }
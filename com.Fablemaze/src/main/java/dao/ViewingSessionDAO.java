@@ -6,27 +6,30 @@ package dao;
 
 import model.ViewingSession;
 import util.DatabaseManager;
+import util.LatencyHistogram;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
 
 public class ViewingSessionDAO {
 
-    public boolean insertViewingSession(ViewingSession session) {
-        String sql = """
-            INSERT INTO ViewingSession (user_id, movie_id, start_time, end_time, device_type, completed)
-            VALUES (?, ?, ?, ?, ?, ?)
-        """;
+    private static final String INSERT_SQL = """
+        INSERT INTO ViewingSession (user_id, movie_id, start_time, end_time, device_type, completed)
+        VALUES (?, ?, ?, ?, ?, ?)
+    """;
+
+    // Wall time of each insertViewingSessions() call, from borrow to commit
+    private static final LatencyHistogram batchLatency = new LatencyHistogram();
+
+    public static LatencyHistogram getBatchLatency() {
+        return batchLatency;
+    }
 
+    public boolean insertViewingSession(ViewingSession session) {
         try (Connection conn = DatabaseManager.connect();
-             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
 
-            stmt.setInt(1, session.getUserId());
-            stmt.setInt(2, session.getMovieId());
-            stmt.setString(3, session.getStartTime());
-            stmt.setString(4, session.getEndTime());
-            stmt.setString(5, session.getDeviceType());
-            stmt.setBoolean(6, session.isCompleted());
+            bind(stmt, session);
 
             int rows = stmt.executeUpdate();
             if (rows > 0) {
@@ -37,6 +40,7 @@ public class ViewingSessionDAO {
                         session.setSessionId(rs.getInt(1));
                     }
                 }
+                DataChangeEvents.fireViewingSessionsInserted(List.of(session));
                 return true;
             }
 
@@ -47,6 +51,64 @@ public class ViewingSessionDAO {
         return false;
     }
 
+    // Insert many sessions in one transaction; ids are assigned back onto the objects
+    public boolean insertViewingSessions(List<ViewingSession> sessions) {
+        if (sessions.isEmpty()) {
+            return true;
+        }
+
+        long start = System.nanoTime();
+        try (Connection conn = DatabaseManager.connect()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL);
+                 Statement idStmt = conn.createStatement()) {
+
+                for (ViewingSession session : sessions) {
+                    bind(stmt, session);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+
+                // AUTOINCREMENT ids are consecutive inside a single write transaction
+                try (ResultSet rs = idStmt.executeQuery("SELECT last_insert_rowid()")) {
+                    if (rs.next()) {
+                        int firstId = rs.getInt(1) - sessions.size() + 1;
+                        for (int i = 0; i < sessions.size(); i++) {
+                            sessions.get(i).setSessionId(firstId + i);
+                        }
+                    }
+                }
+
+                conn.commit();
+                DataChangeEvents.fireViewingSessionsInserted(sessions);
+                return true;
+
+            } catch (SQLException e) {
+                conn.rollback();
+                for (ViewingSession session : sessions) {
+                    session.setSessionId(0);
+                }
+                throw e;
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Batch insert viewing sessions failed: " + e.getMessage());
+        } finally {
+            batchLatency.record(System.nanoTime() - start);
+        }
+
+        return false;
+    }
+
+    private void bind(PreparedStatement stmt, ViewingSession session) throws SQLException {
+        stmt.setInt(1, session.getUserId());
+        stmt.setInt(2, session.getMovieId());
+        stmt.setString(3, session.getStartTime());
+        stmt.setString(4, session.getEndTime());
+        stmt.setString(5, session.getDeviceType());
+        stmt.setBoolean(6, session.isCompleted());
+    }
+
     // Retrieve a session by ID
     public ViewingSession getViewingSessionById(int id) {
         String sql = "SELECT * FROM ViewingSession WHERE session_id = ?";
@@ -0,0 +1,486 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package job;
+
+import cache.CatalogCache;
+import dao.PrecomputedSequenceDAO;
+import dao.SceneViewingDAO;
+import dao.UserDAO;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import model.MovieGraph;
+import model.PrecomputedSequence;
+import model.Scene;
+import model.SceneVariant;
+import model.User;
+import prediction.BatchPrediction;
+import prediction.LocalSequencePredictor;
+import prediction.SequencePlanner;
+import prediction.SessionContext;
+import util.DatabaseManager;
+import util.LatencyHistogram;
+import util.PythonAPIClient;
+
+/**
+ * Offline batch job that fills PrecomputedSequence with a plan for every user x movie pair,
+ * so the watch page can read a row instead of scoring the model.
+ * Users are split across a fork-join pool; each leaf scores one user's movies in a single
+ * batch and hands the rows to batched write transactions, serialised since SQLite has one writer.
+ * Runs are incremental: a pair is recomputed only if it has no row, the user's profile, the
+ * movie's variants or the scorer (model files and planner settings) changed (the row's
+ * signatures no longer match), or the user has viewings newer than the row's history mark.
+ * Viewings are only looked at after the watermark of the last complete run, which advances
+ * once every leaf has committed. A run that is stopped part way keeps the rows it committed,
+ * so running it again resumes where it left off.
+ *
+ * Headless, from com.Fablemaze:  mvn -Pprecompute javafx:run  [-Dprecompute.args="--full --remote"]
+ * --full recomputes every pair whatever its signatures say;
+ * --remote scores through the service's /predict_batch instead of the in-process model. The client
+ * can't see which model the service runs, so after retraining it remote rows need a --full run.
+ */
+public class PrecomputeJob {
+
+    public static final String JOB_NAME = "precompute-sequences";
+
+    // 64-bit FNV-1a, for the signatures
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long NULL_MARKER = 0x7ff8dead0000L;
+
+    // Scorer signature of rows scored through the service
+    public static final long REMOTE_SCORER_SIGNATURE = mix(FNV_OFFSET, "remote:/predict_batch");
+
+    // Optimal sequences for one user across many movies; pairs that can't be scored may be left out
+    public interface Scorer {
+        List<BatchPrediction> score(User user, List<MovieGraph> graphs) throws Exception;
+    }
+
+    // Inputs shared by every leaf of one run
+    private static final class Run {
+        final List<User> users;
+        final List<MovieGraph> graphs;
+        final Map<Integer, Long> movieSignatures;
+        final Map<Integer, Long> newHistory;
+        final long historyMark;
+
+        Run(List<User> users, List<MovieGraph> graphs, Map<Integer, Long> movieSignatures,
+            Map<Integer, Long> newHistory, long historyMark) {
+            this.users = users;
+            this.graphs = graphs;
+            this.movieSignatures = movieSignatures;
+            this.newHistory = newHistory;
+            this.historyMark = historyMark;
+        }
+    }
+
+    private final PrecomputedSequenceDAO precomputedSequenceDAO = new PrecomputedSequenceDAO();
+    private final SceneViewingDAO sceneViewingDAO = new SceneViewingDAO();
+    private final Scorer scorer;
+    private final long scorerSignature;
+    private final String deviceType;
+    private final int threads;
+    private final int chunkUsers;
+    private final int batchSize;
+    private final boolean full;
+    private final Object writeLock = new Object();
+
+    // Metrics
+    private final LongAdder usersDone = new LongAdder();
+    private final LongAdder pairsScanned = new LongAdder();
+    private final LongAdder missingPairs = new LongAdder();
+    private final LongAdder userChangedPairs = new LongAdder();
+    private final LongAdder movieChangedPairs = new LongAdder();
+    private final LongAdder scorerChangedPairs = new LongAdder();
+    private final LongAdder historyChangedPairs = new LongAdder();
+    private final LongAdder skippedPairs = new LongAdder();
+    private final LongAdder unscoredPairs = new LongAdder();
+    private final LongAdder rowsWritten = new LongAdder();
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder failedChunks = new LongAdder();
+    private final LatencyHistogram scoreLatency = new LatencyHistogram();
+    private final LatencyHistogram commitLatency = new LatencyHistogram();
+    private volatile long startNanos;
+    private volatile long endNanos;
+
+    public PrecomputeJob(Scorer scorer, long scorerSignature, String deviceType, int threads, int chunkUsers, int batchSize,
+                         boolean full) {
+        this.scorer = scorer;
+        this.scorerSignature = scorerSignature;
+        this.deviceType = deviceType;
+        this.threads = Math.max(1, threads);
+        this.chunkUsers = Math.max(1, chunkUsers);
+        this.batchSize = Math.max(1, batchSize);
+        this.full = full;
+    }
+
+    // Configured through -Dfablemaze.precompute.* system properties
+    public static PrecomputeJob fromSystemProperties(Scorer scorer, long scorerSignature, boolean full) {
+        return new PrecomputeJob(
+            scorer,
+            scorerSignature,
+            System.getProperty("fablemaze.precompute.device", "desktop"),
+            Integer.getInteger("fablemaze.precompute.threads", Runtime.getRuntime().availableProcessors()),
+            Integer.getInteger("fablemaze.precompute.chunkUsers", 16),
+            Integer.getInteger("fablemaze.precompute.batchSize", 500),
+            full
+        );
+    }
+
+    /**
+     * Brings PrecomputedSequence up to date for every user x movie pair.
+     * Returns true if every pair was handled and the watermark moved forward.
+     */
+    public boolean run(List<User> users, Collection<MovieGraph> graphs) {
+        startNanos = System.nanoTime();
+
+        // Viewings recorded while the job runs are left for the next run
+        long historyMark = sceneViewingDAO.getMaxViewingId();
+        long watermark = full ? -1 : precomputedSequenceDAO.getWatermark(JOB_NAME);
+        Map<Integer, Long> newHistory = sceneViewingDAO.getLatestViewingIdsByUser(watermark, historyMark);
+        if (newHistory == null) {
+            endNanos = System.nanoTime();
+            return false;
+        }
+
+        Map<Integer, Long> movieSignatures = new HashMap<>();
+        for (MovieGraph graph : graphs) {
+            movieSignatures.put(graph.getMovie().getMovieId(), movieSignature(graph));
+        }
+        Run run = new Run(users, new ArrayList<>(graphs), movieSignatures, newHistory, historyMark);
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "precompute-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Long.getLong("fablemaze.precompute.progressSeconds", 5L);
+        progress.scheduleAtFixedRate(() -> System.out.println(this), interval, interval, TimeUnit.SECONDS);
+        try {
+            pool.invoke(new UserRange(run, 0, users.size()));
+        } finally {
+            progress.shutdownNow();
+            pool.shutdown();
+            endNanos = System.nanoTime();
+        }
+
+        // Pairs left unscored would otherwise be forgotten once their viewings fall behind the watermark
+        if (failedChunks.sum() > 0 || unscoredPairs.sum() > 0) {
+            System.err.println("Precompute incomplete: " + failedChunks.sum() + " chunk(s) failed, "
+                    + unscoredPairs.sum() + " pair(s) unscored; watermark kept at " + watermark);
+            return false;
+        }
+        return precomputedSequenceDAO.setWatermark(JOB_NAME, historyMark);
+    }
+
+    // Splits users in half until a range is small enough to process as one leaf
+    private final class UserRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Run run;
+        private final int from;
+        private final int to;
+
+        UserRange(Run run, int from, int to) {
+            this.run = run;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkUsers) {
+                try {
+                    processUsers(run, from, to);
+                } catch (Exception e) {
+                    // Committed rows stay; the next run picks up the rest
+                    failedChunks.increment();
+                    System.err.println("Precompute of users " + from + ".." + (to - 1) + " failed: " + e.getMessage());
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new UserRange(run, from, mid), new UserRange(run, mid, to));
+        }
+    }
+
+    private void processUsers(Run run, int from, int to) throws Exception {
+        List<PrecomputedSequence> pending = new ArrayList<>(batchSize);
+        for (int u = from; u < to; u++) {
+            User user = run.users.get(u);
+            Map<Integer, PrecomputedSequence> stored = full ? Map.of()
+                    : precomputedSequenceDAO.getSequencesForUser(user.getUserId(), deviceType);
+            if (stored == null) {
+                throw new IllegalStateException("could not read stored sequences of user " + user.getUserId());
+            }
+
+            long userSignature = userSignature(user);
+            long latestViewing = run.newHistory.getOrDefault(user.getUserId(), -1L);
+            List<MovieGraph> dirty = new ArrayList<>();
+            for (MovieGraph graph : run.graphs) {
+                pairsScanned.increment();
+                PrecomputedSequence row = stored.get(graph.getMovie().getMovieId());
+                if (row == null) {
+                    missingPairs.increment();
+                } else if (row.getUserSignature() != userSignature) {
+                    userChangedPairs.increment();
+                } else if (row.getMovieSignature() != run.movieSignatures.get(graph.getMovie().getMovieId())) {
+                    movieChangedPairs.increment();
+                } else if (row.getScorerSignature() != scorerSignature) {
+                    scorerChangedPairs.increment();
+                } else if (latestViewing > row.getHistoryMark()) {
+                    historyChangedPairs.increment();
+                } else {
+                    skippedPairs.increment();
+                    continue;
+                }
+                dirty.add(graph);
+            }
+
+            if (!dirty.isEmpty()) {
+                long start = System.nanoTime();
+                List<BatchPrediction> predictions = scorer.score(user, dirty);
+                scoreLatency.record(System.nanoTime() - start);
+
+                for (BatchPrediction prediction : predictions) {
+                    pending.add(new PrecomputedSequence(
+                        user.getUserId(),
+                        prediction.getMovieId(),
+                        deviceType,
+                        prediction.getVariantSequence(),
+                        prediction.getAvgEngagementScore(),
+                        userSignature,
+                        run.movieSignatures.get(prediction.getMovieId()),
+                        scorerSignature,
+                        run.historyMark
+                    ));
+                }
+                unscoredPairs.add(dirty.size() - predictions.size());
+                if (pending.size() >= batchSize) {
+                    flush(pending);
+                }
+            }
+            usersDone.increment();
+        }
+        flush(pending);
+    }
+
+    private void flush(List<PrecomputedSequence> pending) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        boolean committed;
+        long start = System.nanoTime();
+        synchronized (writeLock) {
+            committed = precomputedSequenceDAO.upsertSequences(pending);
+        }
+        commitLatency.record(System.nanoTime() - start);
+        if (!committed) {
+            throw new IllegalStateException("commit of " + pending.size() + " rows failed");
+        }
+        commits.increment();
+        rowsWritten.add(pending.size());
+        pending.clear();
+    }
+
+    // Hash of the profile columns the model reads; a different value means the user's rows are stale
+    public static long userSignature(User user) {
+        long h = FNV_OFFSET;
+        h = mix(h, user.getDob());
+        h = mix(h, user.getSex());
+        h = mix(h, user.getOpenness());
+        h = mix(h, user.getConscientiousness());
+        h = mix(h, user.getExtraversion());
+        h = mix(h, user.getAgreeableness());
+        h = mix(h, user.getNeuroticism());
+        h = mix(h, (long) user.getTotalWatchTime());
+        h = mix(h, user.getPreferredPacing());
+        h = mix(h, user.getFavouriteGenres());
+        h = mix(h, user.getAvgSessionLength());
+        return h;
+    }
+
+    // Hash of the movie's model inputs and its scenes' variants; changes when a variant is added or edited
+    public static long movieSignature(MovieGraph graph) {
+        long h = FNV_OFFSET;
+        h = mix(h, graph.getMovie().getReleaseYear());
+        h = mix(h, graph.getMovie().getDuration());
+        h = mix(h, graph.getMovie().getGenres());
+        h = mix(h, graph.getMovie().getRating());
+        h = mix(h, graph.getMovie().GetImdbRating());
+        h = mix(h, (long) graph.getMovie().getSceneCount());
+        for (Scene scene : graph.getScenes()) {
+            h = mix(h, (long) scene.getSceneIndex());
+            for (SceneVariant variant : graph.getVariants(scene.getSceneIndex())) {
+                h = mix(h, (long) variant.getVariantId());
+                h = mix(h, variant.getPacingScore());
+                h = mix(h, variant.getIntensityScore());
+                h = mix(h, variant.getDialogueDensity());
+                h = mix(h, variant.getActionLevel());
+                h = mix(h, variant.getCharacterFocus());
+                h = mix(h, variant.getEmotionalTone());
+                h = mix(h, (long) variant.getDuration());
+            }
+        }
+        return h;
+    }
+
+    // Hash of the model files and the planner settings the rows are planned with
+    public static long scorerSignature(long modelSignature, SequencePlanner planner) {
+        long h = FNV_OFFSET;
+        h = mix(h, modelSignature);
+        h = mix(h, Double.doubleToLongBits(planner.getPacingWeight()));
+        h = mix(h, Double.doubleToLongBits(planner.getEmotionWeight()));
+        h = mix(h, (long) planner.getBeamWidth());
+        return h;
+    }
+
+    private static long mix(long h, long value) {
+        for (int i = 0; i < 8; i++) {
+            h = (h ^ (value & 0xff)) * FNV_PRIME;
+            value >>>= 8;
+        }
+        return h;
+    }
+
+    private static long mix(long h, Integer value) {
+        return value == null ? mix(h, NULL_MARKER) : mix(h, (long) value);
+    }
+
+    private static long mix(long h, Double value) {
+        return value == null ? mix(h, NULL_MARKER) : mix(h, Double.doubleToLongBits(value));
+    }
+
+    private static long mix(long h, String value) {
+        if (value == null) {
+            return mix(h, NULL_MARKER);
+        }
+        h = mix(h, (long) value.length());
+        for (int i = 0; i < value.length(); i++) {
+            h = (h ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return h;
+    }
+
+    /**
+     * Viewing context the sequences are planned for: the given hour on a weekday (weekend if
+     * asked) of the current year. The watch page scores with the actual time, so a precomputed
+     * row is the plan for a typical session rather than the current hour.
+     */
+    public static SessionContext referenceContext(String deviceType, int hour, boolean weekend) {
+        LocalDate day = LocalDate.now().with(TemporalAdjusters.previousOrSame(weekend ? DayOfWeek.SATURDAY : DayOfWeek.WEDNESDAY));
+        return new SessionContext(deviceType, day.atTime(hour, 0));
+    }
+
+    public static void main(String[] args) {
+        boolean full = false;
+        boolean remote = false;
+        for (String arg : args) {
+            switch (arg) {
+                case "--full" -> full = true;
+                case "--remote" -> remote = true;
+                default -> {
+                    System.err.println("Usage: PrecomputeJob [--full] [--remote]");
+                    System.exit(2);
+                }
+            }
+        }
+
+        DatabaseManager.initSchema();
+        PythonAPIClient client = null;
+        boolean complete = false;
+        try {
+            String deviceType = System.getProperty("fablemaze.precompute.device", "desktop");
+            Scorer scorer;
+            long scorerSignature;
+            if (remote) {
+                PythonAPIClient service = PythonAPIClient.fromSystemProperties();
+                client = service;
+                scorerSignature = REMOTE_SCORER_SIGNATURE;
+                scorer = (user, graphs) -> service.predictBatchAsync(user.getUserId(),
+                        graphs.stream().mapToInt(graph -> graph.getMovie().getMovieId()).toArray(), deviceType).get();
+            } else {
+                LocalSequencePredictor predictor = LocalSequencePredictor.fromSystemProperties();
+                if (predictor == null) {
+                    System.err.println("Precompute needs the model; set -Dfablemaze.model.dir or use --remote");
+                    System.exit(1);
+                }
+                SequencePlanner planner = SequencePlanner.fromSystemProperties();
+                SessionContext context = referenceContext(deviceType,
+                        Integer.getInteger("fablemaze.precompute.hour", 20),
+                        Boolean.getBoolean("fablemaze.precompute.weekend"));
+                scorerSignature = scorerSignature(predictor.getModelSignature(), planner);
+                scorer = (user, graphs) -> predictor.planBatch(user, graphs, context, planner);
+            }
+
+            PrecomputeJob job = fromSystemProperties(scorer, scorerSignature, full);
+            complete = job.run(new UserDAO().getAllUsers(), CatalogCache.getInstance().getSnapshot().getMovieGraphs());
+            System.out.println((complete ? "Precompute complete: " : "Precompute stopped: ") + job);
+        } finally {
+            if (client != null) {
+                client.shutdown();
+            }
+            DatabaseManager.shutdown();
+        }
+        System.exit(complete ? 0 : 1);
+    }
+
+    // Metrics
+    public long getUsersDone() { return usersDone.sum(); }
+    public long getPairsScanned() { return pairsScanned.sum(); }
+    public long getMissingPairs() { return missingPairs.sum(); }
+    public long getUserChangedPairs() { return userChangedPairs.sum(); }
+    public long getMovieChangedPairs() { return movieChangedPairs.sum(); }
+    public long getScorerChangedPairs() { return scorerChangedPairs.sum(); }
+    public long getHistoryChangedPairs() { return historyChangedPairs.sum(); }
+    public long getSkippedPairs() { return skippedPairs.sum(); }
+    public long getUnscoredPairs() { return unscoredPairs.sum(); }
+    public long getRowsWritten() { return rowsWritten.sum(); }
+    public long getCommits() { return commits.sum(); }
+    public long getFailedChunks() { return failedChunks.sum(); }
+    public LatencyHistogram getScoreLatency() { return scoreLatency; }
+    public LatencyHistogram getCommitLatency() { return commitLatency; }
+
+    public double getElapsedSeconds() {
+        long start = startNanos;
+        if (start == 0) {
+            return 0.0;
+        }
+        long end = endNanos;
+        return ((end >= start ? end : System.nanoTime()) - start) / 1e9;
+    }
+
+    // Pairs looked at per second, skipped ones included
+    public double getPairsPerSecond() {
+        double seconds = getElapsedSeconds();
+        return seconds == 0 ? 0.0 : pairsScanned.sum() / seconds;
+    }
+
+    public double getRowsPerSecond() {
+        double seconds = getElapsedSeconds();
+        return seconds == 0 ? 0.0 : rowsWritten.sum() / seconds;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PrecomputeJob[users=%d pairs=%d (missing=%d user=%d movie=%d scorer=%d history=%d skipped=%d "
+                + "unscored=%d) rows=%d commits=%d failedChunks=%d elapsed=%.1fs pairs/s=%.0f rows/s=%.0f score{%s} commit{%s}]",
+                getUsersDone(), getPairsScanned(), getMissingPairs(), getUserChangedPairs(), getMovieChangedPairs(),
+                getScorerChangedPairs(), getHistoryChangedPairs(), getSkippedPairs(), getUnscoredPairs(), getRowsWritten(),
+                getCommits(), getFailedChunks(), getElapsedSeconds(), getPairsPerSecond(), getRowsPerSecond(), scoreLatency, commitLatency);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable Movie -> Scene -> SceneVariant structure for one movie,
+ * indexed by scene_index and variant_id.
+ */
+public class MovieGraph {
+    private final Movie movie;
+    private final List<Scene> scenes;
+    private final Map<Integer, Scene> scenesByIndex;
+    private final Map<Integer, List<SceneVariant>> variantsBySceneIndex;
+    private final Map<Integer, SceneVariant> variantsById;
+    private final Map<Integer, Scene> scenesByVariantId;
+
+    // scenes must be in scene_index order; variantsBySceneId keeps the variants of each scene
+    public MovieGraph(Movie movie, List<Scene> scenes, Map<Integer, List<SceneVariant>> variantsBySceneId) {
+        this.movie = movie;
+        this.scenes = Collections.unmodifiableList(new ArrayList<>(scenes));
+
+        Map<Integer, Scene> byIndex = new LinkedHashMap<>();
+        Map<Integer, List<SceneVariant>> bySceneIndex = new LinkedHashMap<>();
+        Map<Integer, SceneVariant> byId = new HashMap<>();
+        Map<Integer, Scene> sceneByVariant = new HashMap<>();
+
+        for (Scene scene : scenes) {
+            List<SceneVariant> variants = variantsBySceneId.getOrDefault(scene.getSceneId(), List.of());
+            byIndex.put(scene.getSceneIndex(), scene);
+            bySceneIndex.put(scene.getSceneIndex(), Collections.unmodifiableList(new ArrayList<>(variants)));
+            for (SceneVariant variant : variants) {
+                byId.put(variant.getVariantId(), variant);
+                sceneByVariant.put(variant.getVariantId(), scene);
+            }
+        }
+
+        this.scenesByIndex = Collections.unmodifiableMap(byIndex);
+        this.variantsBySceneIndex = Collections.unmodifiableMap(bySceneIndex);
+        this.variantsById = Collections.unmodifiableMap(byId);
+        this.scenesByVariantId = Collections.unmodifiableMap(sceneByVariant);
+    }
+
+    public Movie getMovie() { return movie; }
+
+    public List<Scene> getScenes() { return scenes; }
+
+    public Scene getScene(int sceneIndex) { return scenesByIndex.get(sceneIndex); }
+
+    public List<SceneVariant> getVariants(int sceneIndex) {
+        return variantsBySceneIndex.getOrDefault(sceneIndex, List.of());
+    }
+
+    public SceneVariant getVariant(int variantId) { return variantsById.get(variantId); }
+
+    public Scene getSceneForVariant(int variantId) { return scenesByVariantId.get(variantId); }
+
+    public int getVariantCount() { return variantsById.size(); }
+
+    // First variant of every scene that has one, in scene order
+    public List<SceneVariant> getDefaultSequence() {
+        List<SceneVariant> sequence = new ArrayList<>();
+        for (Scene scene : scenes) {
+            List<SceneVariant> variants = getVariants(scene.getSceneIndex());
+            if (!variants.isEmpty()) {
+                sequence.add(variants.get(0));
+            }
+        }
+        return sequence;
+    }
+
+    // Maps predicted variant ids back onto this movie, skipping ids that don't belong to it
+    public List<SceneVariant> resolveSequence(int[] variantIds) {
+        List<SceneVariant> sequence = new ArrayList<>(variantIds.length);
+        for (int variantId : variantIds) {
+            SceneVariant variant = variantsById.get(variantId);
+            if (variant != null) {
+                sequence.add(variant);
+            }
+        }
+        return sequence;
+    }
+}
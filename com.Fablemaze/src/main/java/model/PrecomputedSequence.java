@@ -0,0 +1,74 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package model;
+
+// One row of PrecomputedSequence: a user/movie/device plan and the inputs it was computed from
+public class PrecomputedSequence {
+    private int userId;
+    private int movieId;
+    private String deviceType;
+    private int[] variantSequence;
+    private double avgEngagement;
+    private long userSignature;
+    private long movieSignature;
+    private long scorerSignature;
+    private long historyMark;
+    private String computedAt;
+
+    // Full constructor
+    public PrecomputedSequence(int userId, int movieId, String deviceType, int[] variantSequence, double avgEngagement,
+                               long userSignature, long movieSignature, long scorerSignature, long historyMark,
+                               String computedAt) {
+        this.userId = userId;
+        this.movieId = movieId;
+        this.deviceType = deviceType;
+        this.variantSequence = variantSequence;
+        this.avgEngagement = avgEngagement;
+        this.userSignature = userSignature;
+        this.movieSignature = movieSignature;
+        this.scorerSignature = scorerSignature;
+        this.historyMark = historyMark;
+        this.computedAt = computedAt;
+    }
+
+    // Constructor without computed_at (set by the database on insert)
+    public PrecomputedSequence(int userId, int movieId, String deviceType, int[] variantSequence, double avgEngagement,
+                               long userSignature, long movieSignature, long scorerSignature, long historyMark) {
+        this(userId, movieId, deviceType, variantSequence, avgEngagement, userSignature, movieSignature, scorerSignature,
+             historyMark, null);
+    }
+
+    // Getters and setters (1-line)
+    public int getUserId() { return userId; }
+    public void setUserId(int userId) { this.userId = userId; }
+
+    public int getMovieId() { return movieId; }
+    public void setMovieId(int movieId) { this.movieId = movieId; }
+
+    public String getDeviceType() { return deviceType; }
+    public void setDeviceType(String deviceType) { this.deviceType = deviceType; }
+
+    // Variant id per scene, in scene order
+    public int[] getVariantSequence() { return variantSequence; }
+    public void setVariantSequence(int[] variantSequence) { this.variantSequence = variantSequence; }
+
+    public double getAvgEngagement() { return avgEngagement; }
+    public void setAvgEngagement(double avgEngagement) { this.avgEngagement = avgEngagement; }
+
+    public long getUserSignature() { return userSignature; }
+    public void setUserSignature(long userSignature) { this.userSignature = userSignature; }
+
+    public long getMovieSignature() { return movieSignature; }
+    public void setMovieSignature(long movieSignature) { this.movieSignature = movieSignature; }
+
+    public long getScorerSignature() { return scorerSignature; }
+    public void setScorerSignature(long scorerSignature) { this.scorerSignature = scorerSignature; }
+
+    public long getHistoryMark() { return historyMark; }
+    public void setHistoryMark(long historyMark) { this.historyMark = historyMark; }
+
+    public String getComputedAt() { return computedAt; }
+    public void setComputedAt(String computedAt) { this.computedAt = computedAt; }
+}
@@ -0,0 +1,31 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package prediction;
+
+// Optimal sequence of one user/movie pair, as returned by the /predict_batch endpoint
+public class BatchPrediction {
+    private final int userId;
+    private final int movieId;
+    private final int[] variantSequence;
+    private final double[] engagementScores;
+    private final double avgEngagementScore;
+
+    public BatchPrediction(int userId, int movieId, int[] variantSequence, double[] engagementScores,
+                           double avgEngagementScore) {
+        this.userId = userId;
+        this.movieId = movieId;
+        this.variantSequence = variantSequence;
+        this.engagementScores = engagementScores;
+        this.avgEngagementScore = avgEngagementScore;
+    }
+
+    public int getUserId() { return userId; }
+    public int getMovieId() { return movieId; }
+    // Best variant id per scene, in scene order
+    public int[] getVariantSequence() { return variantSequence.clone(); }
+    // Engagement (1 - dropout probability) of each chosen variant
+    public double[] getEngagementScores() { return engagementScores.clone(); }
+    public double getAvgEngagementScore() { return avgEngagementScore; }
+}
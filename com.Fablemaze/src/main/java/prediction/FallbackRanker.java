@@ -0,0 +1,58 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package prediction;
+
+import cache.CatalogCache;
+import cache.VariantFeatureStore;
+import java.util.Arrays;
+import model.User;
+
+/**
+ * Model-free sequence selection for when the prediction service can't answer in time.
+ * Picks the variant with the highest personality/content affinity in each scene
+ * (the compute_affinity() formula from Generate test data.py), read straight from the
+ * catalog's VariantFeatureStore: one pass over the movie's score columns, no I/O.
+ */
+public class FallbackRanker {
+
+    private final CatalogCache catalogCache;
+
+    public FallbackRanker(CatalogCache catalogCache) {
+        this.catalogCache = catalogCache;
+    }
+
+    // Best variant id per scene, in scene order; empty if the movie isn't in the catalog
+    public int[] rankVariantSequence(User user, int movieId) {
+        VariantFeatureStore store = catalogCache.getSnapshot().getFeatureStore();
+        int from = store.movieStart(movieId);
+        int to = store.movieEnd(movieId);
+        if (from < 0) {
+            return new int[0];
+        }
+
+        float[] affinity = new float[to - from];
+        store.affinity(user, from, to, affinity);
+
+        // Variants are laid out by scene_index, so each scene is a contiguous run
+        int[] sequence = new int[to - from];
+        int length = 0;
+        int best = from;
+        for (int i = from + 1; i <= to; i++) {
+            if (i == to || store.getSceneIndex(i) != store.getSceneIndex(best)) {
+                sequence[length++] = store.getVariantId(best);
+                best = i;
+            } else if (better(affinity[i - from], affinity[best - from])) {
+                // Ties keep the first variant, like the model path
+                best = i;
+            }
+        }
+        return Arrays.copyOf(sequence, length);
+    }
+
+    // Missing content scores make the affinity NaN; any scored variant beats them
+    private static boolean better(float candidate, float current) {
+        return candidate > current || (Float.isNaN(current) && !Float.isNaN(candidate));
+    }
+}
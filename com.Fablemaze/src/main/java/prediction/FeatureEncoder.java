@@ -0,0 +1,295 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package prediction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import model.Movie;
+import model.MovieGraph;
+import model.Scene;
+import model.SceneVariant;
+import model.User;
+
+/**
+ * Builds the model's feature rows, column for column as segment_predictor.py's
+ * create_prediction_features() + preprocess_features() do, straight into a caller-supplied
+ * float[] in the order of xgboost_features.json.
+ * Column positions and the codes of the fixed categorical values are resolved once in the
+ * constructor. A movie's codes, and those of its variants in row order, are resolved the first
+ * time the movie graph is encoded and kept as long as the graph is, so encoding the rows of a
+ * movie only reads int arrays: no hashing and no allocation per row.
+ * Columns the encoder doesn't know stay 0, like the Python fillna(0).
+ */
+public class FeatureEncoder {
+
+    // Every column segment_predictor.py can produce
+    enum Feature {
+        AGE("age"), OPENNESS("openness"), CONSCIENTIOUSNESS("conscientiousness"),
+        EXTRAVERSION("extraversion"), AGREEABLENESS("agreeableness"), NEUROTICISM("neuroticism"),
+        PREFERRED_PACING("preferred_pacing"), TOTAL_WATCH_TIME("total_watch_time"),
+        AVG_SESSION_LENGTH("avg_session_length"),
+        PACING_SCORE("pacing_score"), INTENSITY_SCORE("intensity_score"), DIALOGUE_DENSITY("dialogue_density"),
+        ACTION_LEVEL("action_level"), CHARACTER_FOCUS("character_focus"), EMOTIONAL_TONE("emotional_tone"),
+        SEGMENT_DURATION("segment_duration"), RELEASE_YEAR("release_year"), MOVIE_DURATION("movie_duration"),
+        IMDB_RATING("imdb_rating"), SCENE_COUNT("scene_count"),
+        SCENE_INDEX("scene_index"), MOVIE_PROGRESS("movie_progress"), VIEWING_HOUR("viewing_hour"),
+        COMPLETION_RATIO("completion_ratio"), PACING_PREFERENCE_DIFF("pacing_preference_diff"),
+        INTENSITY_EXTRAVERSION_MATCH("intensity_extraversion_match"),
+        SEX("sex_encoded"), VARIANT_NAME("variant_name_encoded"), MOVIE_RATING("movie_rating_encoded"),
+        DEVICE_TYPE("device_type_encoded"), USER_EXPERIENCE("user_experience_encoded"),
+        SEGMENT_POSITION("segment_position_encoded"), GENRES("genres_encoded"),
+        FAVOURITE_GENRES("favourite_genres_encoded"), COMPLETION_CATEGORY("completion_category_encoded"),
+        IS_WEEKEND("is_weekend_int");
+
+        final String column;
+
+        Feature(String column) {
+            this.column = column;
+        }
+    }
+
+    // segment_position buckets, indexed by positionBucket()
+    private static final String[] SEGMENT_POSITIONS = {"beginning", "early", "middle", "end"};
+
+    // sceneIndex for encodeRows(): every scene of the movie
+    private static final int ALL_SCENES = Integer.MIN_VALUE;
+
+    // A movie graph's rows in scene then variant order, with their codes; holds no reference to the graph
+    private static final class MovieCodes {
+        final int ratingCode;
+        final int genreCode;
+        final Scene[] scenes;
+        final SceneVariant[] variants;
+        final int[] variantNameCodes;
+
+        MovieCodes(int ratingCode, int genreCode, Scene[] scenes, SceneVariant[] variants, int[] variantNameCodes) {
+            this.ratingCode = ratingCode;
+            this.genreCode = genreCode;
+            this.scenes = scenes;
+            this.variants = variants;
+            this.variantNameCodes = variantNameCodes;
+        }
+    }
+
+    private final int width;
+    private final int[] position = new int[Feature.values().length];
+    private final int[] segmentPositionCodes = new int[SEGMENT_POSITIONS.length];
+    private final int newUserCode;
+    private final int completeCode;
+
+    // label -> code tables of the per-row categorical columns
+    private final Map<String, Integer> sexCodes;
+    private final Map<String, Integer> favouriteGenreCodes;
+    private final Map<String, Integer> ratingCodes;
+    private final Map<String, Integer> genreCodes;
+    private final Map<String, Integer> deviceCodes;
+    private final Map<String, Integer> variantNameCodes;
+
+    // Graphs are replaced, not changed, when the catalog changes; old ones drop out with their graph
+    private final Map<MovieGraph, MovieCodes> movieCodes = Collections.synchronizedMap(new WeakHashMap<>());
+
+    public FeatureEncoder(LabelEncoders encoders, List<String> featureColumns) {
+        this.width = featureColumns.size();
+        for (Feature feature : Feature.values()) {
+            position[feature.ordinal()] = featureColumns.indexOf(feature.column);
+        }
+        for (int i = 0; i < SEGMENT_POSITIONS.length; i++) {
+            segmentPositionCodes[i] = encoders.encode("segment_position", SEGMENT_POSITIONS[i]);
+        }
+        // The predictor treats every user as 'new' and every segment as 'complete'
+        this.newUserCode = encoders.encode("user_experience", "new");
+        this.completeCode = encoders.encode("completion_category", "complete");
+
+        this.sexCodes = encoders.getCodes("sex");
+        this.favouriteGenreCodes = encoders.getCodes("favourite_genres");
+        this.ratingCodes = encoders.getCodes("movie_rating");
+        this.genreCodes = encoders.getCodes("genres");
+        this.deviceCodes = encoders.getCodes("device_type");
+        this.variantNameCodes = encoders.getCodes("variant_name");
+    }
+
+    // Floats per row
+    public int getWidth() { return width; }
+
+    /**
+     * Writes one row per variant of the movie, in scene then variant order, starting at out[0].
+     * out must hold at least graph.getVariantCount() * getWidth() floats; returns the row count.
+     */
+    public int encodeMovie(User user, MovieGraph graph, SessionContext context, float[] out) {
+        return encodeMovie(user, graph, context, out, 0);
+    }
+
+    // Same as encodeMovie() but starting at out[offset], so several movies or users can share one batch
+    public int encodeMovie(User user, MovieGraph graph, SessionContext context, float[] out, int offset) {
+        return encodeRows(user, graph, ALL_SCENES, context, out, offset);
+    }
+
+    // One row per variant of the scene at sceneIndex, in variant order, starting at out[offset]; returns the row count
+    public int encodeScene(User user, MovieGraph graph, int sceneIndex, SessionContext context, float[] out, int offset) {
+        return encodeRows(user, graph, sceneIndex, context, out, offset);
+    }
+
+    private int encodeRows(User user, MovieGraph graph, int sceneIndex, SessionContext context, float[] out, int offset) {
+        MovieCodes codes = codes(graph);
+        int rows = 0;
+        for (int r = 0; r < codes.variants.length; r++) {
+            Scene scene = codes.scenes[r];
+            if (sceneIndex != ALL_SCENES && scene.getSceneIndex() != sceneIndex) {
+                continue;
+            }
+            int rowOffset = offset + rows * width;
+            if (rows == 0) {
+                encodeShared(user, graph.getMovie(), codes, context, out, rowOffset);
+            } else {
+                // User, movie and session columns repeat; copy them and only redo the per-variant ones
+                System.arraycopy(out, offset, out, rowOffset, width);
+            }
+            encodeVariant(user, graph.getMovie(), scene, codes.variants[r], codes.variantNameCodes[r], out, rowOffset);
+            rows++;
+        }
+        return rows;
+    }
+
+    private MovieCodes codes(MovieGraph graph) {
+        MovieCodes codes = movieCodes.get(graph);
+        if (codes == null) {
+            // Two threads may resolve the same graph at once; both get the same codes
+            codes = resolve(graph);
+            movieCodes.put(graph, codes);
+        }
+        return codes;
+    }
+
+    private MovieCodes resolve(MovieGraph graph) {
+        List<Scene> scenes = new ArrayList<>();
+        List<SceneVariant> variants = new ArrayList<>();
+        for (Scene scene : graph.getScenes()) {
+            for (SceneVariant variant : graph.getVariants(scene.getSceneIndex())) {
+                scenes.add(scene);
+                variants.add(variant);
+            }
+        }
+        int[] nameCodes = new int[variants.size()];
+        for (int r = 0; r < nameCodes.length; r++) {
+            nameCodes[r] = code(variantNameCodes, variants.get(r).getVariantName());
+        }
+        Movie movie = graph.getMovie();
+        return new MovieCodes(code(ratingCodes, movie.getRating()), code(genreCodes, movie.getGenres()),
+                scenes.toArray(new Scene[0]), variants.toArray(new SceneVariant[0]), nameCodes);
+    }
+
+    // Writes the columns every row of the movie shares, zeroing the rest of the row at out[offset]
+    private void encodeShared(User user, Movie movie, MovieCodes codes, SessionContext context, float[] out, int offset) {
+        Arrays.fill(out, offset, offset + width, 0f);
+
+        // User features, with the COALESCE defaults of get_user_profile()
+        put(out, offset, Feature.AGE, age(user.getDob(), context.getYear()));
+        put(out, offset, Feature.OPENNESS, orDefault(user.getOpenness(), 5.0));
+        put(out, offset, Feature.CONSCIENTIOUSNESS, orDefault(user.getConscientiousness(), 5.0));
+        put(out, offset, Feature.EXTRAVERSION, orDefault(user.getExtraversion(), 5.0));
+        put(out, offset, Feature.AGREEABLENESS, orDefault(user.getAgreeableness(), 5.0));
+        put(out, offset, Feature.NEUROTICISM, orDefault(user.getNeuroticism(), 5.0));
+        put(out, offset, Feature.PREFERRED_PACING, orDefault(user.getPreferredPacing(), 5.0));
+        put(out, offset, Feature.TOTAL_WATCH_TIME, user.getTotalWatchTime());
+        put(out, offset, Feature.AVG_SESSION_LENGTH, orDefault(user.getAvgSessionLength(), 60.0));
+        put(out, offset, Feature.SEX, code(sexCodes, user.getSex() == null ? "Other" : user.getSex()));
+        put(out, offset, Feature.FAVOURITE_GENRES, code(favouriteGenreCodes,
+                user.getFavouriteGenres() == null ? "drama" : user.getFavouriteGenres()));
+        put(out, offset, Feature.USER_EXPERIENCE, newUserCode);
+
+        // Movie features; missing numbers become 0 through fillna(0)
+        put(out, offset, Feature.RELEASE_YEAR, orDefault(movie.getReleaseYear(), 0));
+        put(out, offset, Feature.MOVIE_DURATION, orDefault(movie.getDuration(), 0));
+        put(out, offset, Feature.IMDB_RATING, orDefault(movie.GetImdbRating(), 0.0));
+        put(out, offset, Feature.SCENE_COUNT, movie.getSceneCount());
+        put(out, offset, Feature.MOVIE_RATING, codes.ratingCode);
+        put(out, offset, Feature.GENRES, codes.genreCode);
+
+        // Session context
+        put(out, offset, Feature.VIEWING_HOUR, context.getViewingHour());
+        put(out, offset, Feature.IS_WEEKEND, context.isWeekend() ? 1 : 0);
+        put(out, offset, Feature.DEVICE_TYPE, code(deviceCodes, context.getDeviceType()));
+        put(out, offset, Feature.COMPLETION_RATIO, 1.0);
+        put(out, offset, Feature.COMPLETION_CATEGORY, completeCode);
+    }
+
+    // Overwrites only the columns that depend on the scene and variant
+    private void encodeVariant(User user, Movie movie, Scene scene, SceneVariant variant, int variantNameCode,
+                               float[] out, int offset) {
+        double movieProgress = scene.getSceneIndex() / (double) movie.getSceneCount();
+        put(out, offset, Feature.SCENE_INDEX, scene.getSceneIndex());
+        put(out, offset, Feature.MOVIE_PROGRESS, movieProgress);
+        put(out, offset, Feature.SEGMENT_POSITION, segmentPositionCodes[positionBucket(movieProgress)]);
+
+        put(out, offset, Feature.PACING_SCORE, orDefault(variant.getPacingScore(), Double.NaN));
+        put(out, offset, Feature.INTENSITY_SCORE, orDefault(variant.getIntensityScore(), Double.NaN));
+        put(out, offset, Feature.DIALOGUE_DENSITY, orDefault(variant.getDialogueDensity(), Double.NaN));
+        put(out, offset, Feature.ACTION_LEVEL, orDefault(variant.getActionLevel(), Double.NaN));
+        put(out, offset, Feature.CHARACTER_FOCUS, orDefault(variant.getCharacterFocus(), Double.NaN));
+        put(out, offset, Feature.EMOTIONAL_TONE, orDefault(variant.getEmotionalTone(), Double.NaN));
+        put(out, offset, Feature.SEGMENT_DURATION, variant.getDuration());
+        put(out, offset, Feature.VARIANT_NAME, variantNameCode);
+
+        double preferredPacing = orDefault(user.getPreferredPacing(), 5.0);
+        double extraversion = orDefault(user.getExtraversion(), 5.0);
+        put(out, offset, Feature.PACING_PREFERENCE_DIFF,
+                Math.abs(preferredPacing) - orDefault(variant.getPacingScore(), Double.NaN));
+        put(out, offset, Feature.INTENSITY_EXTRAVERSION_MATCH,
+                orDefault(variant.getIntensityScore(), Double.NaN) * extraversion / 10);
+    }
+
+    // NaN is stored as 0 like fillna(0); infinities are kept
+    private void put(float[] out, int offset, Feature feature, double value) {
+        int p = position[feature.ordinal()];
+        if (p >= 0) {
+            out[offset + p] = Double.isNaN(value) ? 0f : (float) value;
+        }
+    }
+
+    // Same rule as LabelEncoders.encode(): str(None) for a missing value, 0 for an unknown one
+    private static int code(Map<String, Integer> codes, String value) {
+        return codes.getOrDefault(value == null ? "None" : value, 0);
+    }
+
+    // Index into SEGMENT_POSITIONS; NaN progress falls through to 'end' like the Python if/elif chain
+    static int positionBucket(double movieProgress) {
+        if (movieProgress <= 0.25) {
+            return 0;
+        } else if (movieProgress <= 0.5) {
+            return 1;
+        } else if (movieProgress <= 0.75) {
+            return 2;
+        }
+        return 3;
+    }
+
+    private static double orDefault(Double value, double defaultValue) {
+        return value == null ? defaultValue : value;
+    }
+
+    private static double orDefault(Integer value, int defaultValue) {
+        return value == null ? defaultValue : value;
+    }
+
+    // Current year minus birth year; 25 when dob is missing or unparseable
+    static int age(String dob, int currentYear) {
+        if (dob == null || dob.length() < 4) {
+            return 25;
+        }
+        int year = 0;
+        for (int i = 0; i < 4; i++) {
+            char c = dob.charAt(i);
+            if (c < '0' || c > '9') {
+                return 25;
+            }
+            year = year * 10 + (c - '0');
+        }
+        return currentYear - year;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package prediction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * XGBoostModel compiled into flat primitive arrays for batch scoring.
+ * Trees are split into three kinds when compiled:
+ * - single-leaf trees are constant and folded into the base margin,
+ * - stumps (one split, two leaves; most of the trees in our booster) become
+ *   parallel arrays evaluated with a select instead of a tree walk,
+ * - deeper trees share one set of node arrays in which the two children of a split
+ *   sit next to each other, so a step down is child[n] + (go right ? 1 : 0).
+ * predictMargins() runs one tree across a whole block of rows before moving to the
+ * next, keeping the tree's nodes hot in cache.
+ */
+public class FlatForest {
+
+    // Rows scored per pass; the block's margins and features stay in L1/L2 while every tree runs over them
+    private static final int BLOCK_ROWS = 256;
+
+    private final int featureCount;
+    private final float baseMargin;
+
+    // Stumps
+    private final int[] stumpFeature;
+    private final float[] stumpThreshold;
+    private final float[] stumpLeft;
+    private final float[] stumpRight;
+    private final float[] stumpMissing;
+
+    // Deeper trees; leaves have child[n] == -1
+    private final int[] feature;
+    private final float[] threshold;
+    private final int[] child;
+    private final byte[] missingRight;
+    private final float[] leafValue;
+    private final int[] roots;
+
+    private final int treeCount;
+
+    FlatForest(List<XGBoostModel.TreeNode> trees, int featureCount, float baseMargin) {
+        List<XGBoostModel.TreeNode> stumps = new ArrayList<>();
+        List<XGBoostModel.TreeNode> deep = new ArrayList<>();
+        float constant = baseMargin;
+        int nodeCount = 0;
+        for (XGBoostModel.TreeNode tree : trees) {
+            if (tree.isLeaf()) {
+                constant += tree.leafValue;
+            } else if (tree.left.isLeaf() && tree.right.isLeaf()) {
+                stumps.add(tree);
+            } else {
+                deep.add(tree);
+                nodeCount += countNodes(tree);
+            }
+        }
+
+        this.featureCount = featureCount;
+        this.baseMargin = constant;
+        this.treeCount = trees.size();
+
+        int s = stumps.size();
+        this.stumpFeature = new int[s];
+        this.stumpThreshold = new float[s];
+        this.stumpLeft = new float[s];
+        this.stumpRight = new float[s];
+        this.stumpMissing = new float[s];
+        for (int i = 0; i < s; i++) {
+            XGBoostModel.TreeNode stump = stumps.get(i);
+            stumpFeature[i] = stump.feature;
+            stumpThreshold[i] = stump.threshold;
+            stumpLeft[i] = stump.left.leafValue;
+            stumpRight[i] = stump.right.leafValue;
+            stumpMissing[i] = stump.defaultLeft ? stump.left.leafValue : stump.right.leafValue;
+        }
+
+        this.feature = new int[nodeCount];
+        this.threshold = new float[nodeCount];
+        this.child = new int[nodeCount];
+        this.missingRight = new byte[nodeCount];
+        this.leafValue = new float[nodeCount];
+        this.roots = new int[deep.size()];
+        int next = 0;
+        for (int t = 0; t < deep.size(); t++) {
+            roots[t] = next;
+            next = layout(deep.get(t), next, next + 1);
+        }
+    }
+
+    private static int countNodes(XGBoostModel.TreeNode node) {
+        return node.isLeaf() ? 1 : 1 + countNodes(node.left) + countNodes(node.right);
+    }
+
+    // Writes node at slot and its subtree from free onwards; returns the next free slot
+    private int layout(XGBoostModel.TreeNode node, int slot, int free) {
+        if (node.isLeaf()) {
+            child[slot] = -1;
+            leafValue[slot] = node.leafValue;
+            return free;
+        }
+        int children = free;
+        feature[slot] = node.feature;
+        threshold[slot] = node.threshold;
+        child[slot] = children;
+        missingRight[slot] = (byte) (node.defaultLeft ? 0 : 1);
+        free = layout(node.left, children, children + 2);
+        return layout(node.right, children + 1, free);
+    }
+
+    /**
+     * Margins for rowCount rows stored back to back in rows (featureCount floats each).
+     * margins[i] receives the log-odds of row i.
+     */
+    public void predictMargins(float[] rows, int rowCount, float[] margins) {
+        for (int start = 0; start < rowCount; start += BLOCK_ROWS) {
+            int end = Math.min(rowCount, start + BLOCK_ROWS);
+            for (int r = start; r < end; r++) {
+                margins[r] = baseMargin;
+            }
+
+            for (int t = 0; t < stumpFeature.length; t++) {
+                int f = stumpFeature[t];
+                float split = stumpThreshold[t];
+                float left = stumpLeft[t];
+                float right = stumpRight[t];
+                float missing = stumpMissing[t];
+                for (int r = start; r < end; r++) {
+                    float value = rows[r * featureCount + f];
+                    // NaN fails every comparison, so it takes the node's default direction instead
+                    margins[r] += value < split ? left : (value != value ? missing : right);
+                }
+            }
+
+            for (int root : roots) {
+                for (int r = start; r < end; r++) {
+                    int base = r * featureCount;
+                    int n = root;
+                    while (child[n] >= 0) {
+                        float value = rows[base + feature[n]];
+                        int step = value < threshold[n] ? 0 : 1;
+                        if (value != value) {
+                            step = missingRight[n];
+                        }
+                        n = child[n] + step;
+                    }
+                    margins[r] += leafValue[n];
+                }
+            }
+        }
+    }
+
+    // Dropout probabilities for rowCount rows, written to probabilities[0 .. rowCount)
+    public void predictProbabilities(float[] rows, int rowCount, float[] probabilities) {
+        predictMargins(rows, rowCount, probabilities);
+        for (int r = 0; r < rowCount; r++) {
+            probabilities[r] = (float) (1.0 / (1.0 + Math.exp(-probabilities[r])));
+        }
+    }
+
+    public int getFeatureCount() { return featureCount; }
+
+    public int getTreeCount() { return treeCount; }
+
+    public int getStumpCount() { return stumpFeature.length; }
+
+    public int getNodeCount() { return feature.length; }
+}
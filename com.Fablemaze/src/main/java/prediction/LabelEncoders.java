@@ -0,0 +1,68 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package prediction;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * The sklearn LabelEncoders the model was trained with, loaded from xgboost_encoders.json.
+ * A value's code is its position in the encoder's sorted classes; like the Python
+ * predictor, unknown values (and unknown columns) encode as 0.
+ */
+public class LabelEncoders {
+
+    private final Map<String, Map<String, Integer>> codesByColumn;
+
+    LabelEncoders(Map<String, Map<String, Integer>> codesByColumn) {
+        this.codesByColumn = codesByColumn;
+    }
+
+    public static LabelEncoders load(Path encodersJson) throws IOException {
+        JSONObject json = new JSONObject(Files.readString(encodersJson, StandardCharsets.UTF_8));
+        Map<String, Map<String, Integer>> codesByColumn = new HashMap<>();
+        for (String column : json.keySet()) {
+            JSONArray classes = json.getJSONArray(column);
+            Map<String, Integer> codes = new HashMap<>();
+            for (int i = 0; i < classes.length(); i++) {
+                codes.put(classes.getString(i), i);
+            }
+            codesByColumn.put(column, codes);
+        }
+        return new LabelEncoders(codesByColumn);
+    }
+
+    // Python encodes str(x), so a missing value is looked up as "None"
+    public int encode(String column, String value) {
+        Map<String, Integer> codes = codesByColumn.get(column);
+        if (codes == null) {
+            return 0;
+        }
+        return codes.getOrDefault(value == null ? "None" : value, 0);
+    }
+
+    // label -> code for one column (empty for an unknown column), for callers that resolve the column once
+    public Map<String, Integer> getCodes(String column) {
+        return Collections.unmodifiableMap(codesByColumn.getOrDefault(column, Map.of()));
+    }
+
+    // Class labels of a column in code order, or an empty array for an unknown column
+    public String[] getClasses(String column) {
+        Map<String, Integer> codes = codesByColumn.get(column);
+        if (codes == null) {
+            return new String[0];
+        }
+        String[] classes = new String[codes.size()];
+        codes.forEach((label, code) -> classes[code] = label);
+        return classes;
+    }
+}
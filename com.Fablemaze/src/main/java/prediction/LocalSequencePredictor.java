@@ -0,0 +1,300 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package prediction;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import model.MovieGraph;
+import model.Scene;
+import model.SceneVariant;
+import model.User;
+import org.json.JSONArray;
+
+/**
+ * In-process replacement for the Flask /predict_sequence endpoint.
+ * Encodes the same feature rows as segment_predictor.py, scores every variant of a movie
+ * with the exported XGBoost model and picks the variant with the lowest dropout
+ * probability in each scene.
+ */
+public class LocalSequencePredictor {
+
+    private final XGBoostModel model;
+    private final FlatForest forest;
+    private final FeatureEncoder encoder;
+    private final List<String> featureColumns;
+    private final long modelSignature;
+
+    public LocalSequencePredictor(XGBoostModel model, LabelEncoders encoders, List<String> featureColumns) {
+        this(model, encoders, featureColumns, 0L);
+    }
+
+    // modelSignature identifies the exported model files, so rows computed from another model can be told apart
+    public LocalSequencePredictor(XGBoostModel model, LabelEncoders encoders, List<String> featureColumns,
+                                  long modelSignature) {
+        this.model = model;
+        this.forest = model.flatten(featureColumns.size());
+        this.encoder = new FeatureEncoder(encoders, featureColumns);
+        this.featureColumns = featureColumns;
+        this.modelSignature = modelSignature;
+    }
+
+    // Loads xgboost_model.json, xgboost_encoders.json and xgboost_features.json from modelDir
+    public static LocalSequencePredictor load(Path modelDir) throws IOException {
+        Path modelFile = modelDir.resolve("xgboost_model.json");
+        Path encodersFile = modelDir.resolve("xgboost_encoders.json");
+        Path featuresFile = modelDir.resolve("xgboost_features.json");
+        XGBoostModel model = XGBoostModel.load(modelFile);
+        LabelEncoders encoders = LabelEncoders.load(encodersFile);
+
+        JSONArray columns = new JSONArray(Files.readString(featuresFile, StandardCharsets.UTF_8));
+        List<String> featureColumns = new ArrayList<>(columns.length());
+        for (int i = 0; i < columns.length(); i++) {
+            featureColumns.add(columns.getString(i));
+        }
+
+        // Retraining rewrites all three files
+        CRC32 signature = new CRC32();
+        for (Path file : List.of(modelFile, encodersFile, featuresFile)) {
+            signature.update(Files.readAllBytes(file));
+        }
+        return new LocalSequencePredictor(model, encoders, featureColumns, signature.getValue());
+    }
+
+    // Model directory from -Dfablemaze.model.dir (the app runs from com.Fablemaze, the model lives one level up)
+    public static LocalSequencePredictor fromSystemProperties() {
+        Path modelDir = Paths.get(System.getProperty("fablemaze.model.dir", ".."));
+        try {
+            return load(modelDir);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Load prediction model failed: " + e.getMessage());
+        }
+        return null;
+    }
+
+    // Best variant id per scene, in scene order; same output as /predict_sequence
+    public int[] predictVariantSequence(User user, MovieGraph graph, String deviceType) {
+        float[] dropout = predictDropout(user, graph, SessionContext.now(deviceType));
+        return selectBest(user, graph, dropout, 0).getVariantSequence();
+    }
+
+    // Whole-movie plan with continuity penalties and an optional runtime limit (seconds, 0 for none)
+    public int[] planVariantSequence(User user, MovieGraph graph, String deviceType, SequencePlanner planner,
+                                     int maxDuration) {
+        float[] dropout = predictDropout(user, graph, SessionContext.now(deviceType));
+        return planner.plan(graph, dropout, maxDuration);
+    }
+
+    // Plans the movie for a viewing session that is then re-planned after every scene outcome
+    public SessionReplanner startSession(User user, MovieGraph graph, String deviceType, SequencePlanner planner) {
+        return new SessionReplanner(graph, predictDropout(user, graph, SessionContext.now(deviceType)), planner);
+    }
+
+    /**
+     * Same, starting from a plan made earlier (a cached or precomputed sequence). The model only
+     * scores the movie once the first scene outcome needs a re-plan, so opening it costs no scoring.
+     */
+    public SessionReplanner startSession(User user, MovieGraph graph, String deviceType, SequencePlanner planner,
+                                         int[] plannedVariantIds) {
+        Supplier<float[]> dropout = () -> predictDropout(user, graph, SessionContext.now(deviceType));
+        return new SessionReplanner(graph, dropout, planner, plannedVariantIds);
+    }
+
+    // Best topN variants of one scene, highest engagement first; same output as /alternatives, empty for an unknown scene
+    public List<VariantAlternative> predictAlternatives(User user, MovieGraph graph, SessionContext context,
+                                                        int sceneIndex, int topN) {
+        Scene scene = null;
+        for (Scene candidate : graph.getScenes()) {
+            if (candidate.getSceneIndex() == sceneIndex) {
+                scene = candidate;
+                break;
+            }
+        }
+        if (scene == null) {
+            return new ArrayList<>();
+        }
+
+        List<SceneVariant> variants = graph.getVariants(sceneIndex);
+        float[] rows = new float[variants.size() * encoder.getWidth()];
+        encoder.encodeScene(user, graph, sceneIndex, context, rows, 0);
+        float[] dropout = new float[variants.size()];
+        forest.predictProbabilities(rows, variants.size(), dropout);
+
+        List<VariantAlternative> alternatives = new ArrayList<>(variants.size());
+        for (int v = 0; v < variants.size(); v++) {
+            SceneVariant variant = variants.get(v);
+            alternatives.add(new VariantAlternative(
+                variant.getVariantId(),
+                variant.getVariantName(),
+                1.0 - dropout[v],
+                dropout[v],
+                variant.getFilePath(),
+                variant.getPacingScore() == null ? Double.NaN : variant.getPacingScore(),
+                variant.getIntensityScore() == null ? Double.NaN : variant.getIntensityScore(),
+                variant.getActionLevel() == null ? Double.NaN : variant.getActionLevel()
+            ));
+        }
+        // Stable, like list.sort(reverse=True)
+        alternatives.sort(Comparator.comparingDouble(VariantAlternative::getEngagementScore).reversed());
+        return new ArrayList<>(alternatives.subList(0, Math.min(topN, alternatives.size())));
+    }
+
+    // One user across many movies, e.g. the home page; all rows are scored in a single forest pass
+    public List<BatchPrediction> predictBatch(User user, List<MovieGraph> graphs, String deviceType) {
+        List<User> users = new ArrayList<>(graphs.size());
+        for (int i = 0; i < graphs.size(); i++) {
+            users.add(user);
+        }
+        return predictPairs(users, graphs, SessionContext.now(deviceType));
+    }
+
+    // Many users for one movie; all rows are scored in a single forest pass
+    public List<BatchPrediction> predictBatch(List<User> users, MovieGraph graph, String deviceType) {
+        List<MovieGraph> graphs = new ArrayList<>(users.size());
+        for (int i = 0; i < users.size(); i++) {
+            graphs.add(graph);
+        }
+        return predictPairs(users, graphs, SessionContext.now(deviceType));
+    }
+
+    /**
+     * Whole-movie plans for one user across many movies, as planVariantSequence() with no
+     * runtime limit would give for each; all rows are scored in a single forest pass.
+     * Engagement scores are those of the planned variants.
+     */
+    public List<BatchPrediction> planBatch(User user, List<MovieGraph> graphs, SessionContext context,
+                                           SequencePlanner planner) {
+        List<User> users = new ArrayList<>(graphs.size());
+        for (int i = 0; i < graphs.size(); i++) {
+            users.add(user);
+        }
+        int[] firstRow = new int[graphs.size() + 1];
+        float[] dropout = scorePairs(users, graphs, context, firstRow);
+
+        List<BatchPrediction> predictions = new ArrayList<>(graphs.size());
+        for (int i = 0; i < graphs.size(); i++) {
+            MovieGraph graph = graphs.get(i);
+            int[] sequence = planner.plan(graph, Arrays.copyOfRange(dropout, firstRow[i], firstRow[i + 1]), 0);
+
+            double[] engagement = new double[sequence.length];
+            double engagementSum = 0;
+            int row = firstRow[i];
+            int s = 0;
+            for (Scene scene : graph.getScenes()) {
+                List<SceneVariant> variants = graph.getVariants(scene.getSceneIndex());
+                for (int v = 0; v < variants.size() && s < sequence.length; v++) {
+                    if (variants.get(v).getVariantId() == sequence[s]) {
+                        engagement[s] = 1.0 - dropout[row + v];
+                        engagementSum += engagement[s++];
+                        break;
+                    }
+                }
+                row += variants.size();
+            }
+            predictions.add(new BatchPrediction(user.getUserId(), graph.getMovie().getMovieId(), sequence, engagement,
+                    sequence.length == 0 ? 0.0 : engagementSum / sequence.length));
+        }
+        return predictions;
+    }
+
+    // users.get(i) is paired with graphs.get(i); results come back in the same order
+    private List<BatchPrediction> predictPairs(List<User> users, List<MovieGraph> graphs, SessionContext context) {
+        int[] firstRow = new int[graphs.size() + 1];
+        float[] dropout = scorePairs(users, graphs, context, firstRow);
+
+        List<BatchPrediction> predictions = new ArrayList<>(graphs.size());
+        for (int i = 0; i < graphs.size(); i++) {
+            predictions.add(selectBest(users.get(i), graphs.get(i), dropout, firstRow[i]));
+        }
+        return predictions;
+    }
+
+    // Dropout of every pair's variants in one forest pass; pair i owns [firstRow[i], firstRow[i + 1])
+    private float[] scorePairs(List<User> users, List<MovieGraph> graphs, SessionContext context, int[] firstRow) {
+        int width = encoder.getWidth();
+        int totalRows = 0;
+        for (MovieGraph graph : graphs) {
+            totalRows += graph.getVariantCount();
+        }
+
+        float[] rows = new float[totalRows * width];
+        int rowCount = 0;
+        for (int i = 0; i < graphs.size(); i++) {
+            firstRow[i] = rowCount;
+            rowCount += encoder.encodeMovie(users.get(i), graphs.get(i), context, rows, rowCount * width);
+        }
+        firstRow[graphs.size()] = rowCount;
+
+        float[] dropout = new float[rowCount];
+        forest.predictProbabilities(rows, rowCount, dropout);
+        return dropout;
+    }
+
+    // Picks the lowest-dropout variant of each scene from the rows starting at dropout[firstRow]
+    private static BatchPrediction selectBest(User user, MovieGraph graph, float[] dropout, int firstRow) {
+        List<Scene> scenes = graph.getScenes();
+        int[] sequence = new int[scenes.size()];
+        double[] engagement = new double[scenes.size()];
+        double engagementSum = 0;
+        int length = 0;
+        int row = firstRow;
+        for (Scene scene : scenes) {
+            List<SceneVariant> variants = graph.getVariants(scene.getSceneIndex());
+            int best = -1;
+            // Ties keep the first variant, like idxmax()
+            for (int v = 0; v < variants.size(); v++) {
+                if (best < 0 || dropout[row + v] < dropout[row + best]) {
+                    best = v;
+                }
+            }
+            if (best >= 0) {
+                sequence[length] = variants.get(best).getVariantId();
+                engagement[length] = 1.0 - dropout[row + best];
+                engagementSum += engagement[length];
+                length++;
+            }
+            row += variants.size();
+        }
+
+        if (length != sequence.length) {
+            sequence = Arrays.copyOf(sequence, length);
+            engagement = Arrays.copyOf(engagement, length);
+        }
+        return new BatchPrediction(user.getUserId(), graph.getMovie().getMovieId(), sequence, engagement,
+                length == 0 ? 0.0 : engagementSum / length);
+    }
+
+    public List<SceneVariant> predictSceneVariants(User user, MovieGraph graph, String deviceType) {
+        return graph.resolveSequence(predictVariantSequence(user, graph, deviceType));
+    }
+
+    // Dropout probability of every variant, in scene then variant order
+    public float[] predictDropout(User user, MovieGraph graph, SessionContext context) {
+        float[] rows = new float[graph.getVariantCount() * encoder.getWidth()];
+        int rowCount = encoder.encodeMovie(user, graph, context, rows);
+
+        float[] dropout = new float[rowCount];
+        forest.predictProbabilities(rows, rowCount, dropout);
+        return dropout;
+    }
+
+    public XGBoostModel getModel() { return model; }
+
+    public FlatForest getForest() { return forest; }
+
+    public FeatureEncoder getEncoder() { return encoder; }
+
+    public List<String> getFeatureColumns() { return featureColumns; }
+
+    public long getModelSignature() { return modelSignature; }
+}
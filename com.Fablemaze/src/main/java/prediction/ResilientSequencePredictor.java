@@ -0,0 +1,182 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package prediction;
+
+import cache.CatalogCache;
+import cache.PredictionCache;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import model.MovieGraph;
+import model.SceneVariant;
+import model.User;
+import util.CircuitBreaker;
+import util.PythonAPIClient;
+
+/**
+ * Sequence prediction through the Flask service, guarded by a CircuitBreaker.
+ * Every call returns within the latency budget: if the breaker is open, or the service
+ * errors or doesn't answer in time, the sequence comes from the FallbackRanker instead.
+ * Only service answers are put in the PredictionCache, so a degraded period doesn't
+ * leave fallback sequences behind once the service recovers.
+ * Scene rankings for the ScenePrefetcher go through the same breaker; while it is open they
+ * fail at once and the prefetcher warms every variant of the scene instead.
+ */
+public class ResilientSequencePredictor {
+
+    private final PythonAPIClient client;
+    private final CircuitBreaker breaker;
+    private final FallbackRanker fallback;
+    private final PredictionCache predictionCache;
+    private final Duration budget;
+
+    // Metrics
+    private final LongAdder remoteAnswers = new LongAdder();
+    private final LongAdder rejectedFallbacks = new LongAdder();
+    private final LongAdder timeoutFallbacks = new LongAdder();
+    private final LongAdder errorFallbacks = new LongAdder();
+    private final LongAdder rejectedAlternatives = new LongAdder();
+
+    public ResilientSequencePredictor(PythonAPIClient client, CircuitBreaker breaker, FallbackRanker fallback,
+                                      PredictionCache predictionCache, Duration budget) {
+        this.client = client;
+        this.breaker = breaker;
+        this.fallback = fallback;
+        this.predictionCache = predictionCache;
+        this.budget = budget;
+    }
+
+    // Budget from -Dfablemaze.predictor.budgetMs; client and breaker from their own properties
+    public static ResilientSequencePredictor fromSystemProperties(CatalogCache catalogCache, PredictionCache predictionCache) {
+        return new ResilientSequencePredictor(
+            PythonAPIClient.fromSystemProperties(),
+            CircuitBreaker.fromSystemProperties(),
+            new FallbackRanker(catalogCache),
+            predictionCache,
+            Duration.ofMillis(Long.getLong("fablemaze.predictor.budgetMs", 300L))
+        );
+    }
+
+    // Best variant id per scene, in scene order; never waits longer than the budget
+    public int[] predictVariantSequence(User user, MovieGraph graph, String deviceType) {
+        int userId = user.getUserId();
+        int movieId = graph.getMovie().getMovieId();
+
+        int[] sequence = predictionCache.get(userId, movieId, deviceType);
+        if (sequence != null) {
+            return sequence;
+        }
+        long generation = predictionCache.generation(userId, movieId);
+
+        if (!breaker.tryAcquire()) {
+            rejectedFallbacks.increment();
+            return fallbackSequence(user, graph);
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<int[]> call = client.predictSequenceAsync(userId, movieId, deviceType, budget);
+        try {
+            sequence = call.get(budget.toNanos(), TimeUnit.NANOSECONDS);
+            breaker.onSuccess(System.nanoTime() - start);
+            remoteAnswers.increment();
+            predictionCache.put(userId, movieId, deviceType, sequence, generation);
+            return sequence;
+        } catch (TimeoutException e) {
+            // Past the budget the answer is no use to this caller
+            call.cancel(false);
+            breaker.onFailure(System.nanoTime() - start);
+            timeoutFallbacks.increment();
+        } catch (ExecutionException e) {
+            breaker.onFailure(System.nanoTime() - start);
+            if (e.getCause() instanceof TimeoutException) {
+                timeoutFallbacks.increment();
+            } else {
+                errorFallbacks.increment();
+                System.err.println("Predict sequence failed: " + e.getCause().getMessage());
+            }
+        } catch (InterruptedException e) {
+            breaker.onFailure(System.nanoTime() - start);
+            errorFallbacks.increment();
+            Thread.currentThread().interrupt();
+        }
+        return fallbackSequence(user, graph);
+    }
+
+    // Ranked variants of one scene, for ScenePrefetcher; fails fast while the breaker is open
+    public CompletableFuture<List<VariantAlternative>> alternativesAsync(int userId, int movieId, int sceneIndex, int topN) {
+        if (!breaker.tryAcquire()) {
+            rejectedAlternatives.increment();
+            return CompletableFuture.failedFuture(new IllegalStateException("Prediction service circuit open"));
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<List<VariantAlternative>> call = client.alternativesAsync(userId, movieId, sceneIndex, topN);
+        CompletableFuture<List<VariantAlternative>> result = new CompletableFuture<>();
+        // The call completes exactly once, so the breaker hears exactly one outcome or release
+        call.whenComplete((alternatives, error) -> {
+            if (error == null) {
+                breaker.onSuccess(System.nanoTime() - start);
+                result.complete(alternatives);
+            } else if (error instanceof CancellationException) {
+                // Dropped by the prefetcher before the service answered; not an outcome either way
+                breaker.release();
+            } else {
+                breaker.onFailure(System.nanoTime() - start);
+                result.completeExceptionally(error);
+            }
+        });
+        result.whenComplete((alternatives, error) -> {
+            if (result.isCancelled()) {
+                call.cancel(false);
+            }
+        });
+        return result;
+    }
+
+    public List<SceneVariant> predictSceneVariants(User user, MovieGraph graph, String deviceType) {
+        return graph.resolveSequence(predictVariantSequence(user, graph, deviceType));
+    }
+
+    private int[] fallbackSequence(User user, MovieGraph graph) {
+        int[] sequence = fallback.rankVariantSequence(user, graph.getMovie().getMovieId());
+        if (sequence.length > 0) {
+            return sequence;
+        }
+        // Movie not in the catalog snapshot yet; the graph itself is all we have
+        return graph.getDefaultSequence().stream().mapToInt(SceneVariant::getVariantId).toArray();
+    }
+
+    public CircuitBreaker getBreaker() { return breaker; }
+
+    public PythonAPIClient getClient() { return client; }
+
+    // Metrics
+    public long getRemoteAnswers() { return remoteAnswers.sum(); }
+    public long getRejectedFallbacks() { return rejectedFallbacks.sum(); }
+    public long getTimeoutFallbacks() { return timeoutFallbacks.sum(); }
+    public long getErrorFallbacks() { return errorFallbacks.sum(); }
+    public long getRejectedAlternatives() { return rejectedAlternatives.sum(); }
+
+    public long getFallbacks() {
+        return rejectedFallbacks.sum() + timeoutFallbacks.sum() + errorFallbacks.sum();
+    }
+
+    public void shutdown() {
+        client.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ResilientSequencePredictor[remote=%d fallback=%d (rejected=%d timeout=%d error=%d) "
+                + "rejectedAlternatives=%d %s]",
+                getRemoteAnswers(), getFallbacks(), getRejectedFallbacks(), getTimeoutFallbacks(), getErrorFallbacks(),
+                getRejectedAlternatives(), breaker);
+    }
+}
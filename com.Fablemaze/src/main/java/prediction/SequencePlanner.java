@@ -0,0 +1,273 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package prediction;
+
+import java.util.List;
+import model.MovieGraph;
+import model.Scene;
+import model.SceneVariant;
+
+/**
+ * Chooses one variant per scene to maximise whole-movie engagement rather than picking
+ * each scene's best variant on its own.
+ * The objective is the log probability of watching every scene without dropping off,
+ * sum(log(1 - dropout)), minus a penalty for each jump in pacing or emotional tone
+ * between consecutive scenes: pacingWeight * |dPacing| + emotionWeight * |dEmotion|.
+ * Without a runtime limit this is solved exactly by Viterbi in O(scenes * variants^2).
+ * With one, a beam search keeps, for every variant, the best beamWidth partial sequences
+ * ending there that can still finish within the limit.
+ * With both weights at 0 and no limit the result is the per-scene argmax of /predict_sequence.
+ */
+public class SequencePlanner {
+
+    private final float pacingWeight;
+    private final float emotionWeight;
+    private final int beamWidth;
+
+    public SequencePlanner(double pacingWeight, double emotionWeight, int beamWidth) {
+        this.pacingWeight = (float) pacingWeight;
+        this.emotionWeight = (float) emotionWeight;
+        this.beamWidth = Math.max(1, beamWidth);
+    }
+
+    // Configured through -Dfablemaze.planner.* system properties
+    public static SequencePlanner fromSystemProperties() {
+        return new SequencePlanner(
+            Double.parseDouble(System.getProperty("fablemaze.planner.pacingWeight", "0.01")),
+            Double.parseDouble(System.getProperty("fablemaze.planner.emotionWeight", "0.01")),
+            Integer.getInteger("fablemaze.planner.beamWidth", 8)
+        );
+    }
+
+    /**
+     * Variant id per scene, in scene order. dropout holds one probability per variant in
+     * scene then variant order, as returned by LocalSequencePredictor.predictDropout().
+     * maxDuration is the runtime limit in seconds; 0 or less means no limit.
+     */
+    public int[] plan(MovieGraph graph, float[] dropout, int maxDuration) {
+        int rows = graph.getVariantCount();
+        float[] pacing = new float[rows];
+        float[] emotion = new float[rows];
+        int[] duration = new int[rows];
+        int[] variantIds = new int[rows];
+        int[] sceneStart = new int[graph.getScenes().size() + 1];
+
+        int row = 0;
+        int scenes = 0;
+        for (Scene scene : graph.getScenes()) {
+            List<SceneVariant> variants = graph.getVariants(scene.getSceneIndex());
+            if (variants.isEmpty()) {
+                continue;
+            }
+            sceneStart[scenes++] = row;
+            for (SceneVariant variant : variants) {
+                pacing[row] = toFloat(variant.getPacingScore());
+                emotion[row] = toFloat(variant.getEmotionalTone());
+                duration[row] = variant.getDuration();
+                variantIds[row] = variant.getVariantId();
+                row++;
+            }
+        }
+        sceneStart[scenes] = row;
+
+        int[] chosen = planRows(sceneStart, scenes, dropout, pacing, emotion, duration, maxDuration);
+        for (int s = 0; s < chosen.length; s++) {
+            chosen[s] = variantIds[chosen[s]];
+        }
+        return chosen;
+    }
+
+    /**
+     * Row index of the chosen variant for each of the sceneCount scenes.
+     * Scene s owns rows [sceneStart[s], sceneStart[s + 1]) and must have at least one.
+     * NaN pacing or emotion adds no penalty.
+     */
+    public int[] planRows(int[] sceneStart, int sceneCount, float[] dropout, float[] pacing, float[] emotion,
+                          int[] duration, int maxDuration) {
+        if (sceneCount == 0) {
+            return new int[0];
+        }
+
+        int rows = sceneStart[sceneCount];
+        float[] gain = new float[rows];
+        for (int r = 0; r < rows; r++) {
+            gain[r] = (float) Math.log1p(-Math.min(dropout[r], 0.999999f));
+        }
+
+        if (maxDuration <= 0) {
+            return viterbi(sceneStart, sceneCount, gain, pacing, emotion);
+        }
+
+        // Shortest possible runtime from each scene to the end
+        int[] minRemaining = new int[sceneCount + 1];
+        for (int s = sceneCount - 1; s >= 0; s--) {
+            int shortest = Integer.MAX_VALUE;
+            for (int r = sceneStart[s]; r < sceneStart[s + 1]; r++) {
+                shortest = Math.min(shortest, duration[r]);
+            }
+            minRemaining[s] = minRemaining[s + 1] + shortest;
+        }
+
+        if (minRemaining[0] > maxDuration) {
+            // No sequence fits; the shortest one is the closest
+            int[] chosen = new int[sceneCount];
+            for (int s = 0; s < sceneCount; s++) {
+                chosen[s] = sceneStart[s];
+                for (int r = sceneStart[s] + 1; r < sceneStart[s + 1]; r++) {
+                    if (duration[r] < duration[chosen[s]]) {
+                        chosen[s] = r;
+                    }
+                }
+            }
+            return chosen;
+        }
+
+        return beamSearch(sceneStart, sceneCount, gain, pacing, emotion, duration, minRemaining, maxDuration);
+    }
+
+    private int[] viterbi(int[] sceneStart, int sceneCount, float[] gain, float[] pacing, float[] emotion) {
+        int rows = sceneStart[sceneCount];
+        float[] best = new float[rows];
+        int[] from = new int[rows];
+
+        for (int r = sceneStart[0]; r < sceneStart[1]; r++) {
+            best[r] = gain[r];
+            from[r] = -1;
+        }
+
+        for (int s = 1; s < sceneCount; s++) {
+            int prevStart = sceneStart[s - 1];
+            int prevEnd = sceneStart[s];
+            for (int r = sceneStart[s]; r < sceneStart[s + 1]; r++) {
+                // Ties keep the earlier variant, like idxmax()
+                int bestPrev = prevStart;
+                float bestScore = best[prevStart] - penalty(prevStart, r, pacing, emotion);
+                for (int p = prevStart + 1; p < prevEnd; p++) {
+                    float score = best[p] - penalty(p, r, pacing, emotion);
+                    if (score > bestScore) {
+                        bestScore = score;
+                        bestPrev = p;
+                    }
+                }
+                best[r] = bestScore + gain[r];
+                from[r] = bestPrev;
+            }
+        }
+
+        int last = sceneStart[sceneCount - 1];
+        for (int r = last + 1; r < rows; r++) {
+            if (best[r] > best[last]) {
+                last = r;
+            }
+        }
+
+        int[] chosen = new int[sceneCount];
+        for (int s = sceneCount - 1, r = last; s >= 0; s--, r = from[r]) {
+            chosen[s] = r;
+        }
+        return chosen;
+    }
+
+    private int[] beamSearch(int[] sceneStart, int sceneCount, float[] gain, float[] pacing, float[] emotion,
+                             int[] duration, int[] minRemaining, int maxDuration) {
+        // Row r owns beam slots [r * beamWidth, r * beamWidth + count[r]), sorted best first;
+        // parent[] holds the slot each partial sequence extends in the previous scene
+        int rows = sceneStart[sceneCount];
+        float[] score = new float[rows * beamWidth];
+        int[] used = new int[rows * beamWidth];
+        int[] parent = new int[rows * beamWidth];
+        int[] count = new int[rows];
+
+        for (int r = sceneStart[0]; r < sceneStart[1]; r++) {
+            if (duration[r] + minRemaining[1] <= maxDuration) {
+                insert(score, used, parent, count, r, gain[r], duration[r], -1);
+            }
+        }
+
+        for (int s = 1; s < sceneCount; s++) {
+            for (int r = sceneStart[s]; r < sceneStart[s + 1]; r++) {
+                // Only keep partial sequences that can still finish within the limit
+                int limit = maxDuration - minRemaining[s + 1] - duration[r];
+                for (int p = sceneStart[s - 1]; p < sceneStart[s]; p++) {
+                    float step = gain[r] - penalty(p, r, pacing, emotion);
+                    for (int slot = p * beamWidth, end = slot + count[p]; slot < end; slot++) {
+                        if (used[slot] <= limit) {
+                            insert(score, used, parent, count, r, score[slot] + step, used[slot] + duration[r], slot);
+                        }
+                    }
+                }
+            }
+        }
+
+        // The shortest sequence always fits, so some row of the last scene has a slot
+        int bestSlot = -1;
+        for (int r = sceneStart[sceneCount - 1]; r < rows; r++) {
+            int slot = r * beamWidth;
+            if (count[r] > 0 && (bestSlot < 0 || score[slot] > score[bestSlot])) {
+                bestSlot = slot;
+            }
+        }
+
+        int[] chosen = new int[sceneCount];
+        for (int s = sceneCount - 1, slot = bestSlot; s >= 0; s--, slot = parent[slot]) {
+            chosen[s] = slot / beamWidth;
+        }
+        return chosen;
+    }
+
+    /**
+     * Adds a partial sequence ending at row to that row's beam, kept sorted by descending score.
+     * One that scores no better than a kept sequence and takes no less time is dropped,
+     * so the beam holds different runtime/score trade-offs rather than copies of one path.
+     */
+    private void insert(float[] score, int[] used, int[] parent, int[] count, int row,
+                        float candidate, int total, int from) {
+        int base = row * beamWidth;
+        int n = count[row];
+        if (n == beamWidth && candidate <= score[base + n - 1]) {
+            return;
+        }
+
+        int pos = n;
+        for (int i = 0; i < n; i++) {
+            int slot = base + i;
+            if (score[slot] >= candidate && used[slot] <= total) {
+                return;
+            }
+            if (pos == n && candidate > score[slot]) {
+                pos = i;
+            }
+        }
+
+        int end = Math.min(n, beamWidth - 1);
+        System.arraycopy(score, base + pos, score, base + pos + 1, end - pos);
+        System.arraycopy(used, base + pos, used, base + pos + 1, end - pos);
+        System.arraycopy(parent, base + pos, parent, base + pos + 1, end - pos);
+        score[base + pos] = candidate;
+        used[base + pos] = total;
+        parent[base + pos] = from;
+        count[row] = Math.min(n + 1, beamWidth);
+    }
+
+    // Continuity cost of following row from with row to; shared with SessionReplanner
+    float penalty(int from, int to, float[] pacing, float[] emotion) {
+        return pacingWeight * distance(pacing[from], pacing[to]) + emotionWeight * distance(emotion[from], emotion[to]);
+    }
+
+    private static float distance(float a, float b) {
+        float d = Math.abs(a - b);
+        return d != d ? 0f : d;
+    }
+
+    private static float toFloat(Double value) {
+        return value == null ? Float.NaN : value.floatValue();
+    }
+
+    public double getPacingWeight() { return pacingWeight; }
+
+    public double getEmotionWeight() { return emotionWeight; }
+
+    public int getBeamWidth() { return beamWidth; }
+}
@@ -0,0 +1,35 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package prediction;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+
+// Per-request context features: device_type, viewing_hour, is_weekend and the current year for age
+public class SessionContext {
+    private final String deviceType;
+    private final int viewingHour;
+    private final boolean weekend;
+    private final int year;
+
+    public SessionContext(String deviceType, LocalDateTime time) {
+        this.deviceType = deviceType;
+        this.viewingHour = time.getHour();
+        this.weekend = time.getDayOfWeek() == DayOfWeek.SATURDAY || time.getDayOfWeek() == DayOfWeek.SUNDAY;
+        this.year = time.getYear();
+    }
+
+    public static SessionContext now(String deviceType) {
+        return new SessionContext(deviceType, LocalDateTime.now());
+    }
+
+    public String getDeviceType() { return deviceType; }
+
+    public int getViewingHour() { return viewingHour; }
+
+    public boolean isWeekend() { return weekend; }
+
+    public int getYear() { return year; }
+}
@@ -0,0 +1,294 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package prediction;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import model.MovieGraph;
+import model.Scene;
+import model.SceneVariant;
+import model.SceneViewing;
+import util.LatencyHistogram;
+
+/**
+ * Re-plans the rest of one viewing session as scene outcomes arrive.
+ * Keeps a drop-off signal for the session, an exponential moving average of how much of
+ * each scene went unwatched (1 for a drop-off). The higher it is, the more the content risk
+ * of a variant, 0.05 * |emotion - 5| + 0.05 * intensity as in Generate test data.py, is
+ * added to its model dropout, so the plan shifts towards calmer variants.
+ * The plan comes from a backward Viterbi pass that stores, for every variant, the best
+ * score of the scenes after it and which variant to take next. After an outcome only the
+ * remaining scenes are recomputed, and only if the signal moved; otherwise the stored
+ * table is reused and re-planning is a walk along it from the variant actually watched.
+ * Uses the SequencePlanner's continuity weights; a runtime limit is not applied.
+ * A session can also start from a plan made earlier, such as a precomputed row; then the
+ * dropout scores are only asked for, and the table solved, at the first scene outcome.
+ */
+public class SessionReplanner {
+
+    // Weight of the newest outcome in the drop-off signal
+    private static final float SIGNAL_ALPHA = 0.5f;
+    // Signal change below which the stored table is still used
+    private static final float SIGNAL_EPSILON = 0.02f;
+
+    private final SequencePlanner planner;
+    private final int sceneCount;
+    private final int[] sceneStart;
+    private final int[] sceneOfRow;
+    private final int[] variantIds;
+    private final int[] durations;
+    private final float[] pacing;
+    private final float[] emotion;
+    private final float[] baseGain;
+    private final float[] contentRisk;
+    private final Map<Integer, Integer> rowByVariantId = new HashMap<>();
+
+    // Guarded by this
+    private Supplier<float[]> pendingDropout;
+    private final float[] valueToGo;
+    private final int[] nextRow;
+    private final int[] plan;
+    private float dropSignal;
+    private float tableSignal;
+    private int nextScene;
+
+    // Metrics
+    private final LongAdder outcomes = new LongAdder();
+    private final LongAdder recomputes = new LongAdder();
+    private final LongAdder reuses = new LongAdder();
+    private final LatencyHistogram replanLatency = new LatencyHistogram();
+
+    // dropout holds one probability per variant in scene then variant order, as from predictDropout()
+    public SessionReplanner(MovieGraph graph, float[] dropout, SequencePlanner planner) {
+        this(graph, planner);
+        setDropout(dropout);
+        planFromStart();
+    }
+
+    /**
+     * Starts from plannedVariantIds, one variant id per scene in scene order; dropout is called
+     * at the first scene outcome. A plan that doesn't fit the graph (a variant missing, or the
+     * wrong number of scenes) is ignored and the session is planned from dropout right away.
+     */
+    public SessionReplanner(MovieGraph graph, Supplier<float[]> dropout, SequencePlanner planner, int[] plannedVariantIds) {
+        this(graph, planner);
+        if (!usePlan(plannedVariantIds)) {
+            setDropout(dropout.get());
+            planFromStart();
+            return;
+        }
+        pendingDropout = dropout;
+    }
+
+    private SessionReplanner(MovieGraph graph, SequencePlanner planner) {
+        this.planner = planner;
+        int rows = graph.getVariantCount();
+        this.sceneStart = new int[graph.getScenes().size() + 1];
+        this.sceneOfRow = new int[rows];
+        this.variantIds = new int[rows];
+        this.durations = new int[rows];
+        this.pacing = new float[rows];
+        this.emotion = new float[rows];
+        this.baseGain = new float[rows];
+        this.contentRisk = new float[rows];
+
+        int row = 0;
+        int scenes = 0;
+        for (Scene scene : graph.getScenes()) {
+            List<SceneVariant> variants = graph.getVariants(scene.getSceneIndex());
+            if (variants.isEmpty()) {
+                continue;
+            }
+            sceneStart[scenes] = row;
+            for (SceneVariant variant : variants) {
+                sceneOfRow[row] = scenes;
+                variantIds[row] = variant.getVariantId();
+                durations[row] = variant.getDuration();
+                pacing[row] = toFloat(variant.getPacingScore());
+                emotion[row] = toFloat(variant.getEmotionalTone());
+                contentRisk[row] = risk(variant);
+                rowByVariantId.put(variant.getVariantId(), row);
+                row++;
+            }
+            scenes++;
+        }
+        sceneStart[scenes] = row;
+        this.sceneCount = scenes;
+
+        this.valueToGo = new float[rows];
+        this.nextRow = new int[rows];
+        this.plan = new int[scenes];
+    }
+
+    private void setDropout(float[] dropout) {
+        for (int row = 0; row < baseGain.length; row++) {
+            baseGain[row] = (float) Math.log1p(-Math.min(dropout[row], 0.999999f));
+        }
+    }
+
+    private void planFromStart() {
+        if (sceneCount > 0) {
+            solveFrom(0);
+            int first = sceneStart[0];
+            for (int r = first + 1; r < sceneStart[1]; r++) {
+                if (valueToGo[r] > valueToGo[first]) {
+                    first = r;
+                }
+            }
+            walk(0, first);
+        }
+    }
+
+    // Takes plannedVariantIds as the plan if every id is a variant of its scene
+    private boolean usePlan(int[] plannedVariantIds) {
+        if (plannedVariantIds == null || plannedVariantIds.length != sceneCount) {
+            return false;
+        }
+        for (int s = 0; s < sceneCount; s++) {
+            Integer row = rowByVariantId.get(plannedVariantIds[s]);
+            if (row == null || sceneOfRow[row] != s) {
+                return false;
+            }
+            plan[s] = row;
+        }
+        return true;
+    }
+
+    /**
+     * Feeds one scene outcome into the session and re-plans the scenes after it.
+     * Returns the variant ids still to be watched; an outcome for a variant outside
+     * this movie leaves the plan unchanged.
+     */
+    public synchronized int[] onSceneOutcome(SceneViewing viewing) {
+        Integer watched = rowByVariantId.get(viewing.getVariantId());
+        if (watched == null) {
+            return getRemainingVariantIds();
+        }
+
+        long start = System.nanoTime();
+        outcomes.increment();
+
+        int row = watched;
+        int scene = sceneOfRow[row];
+        plan[scene] = row;
+        nextScene = scene + 1;
+
+        float unwatched = 1f;
+        if (!viewing.isDroppedOff() && durations[row] > 0) {
+            unwatched = Math.max(0f, Math.min(1f, 1f - viewing.getWatchDuration() / (float) durations[row]));
+        }
+        dropSignal += SIGNAL_ALPHA * (unwatched - dropSignal);
+
+        if (nextScene < sceneCount) {
+            if (pendingDropout != null) {
+                // Started from a stored plan; score the movie now that a re-plan is needed
+                setDropout(pendingDropout.get());
+                pendingDropout = null;
+                tableSignal = dropSignal;
+                solveFrom(nextScene);
+                recomputes.increment();
+            } else if (Math.abs(dropSignal - tableSignal) > SIGNAL_EPSILON) {
+                tableSignal = dropSignal;
+                solveFrom(nextScene);
+                recomputes.increment();
+            } else {
+                reuses.increment();
+            }
+            walk(nextScene, bestSuccessor(row, nextScene));
+        }
+
+        replanLatency.record(System.nanoTime() - start);
+        return getRemainingVariantIds();
+    }
+
+    // Backward Viterbi over scenes [from, sceneCount) with the current signal
+    private void solveFrom(int from) {
+        int last = sceneCount - 1;
+        for (int r = sceneStart[last]; r < sceneStart[last + 1]; r++) {
+            valueToGo[r] = gain(r);
+            nextRow[r] = -1;
+        }
+        for (int s = last - 1; s >= from; s--) {
+            for (int r = sceneStart[s]; r < sceneStart[s + 1]; r++) {
+                int best = bestSuccessor(r, s + 1);
+                valueToGo[r] = gain(r) + valueToGo[best] - planner.penalty(r, best, pacing, emotion);
+                nextRow[r] = best;
+            }
+        }
+    }
+
+    // Best row of scene to follow row with; ties keep the earlier variant
+    private int bestSuccessor(int row, int scene) {
+        int best = sceneStart[scene];
+        float bestScore = valueToGo[best] - planner.penalty(row, best, pacing, emotion);
+        for (int q = best + 1; q < sceneStart[scene + 1]; q++) {
+            float score = valueToGo[q] - planner.penalty(row, q, pacing, emotion);
+            if (score > bestScore) {
+                bestScore = score;
+                best = q;
+            }
+        }
+        return best;
+    }
+
+    private void walk(int scene, int row) {
+        for (int s = scene; s < sceneCount; s++, row = nextRow[row]) {
+            plan[s] = row;
+        }
+    }
+
+    // Model survival, lowered by the variant's content risk in proportion to the drop-off signal
+    private float gain(int row) {
+        return baseGain[row] + (float) Math.log1p(-tableSignal * contentRisk[row]);
+    }
+
+    private static float risk(SceneVariant variant) {
+        double emotionRisk = variant.getEmotionalTone() == null ? 0.0 : Math.abs(variant.getEmotionalTone() - 5.0);
+        double intensity = variant.getIntensityScore() == null ? 0.0 : variant.getIntensityScore();
+        return (float) Math.min(0.95, 0.05 * emotionRisk + 0.05 * intensity);
+    }
+
+    private static float toFloat(Double value) {
+        return value == null ? Float.NaN : value.floatValue();
+    }
+
+    // Whole plan in scene order: watched variants for the scenes already seen, planned ones after
+    public synchronized int[] getPlannedVariantIds() {
+        int[] ids = new int[sceneCount];
+        for (int s = 0; s < sceneCount; s++) {
+            ids[s] = variantIds[plan[s]];
+        }
+        return ids;
+    }
+
+    // Planned variants for the scenes not yet watched
+    public synchronized int[] getRemainingVariantIds() {
+        int[] ids = new int[sceneCount - Math.min(nextScene, sceneCount)];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = variantIds[plan[nextScene + i]];
+        }
+        return ids;
+    }
+
+    public synchronized float getDropSignal() { return dropSignal; }
+
+    public synchronized int getNextScene() { return nextScene; }
+
+    // Metrics
+    public long getOutcomes() { return outcomes.sum(); }
+    public long getRecomputes() { return recomputes.sum(); }
+    public long getReuses() { return reuses.sum(); }
+    public LatencyHistogram getReplanLatency() { return replanLatency; }
+
+    @Override
+    public String toString() {
+        return String.format("SessionReplanner[scene=%d/%d signal=%.2f outcomes=%d recomputes=%d reuses=%d replan{%s}]",
+                getNextScene(), sceneCount, getDropSignal(), getOutcomes(), getRecomputes(), getReuses(),
+                replanLatency);
+    }
+}
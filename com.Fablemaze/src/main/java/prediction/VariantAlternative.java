@@ -0,0 +1,38 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package prediction;
+
+// One scored variant of a scene, as returned by the /alternatives endpoint
+public class VariantAlternative {
+    private final int variantId;
+    private final String variantName;
+    private final double engagementScore;
+    private final double dropoutProbability;
+    private final String filePath;
+    private final double pacingScore;
+    private final double intensityScore;
+    private final double actionLevel;
+
+    public VariantAlternative(int variantId, String variantName, double engagementScore, double dropoutProbability,
+                              String filePath, double pacingScore, double intensityScore, double actionLevel) {
+        this.variantId = variantId;
+        this.variantName = variantName;
+        this.engagementScore = engagementScore;
+        this.dropoutProbability = dropoutProbability;
+        this.filePath = filePath;
+        this.pacingScore = pacingScore;
+        this.intensityScore = intensityScore;
+        this.actionLevel = actionLevel;
+    }
+
+    public int getVariantId() { return variantId; }
+    public String getVariantName() { return variantName; }
+    public double getEngagementScore() { return engagementScore; }
+    public double getDropoutProbability() { return dropoutProbability; }
+    public String getFilePath() { return filePath; }
+    public double getPacingScore() { return pacingScore; }
+    public double getIntensityScore() { return intensityScore; }
+    public double getActionLevel() { return actionLevel; }
+}
@@ -0,0 +1,148 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package prediction;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Binary-logistic XGBoost booster loaded from the JSON written by Booster.save_model().
+ * Evaluates the trees the same way XGBoost does: feature values and thresholds are
+ * float32, a row goes left when value < threshold, and missing (NaN) values follow
+ * the node's default direction. Only the first best_iteration + 1 trees are used,
+ * matching XGBClassifier.predict_proba() after early stopping.
+ */
+public class XGBoostModel {
+
+    // One tree node; leaves carry the (learning-rate scaled) leaf value
+    static class TreeNode {
+        final int feature;
+        final float threshold;
+        final boolean defaultLeft;
+        final TreeNode left;
+        final TreeNode right;
+        final float leafValue;
+
+        TreeNode(int feature, float threshold, boolean defaultLeft, TreeNode left, TreeNode right) {
+            this.feature = feature;
+            this.threshold = threshold;
+            this.defaultLeft = defaultLeft;
+            this.left = left;
+            this.right = right;
+            this.leafValue = 0f;
+        }
+
+        TreeNode(float leafValue) {
+            this.feature = -1;
+            this.threshold = 0f;
+            this.defaultLeft = false;
+            this.left = null;
+            this.right = null;
+            this.leafValue = leafValue;
+        }
+
+        boolean isLeaf() { return left == null; }
+    }
+
+    private final List<TreeNode> trees;
+    private final List<String> featureNames;
+    private final float baseMargin;
+
+    XGBoostModel(List<TreeNode> trees, List<String> featureNames, float baseMargin) {
+        this.trees = Collections.unmodifiableList(new ArrayList<>(trees));
+        this.featureNames = Collections.unmodifiableList(new ArrayList<>(featureNames));
+        this.baseMargin = baseMargin;
+    }
+
+    public static XGBoostModel load(Path modelJson) throws IOException {
+        JSONObject learner = new JSONObject(Files.readString(modelJson, StandardCharsets.UTF_8))
+                .getJSONObject("learner");
+
+        String objective = learner.getJSONObject("objective").getString("name");
+        if (!"binary:logistic".equals(objective)) {
+            throw new IllegalArgumentException("Unsupported objective: " + objective);
+        }
+
+        // base_score is a probability for binary:logistic; trees add to its logit
+        float baseScore = Float.parseFloat(learner.getJSONObject("learner_model_param").getString("base_score"));
+        float baseMargin = (float) Math.log(baseScore / (1.0 - baseScore));
+
+        JSONArray treeArray = learner.getJSONObject("gradient_booster").getJSONObject("model").getJSONArray("trees");
+        int treeLimit = treeArray.length();
+        JSONObject attributes = learner.optJSONObject("attributes");
+        if (attributes != null && attributes.has("best_iteration")) {
+            treeLimit = Math.min(treeLimit, Integer.parseInt(attributes.getString("best_iteration")) + 1);
+        }
+
+        List<TreeNode> trees = new ArrayList<>(treeLimit);
+        for (int t = 0; t < treeLimit; t++) {
+            trees.add(parseTree(treeArray.getJSONObject(t), 0));
+        }
+
+        List<String> featureNames = new ArrayList<>();
+        JSONArray names = learner.optJSONArray("feature_names");
+        if (names != null) {
+            for (int i = 0; i < names.length(); i++) {
+                featureNames.add(names.getString(i));
+            }
+        }
+
+        return new XGBoostModel(trees, featureNames, baseMargin);
+    }
+
+    private static TreeNode parseTree(JSONObject tree, int node) {
+        int left = tree.getJSONArray("left_children").getInt(node);
+        float condition = (float) tree.getJSONArray("split_conditions").getDouble(node);
+        if (left == -1) {
+            return new TreeNode(condition);
+        }
+        return new TreeNode(
+            tree.getJSONArray("split_indices").getInt(node),
+            condition,
+            tree.getJSONArray("default_left").getInt(node) != 0,
+            parseTree(tree, left),
+            parseTree(tree, tree.getJSONArray("right_children").getInt(node))
+        );
+    }
+
+    // Same trees in flat arrays for batch scoring; featureCount is the row width
+    public FlatForest flatten(int featureCount) {
+        return new FlatForest(trees, featureCount, baseMargin);
+    }
+
+    // Raw margin (log-odds) for one feature row by walking the node objects; reference for FlatForest
+    public float predictMargin(float[] row) {
+        float margin = baseMargin;
+        for (TreeNode tree : trees) {
+            TreeNode node = tree;
+            while (!node.isLeaf()) {
+                float value = row[node.feature];
+                if (Float.isNaN(value)) {
+                    node = node.defaultLeft ? node.left : node.right;
+                } else {
+                    node = value < node.threshold ? node.left : node.right;
+                }
+            }
+            margin += node.leafValue;
+        }
+        return margin;
+    }
+
+    // Probability of the positive class (dropped_off = 1)
+    public float predictProbability(float[] row) {
+        return (float) (1.0 / (1.0 + Math.exp(-predictMargin(row))));
+    }
+
+    public int getTreeCount() { return trees.size(); }
+
+    public List<String> getFeatureNames() { return featureNames; }
+}
@@ -0,0 +1,12 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package telemetry;
+
+// What TelemetryWriter.record() does when the in-memory buffer is full
+public enum BackpressurePolicy {
+    BLOCK,          // wait for the writer thread to free a slot
+    DROP_OLDEST,    // evict the oldest buffered event to make room
+    SPILL_TO_DISK   // append the event to a spill file, replayed once the buffer drains
+}
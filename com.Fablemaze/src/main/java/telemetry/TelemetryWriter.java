@@ -0,0 +1,421 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package telemetry;
+
+import dao.SceneViewingDAO;
+import model.SceneViewing;
+import util.BoundedRingBuffer;
+import util.LatencyHistogram;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Write-behind pipeline for SceneViewing telemetry.
+ * Callers hand events to a lock-free ring buffer and return immediately; a single
+ * writer thread group-commits them through SceneViewingDAO.insertSceneViewings()
+ * every batchSize events or flushInterval, whichever comes first.
+ * A batch that fails to commit is retried one event at a time, so one bad event doesn't take the
+ * rest of its batch down with it; an event that fails on its own too (a constraint violation, say a
+ * variant that has since been deleted) goes to the dead-letter file next to the spill file, in the
+ * spill file's format, and can be retried by appending it to the spill file.
+ */
+public class TelemetryWriter implements AutoCloseable {
+
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final SceneViewingDAO dao;
+    private final BoundedRingBuffer<SceneViewing> buffer;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final BackpressurePolicy policy;
+    private final Path spillFile;
+    private final Path replayFile;
+    private final Path deadLetterFile;
+
+    private final Thread writerThread;
+    private final Thread shutdownHook;
+    private volatile boolean running = true;
+
+    private final Object spillLock = new Object();
+    private BufferedWriter spillWriter;
+
+    // Metrics
+    private final LatencyHistogram commitLatency = new LatencyHistogram();
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder committedEvents = new LongAdder();
+    private final AtomicLong maxBatchSize = new AtomicLong();
+    private final LongAdder failedEvents = new LongAdder();
+    private final LongAdder droppedEvents = new LongAdder();
+    private final LongAdder spilledEvents = new LongAdder();
+    private final LongAdder deadLetteredEvents = new LongAdder();
+    private final LongAdder blockedWaits = new LongAdder();
+
+    public TelemetryWriter(SceneViewingDAO dao, int capacity, int batchSize, long flushIntervalMillis,
+                           BackpressurePolicy policy, Path spillFile) {
+        this.dao = dao;
+        this.buffer = new BoundedRingBuffer<>(capacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushIntervalMillis));
+        this.policy = policy;
+        this.spillFile = spillFile;
+        this.replayFile = spillFile.resolveSibling(spillFile.getFileName() + ".replay");
+        this.deadLetterFile = spillFile.resolveSibling(spillFile.getFileName() + ".dead");
+
+        this.writerThread = new Thread(this::runWriter, "telemetry-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+
+        // Flush whatever is still buffered if the JVM exits without close()
+        this.shutdownHook = new Thread(this::close, "telemetry-flush");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    // Configured through -Dfablemaze.telemetry.* system properties
+    public static TelemetryWriter fromSystemProperties(SceneViewingDAO dao) {
+        return new TelemetryWriter(
+            dao,
+            Integer.getInteger("fablemaze.telemetry.capacity", 8192),
+            Integer.getInteger("fablemaze.telemetry.batchSize", 512),
+            Long.getLong("fablemaze.telemetry.flushMs", 200L),
+            BackpressurePolicy.valueOf(System.getProperty("fablemaze.telemetry.policy", "SPILL_TO_DISK")),
+            Paths.get(System.getProperty("fablemaze.telemetry.spillFile", "telemetry.spill"))
+        );
+    }
+
+    // Never blocks unless the policy is BLOCK and the buffer is full; false if the event was not accepted
+    public boolean record(SceneViewing viewing) {
+        if (!running) {
+            droppedEvents.increment();
+            return false;
+        }
+
+        if (!buffer.offer(viewing)) {
+            switch (policy) {
+                case BLOCK:
+                    blockedWaits.increment();
+                    while (!buffer.offer(viewing)) {
+                        if (!running) {
+                            droppedEvents.increment();
+                            return false;
+                        }
+                        LockSupport.unpark(writerThread);
+                        LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+                    }
+                    break;
+                case DROP_OLDEST:
+                    while (!buffer.offer(viewing)) {
+                        if (buffer.poll() != null) {
+                            droppedEvents.increment();
+                        }
+                    }
+                    break;
+                case SPILL_TO_DISK:
+                    spill(viewing);
+                    break;
+            }
+        }
+
+        if (buffer.size() >= batchSize) {
+            LockSupport.unpark(writerThread);
+        }
+        return true;
+    }
+
+    private void runWriter() {
+        List<SceneViewing> batch = new ArrayList<>(batchSize);
+        long batchStarted = 0;
+        replaySpill();
+
+        while (true) {
+            boolean stopping = !running;
+
+            boolean wasEmpty = batch.isEmpty();
+            buffer.drainTo(batch, batchSize - batch.size());
+            if (wasEmpty && !batch.isEmpty()) {
+                batchStarted = System.nanoTime();
+            }
+
+            long waited = System.nanoTime() - batchStarted;
+            if (batch.size() >= batchSize || (!batch.isEmpty() && (stopping || waited >= flushIntervalNanos))) {
+                List<SceneViewing> unhandled = commitOrDeadLetter(batch);
+                if (!unhandled.isEmpty()) {
+                    // Kept on disk and retried through replaySpill() instead of being lost
+                    spill(unhandled);
+                }
+                batch.clear();
+                continue;
+            }
+
+            if (batch.isEmpty() && buffer.isEmpty()) {
+                if (replaySpill()) {
+                    continue;
+                }
+                if (stopping) {
+                    break;
+                }
+            }
+
+            LockSupport.parkNanos(this, batch.isEmpty() ? flushIntervalNanos : flushIntervalNanos - waited);
+        }
+    }
+
+    // True if the batch is in the database; a failed batch leaves nothing behind, it is one transaction
+    private boolean commit(List<SceneViewing> batch) {
+        long start = System.nanoTime();
+        boolean ok = dao.insertSceneViewings(batch);
+        commitLatency.record(System.nanoTime() - start);
+
+        if (ok) {
+            commits.increment();
+            committedEvents.add(batch.size());
+            maxBatchSize.accumulateAndGet(batch.size(), Math::max);
+        } else {
+            failedEvents.add(batch.size());
+            System.err.println("Telemetry commit of " + batch.size() + " events failed");
+        }
+        return ok;
+    }
+
+    /**
+     * Commits the batch, or if that fails each of its events on its own; events that fail on their own
+     * too are moved to the dead-letter file. Returns the events that could be neither committed nor
+     * dead-lettered, normally none.
+     */
+    private List<SceneViewing> commitOrDeadLetter(List<SceneViewing> batch) {
+        if (commit(batch)) {
+            return List.of();
+        }
+
+        List<SceneViewing> rejected = new ArrayList<>();
+        for (SceneViewing viewing : batch) {
+            long start = System.nanoTime();
+            boolean ok = dao.insertSceneViewing(viewing);
+            commitLatency.record(System.nanoTime() - start);
+            if (ok) {
+                commits.increment();
+                committedEvents.increment();
+            } else {
+                rejected.add(viewing);
+            }
+        }
+        if (rejected.isEmpty() || deadLetter(rejected)) {
+            return List.of();
+        }
+        return rejected;
+    }
+
+    private boolean deadLetter(List<SceneViewing> viewings) {
+        try (BufferedWriter writer = Files.newBufferedWriter(deadLetterFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (SceneViewing viewing : viewings) {
+                writer.write(formatSpilled(viewing));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            System.err.println("Telemetry dead-letter write failed: " + e.getMessage());
+            return false;
+        }
+        deadLetteredEvents.add(viewings.size());
+        System.err.println("Telemetry moved " + viewings.size() + " events that failed to commit to " + deadLetterFile);
+        return true;
+    }
+
+    private void spill(SceneViewing viewing) {
+        spill(List.of(viewing));
+    }
+
+    private void spill(List<SceneViewing> viewings) {
+        synchronized (spillLock) {
+            try {
+                if (spillWriter == null) {
+                    spillWriter = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                }
+                for (SceneViewing viewing : viewings) {
+                    spillWriter.write(formatSpilled(viewing));
+                    spillWriter.newLine();
+                }
+                spillWriter.flush();
+                spilledEvents.add(viewings.size());
+            } catch (IOException e) {
+                droppedEvents.add(viewings.size());
+                System.err.println("Telemetry spill failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private static String formatSpilled(SceneViewing viewing) {
+        return viewing.getSessionId() + "\t" + viewing.getVariantId() + "\t" + viewing.getWatchDuration() + "\t"
+                + viewing.isDroppedOff() + "\t" + viewing.getTimestamp();
+    }
+
+    // Null for a line that isn't a spilled event
+    private static SceneViewing parseSpilled(String line) {
+        String[] fields = line.split("\t", -1);
+        if (fields.length != 5) {
+            return null;
+        }
+        try {
+            return new SceneViewing(
+                Integer.parseInt(fields[0]),
+                Integer.parseInt(fields[1]),
+                Integer.parseInt(fields[2]),
+                Boolean.parseBoolean(fields[3]),
+                fields[4]
+            );
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Commits everything in the spill file (including one left by a previous run); true if anything was replayed.
+     * Events that fail to commit are dead-lettered like live ones, so one that can never commit doesn't
+     * hold up the ones spilled after it. The replay file is deleted once every event in it is committed or
+     * dead-lettered; if some can't even be dead-lettered, they and the lines after them are written back
+     * as the new replay file, so the next attempt neither loses them nor commits the others a second time.
+     */
+    private boolean replaySpill() {
+        synchronized (spillLock) {
+            try {
+                if (spillWriter != null) {
+                    spillWriter.close();
+                    spillWriter = null;
+                }
+                if (Files.exists(spillFile) && !Files.exists(replayFile)) {
+                    Files.move(spillFile, replayFile, StandardCopyOption.ATOMIC_MOVE);
+                }
+            } catch (IOException e) {
+                System.err.println("Telemetry spill rotation failed: " + e.getMessage());
+                return false;
+            }
+        }
+
+        if (!Files.exists(replayFile)) {
+            return false;
+        }
+
+        Path remaining = null;
+        boolean replayed = false;
+        List<SceneViewing> batch = new ArrayList<>(batchSize);
+        try (BufferedReader reader = Files.newBufferedReader(replayFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                SceneViewing viewing = parseSpilled(line);
+                if (viewing == null) {
+                    continue;
+                }
+                batch.add(viewing);
+                if (batch.size() >= batchSize) {
+                    List<SceneViewing> unhandled = commitOrDeadLetter(batch);
+                    replayed |= unhandled.size() < batch.size();
+                    if (!unhandled.isEmpty()) {
+                        remaining = writeRemaining(unhandled, reader);
+                        break;
+                    }
+                    batch.clear();
+                }
+            }
+            if (remaining == null && !batch.isEmpty()) {
+                List<SceneViewing> unhandled = commitOrDeadLetter(batch);
+                replayed |= unhandled.size() < batch.size();
+                if (!unhandled.isEmpty()) {
+                    remaining = writeRemaining(unhandled, reader);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Telemetry spill replay failed: " + e.getMessage());
+            return replayed;
+        }
+
+        try {
+            if (remaining == null) {
+                Files.delete(replayFile);
+                return true;
+            }
+            Files.move(remaining, replayFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Telemetry spill replay failed: " + e.getMessage());
+        }
+        return replayed;
+    }
+
+    // The unhandled events and the unread rest of the replay file, in a sibling file that replaces it once it is closed
+    private Path writeRemaining(List<SceneViewing> unhandled, BufferedReader reader) throws IOException {
+        Path remaining = replayFile.resolveSibling(replayFile.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(remaining, StandardCharsets.UTF_8)) {
+            for (SceneViewing viewing : unhandled) {
+                writer.write(formatSpilled(viewing));
+                writer.newLine();
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                writer.write(line);
+                writer.newLine();
+            }
+        }
+        return remaining;
+    }
+
+    // Stops accepting events and waits for the writer to commit everything already accepted
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (Thread.currentThread() != shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // JVM already shutting down
+            }
+        }
+    }
+
+    // Metrics
+    public int getQueueDepth() { return buffer.size(); }
+    public LatencyHistogram getCommitLatency() { return commitLatency; }
+    public long getCommitCount() { return commits.sum(); }
+    public long getCommittedEvents() { return committedEvents.sum(); }
+    public long getMaxBatchSize() { return maxBatchSize.get(); }
+    public long getFailedEvents() { return failedEvents.sum(); }
+    public long getDroppedEvents() { return droppedEvents.sum(); }
+    public long getSpilledEvents() { return spilledEvents.sum(); }
+    public long getDeadLetteredEvents() { return deadLetteredEvents.sum(); }
+    public long getBlockedWaits() { return blockedWaits.sum(); }
+
+    public double getAverageBatchSize() {
+        long n = commits.sum();
+        return n == 0 ? 0.0 : committedEvents.sum() / (double) n;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TelemetryWriter[depth=%d commits=%d events=%d avgBatch=%.1f maxBatch=%d "
+                + "dropped=%d spilled=%d failed=%d deadLettered=%d commit{%s}]",
+                getQueueDepth(), getCommitCount(), getCommittedEvents(), getAverageBatchSize(), getMaxBatchSize(),
+                getDroppedEvents(), getSpilledEvents(), getFailedEvents(), getDeadLetteredEvents(), commitLatency);
+    }
+}
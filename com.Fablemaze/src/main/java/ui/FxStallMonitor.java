@@ -0,0 +1,82 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package ui;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javafx.animation.AnimationTimer;
+import util.LatencyHistogram;
+
+/**
+ * Frame-gap monitor for the JavaFX application thread.
+ * An AnimationTimer is called once per pulse with the pulse's timestamp; the gap between two
+ * consecutive pulses is how long the window went without a new frame. At 60 Hz a gap is normally
+ * one frame (about 16.7 ms), so a gap over the stall threshold means at least one frame was
+ * dropped, whether the FX thread was busy running handlers, laying out, applying CSS or rendering.
+ * While started the timer keeps pulses coming even when nothing changes; a pulse with nothing
+ * dirty renders nothing, so an idle window stays cheap.
+ * Start and close from the FX thread.
+ */
+public class FxStallMonitor implements AutoCloseable {
+
+    private final long stallNanos;
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            onPulse(now);
+        }
+    };
+
+    // Only touched on the FX thread
+    private long lastPulse;
+
+    // Metrics
+    private final LatencyHistogram frameGap = new LatencyHistogram();
+    private final LongAdder frames = new LongAdder();
+    private final LongAdder stalls = new LongAdder();
+
+    public FxStallMonitor(long stallMillis) {
+        this.stallNanos = TimeUnit.MILLISECONDS.toNanos(stallMillis);
+    }
+
+    // Configured through -Dfablemaze.ui.stallMillis; the default allows one frame at 60 Hz plus jitter
+    public static FxStallMonitor fromSystemProperties() {
+        return new FxStallMonitor(Long.getLong("fablemaze.ui.stallMillis", 25));
+    }
+
+    public void start() {
+        lastPulse = 0;
+        timer.start();
+    }
+
+    private void onPulse(long now) {
+        if (lastPulse != 0) {
+            long gap = now - lastPulse;
+            frameGap.record(gap);
+            frames.increment();
+            if (gap > stallNanos) {
+                stalls.increment();
+            }
+        }
+        lastPulse = now;
+    }
+
+    @Override
+    public void close() {
+        timer.stop();
+    }
+
+    // Metrics
+    public long getFrames() { return frames.sum(); }
+    public long getStalls() { return stalls.sum(); }
+    public double getMaxStallMillis() { return frameGap.getMaxMillis(); }
+    public LatencyHistogram getFrameGap() { return frameGap; }
+
+    @Override
+    public String toString() {
+        return String.format("FxStallMonitor[frames=%d stalls=%d over %dms gap={%s}]",
+                getFrames(), getStalls(), TimeUnit.NANOSECONDS.toMillis(stallNanos), frameGap);
+    }
+}
@@ -8,6 +8,7 @@ import javafx.concurrent.Task;
 import util.DatabaseManager;
 import controller.AppController;
 import javafx.application.Application;
+import javafx.css.PseudoClass;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -19,14 +20,17 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
-import javafx.scene.image.Image;
-import javafx.scene.image.ImageView;
-import javafx.scene.text.TextAlignment;
 import model.Movie;
 import model.SceneVariant;
 
 public class GUI extends Application {
     
+    // All looks live in this stylesheet; states below are toggled as pseudo-classes
+    private static final String STYLESHEET = "/ui/fablemaze.css";
+    private static final PseudoClass ACTIVE = PseudoClass.getPseudoClass("active");
+    private static final PseudoClass SUCCESS = PseudoClass.getPseudoClass("success");
+    private static final PseudoClass ERROR = PseudoClass.getPseudoClass("error");
+    
     private Stage primaryStage;
     private StackPane mainContainer;
     
@@ -41,11 +45,17 @@ public class GUI extends Application {
     private VBox authPage;
     private VBox homePage;
     private VBox profileSpecPage;
-    private VBox movieWatchPage;
+    private MovieWatchPage movieWatchPage;
     
     private AppController controller;
     private String currentUsername;
     
+    // Controller calls run here, never on the FX thread
+    private final UiDataLoader loader = UiDataLoader.fromSystemProperties();
+    private final FxStallMonitor stallMonitor = FxStallMonitor.fromSystemProperties();
+    private MovieGrid movieGrid;
+    private ThumbnailService thumbnails;
+    
     @Override
 public void start(Stage stage) {
     primaryStage = stage;
@@ -53,40 +63,42 @@ public void start(Stage stage) {
 
     // Show a temporary loading scene
     Label loadingLabel = new Label("Loading application, please wait...");
-    loadingLabel.setStyle("-fx-font-size: 18px; -fx-text-fill: white;");
+    loadingLabel.getStyleClass().add("loading-label");
     StackPane loadingPane = new StackPane(loadingLabel);
-    loadingPane.setStyle("-fx-background-color: linear-gradient(#141e30, #243b55);");
+    loadingPane.getStyleClass().add("loading-pane");
     Scene loadingScene = new Scene(loadingPane, 1050, 825);
+    loadingScene.getStylesheets().add(stylesheet());
     primaryStage.setScene(loadingScene);
     primaryStage.show();
+    stallMonitor.start();
 
-    // Initialize DB in background thread
-    Task<Void> initTask = new Task<>() {
+    // Initialize DB and load the models in background thread
+    Task<AppController> initTask = new Task<>() {
         @Override
-        protected Void call() throws Exception {
+        protected AppController call() throws Exception {
             DatabaseManager.initSchema();
-            return null;
+            return new AppController();
         }
     };
 
     initTask.setOnSucceeded(e -> {
         // Now safe to continue with GUI init
-        controller = new AppController();
+        controller = initTask.getValue();
+        thumbnails = ThumbnailService.fromSystemProperties(controller.getScenePrefetcher()::getThumbnail);
         
         mainContainer = new StackPane();
-        mainContainer.setStyle(
-            "-fx-background-color: linear-gradient(#667eea 0%, #764ba2 100%);"
-        );
+        mainContainer.getStyleClass().add("app-background");
 
         createAuthPage();
         createHomePage();
         createProfileSpecPage();
-        createMovieWatchPage(new Movie());
+        movieWatchPage = new MovieWatchPage(thumbnails, this::leaveMovie, this::sceneEnded);
 
         mainContainer.getChildren().addAll(authPage, homePage, profileSpecPage, movieWatchPage);
         showAuthPage();
 
         Scene mainScene = new Scene(mainContainer, 1050, 825);
+        mainScene.getStylesheets().add(stylesheet());
         primaryStage.setScene(mainScene);
     });
 
@@ -99,7 +111,31 @@ public void start(Stage stage) {
     new Thread(initTask).start();
 }
 
-    
+    private static String stylesheet() {
+        return GUI.class.getResource(STYLESHEET).toExternalForm();
+    }
+
+    @Override
+    public void stop() {
+        loader.close();
+        stallMonitor.close();
+        // UI metrics on exit, with -Dfablemaze.ui.printMetrics=true
+        if (Boolean.getBoolean("fablemaze.ui.printMetrics")) {
+            System.out.println(stallMonitor);
+            System.out.println(loader);
+            if (thumbnails != null) {
+                System.out.println(thumbnails);
+            }
+        }
+        if (thumbnails != null) {
+            thumbnails.close();
+        }
+        if (controller != null) {
+            controller.shutdown();
+        }
+        DatabaseManager.shutdown();
+    }
+
     private void createAuthPage() {
         // Left side - Decorative panel
         VBox leftPanel = createLeftPanel();
@@ -111,11 +147,7 @@ public void start(Stage stage) {
         HBox mainCard = new HBox();
         mainCard.setMaxWidth(900);
         mainCard.setMaxHeight(600);
-        mainCard.setStyle(
-            "-fx-background-color: white;" +
-            "-fx-background-radius: 20;" +
-            "-fx-effect: dropshadow(gaussian, rgba(0,0,0,0.3), 25, 0, 0, 10);"
-        );
+        mainCard.getStyleClass().add("auth-card");
         
         mainCard.getChildren().addAll(leftPanel, rightPanel);
         
@@ -135,27 +167,13 @@ public void start(Stage stage) {
         header.setPadding(new Insets(0, 0, 20, 0));
 
         Label welcomeLabel = new Label("Welcome to Fablemaze");
-        welcomeLabel.setStyle(
-            "-fx-font-size: 36px;" +
-            "-fx-text-fill: white;" +
-            "-fx-font-weight: 300;"
-        );
+        welcomeLabel.getStyleClass().add("page-title");
 
         Region spacer = new Region();
         HBox.setHgrow(spacer, Priority.ALWAYS);
 
         Button logoutButton = new Button("Logout");
-        logoutButton.setStyle(
-            "-fx-background-color: rgba(255,255,255,0.2);" +
-            "-fx-text-fill: white;" +
-            "-fx-font-size: 14px;" +
-            "-fx-font-weight: 500;" +
-            "-fx-background-radius: 20;" +
-            "-fx-padding: 10 20;" +
-            "-fx-cursor: hand;" +
-            "-fx-border-color: rgba(255,255,255,0.3);" +
-            "-fx-border-radius: 20;"
-        );
+        logoutButton.getStyleClass().add("ghost-button");
 
         logoutButton.setOnAction(e -> {
             currentUsername = null;
@@ -169,334 +187,48 @@ public void start(Stage stage) {
         contentCard.setMaxWidth(1000);
         contentCard.setPadding(new Insets(40));
         contentCard.setAlignment(Pos.CENTER);
-        contentCard.setStyle(
-            "-fx-background-color: white;" +
-            "-fx-background-radius: 20;" +
-            "-fx-effect: dropshadow(gaussian, rgba(0,0,0,0.2), 20, 0, 0, 5);"
-        );
+        contentCard.getStyleClass().add("content-card");
 
         Label titleLabel = new Label("Available Movies");
-        titleLabel.setStyle(
-            "-fx-font-size: 28px;" +
-            "-fx-text-fill: #2c3e50;" +
-            "-fx-font-weight: 600;"
-        );
+        titleLabel.getStyleClass().add("section-title");
 
-        // Get movies from controller
-        List<Movie> movies = controller.getMovies();
+        // Only the visible rows have nodes; pages of movies load as they scroll into view
+        movieGrid = MovieGrid.fromSystemProperties(controller::getMovieCount, controller::getMoviesPage,
+                loader, this::openMovie);
+        movieGrid.setPrefHeight(400);
+        movieGrid.reload();
 
-        // Create scrollable movie grid
-        ScrollPane scrollPane = new ScrollPane();
-        scrollPane.setFitToWidth(true);
-        scrollPane.setStyle(
-            "-fx-background: white;" +
-            "-fx-background-color: white;" +
-            "-fx-border-color: transparent;"
-        );
-
-        GridPane moviesGrid = new GridPane();
-        moviesGrid.setHgap(20);
-        moviesGrid.setVgap(20);
-        moviesGrid.setAlignment(Pos.CENTER);
-        moviesGrid.setPadding(new Insets(20));
-
-        // Display movies in a grid (3 columns)
-        int col = 0;
-        int row = 0;
-
-        for (Movie movie : movies) {
-            VBox movieCard = createMovieCard(movie);
-            moviesGrid.add(movieCard, col, row);
-
-            col++;
-            if (col >= 3) {
-                col = 0;
-                row++;
-            }
-        }
-
-        scrollPane.setContent(moviesGrid);
-        scrollPane.setPrefHeight(400);
-
-        contentCard.getChildren().addAll(titleLabel, scrollPane);
+        contentCard.getChildren().addAll(titleLabel, movieGrid);
         homePage.getChildren().addAll(header, contentCard);
     }
 
-    private VBox createMovieCard(Movie movie) {
-        VBox movieCard = new VBox(12);
-        movieCard.setAlignment(Pos.TOP_CENTER);
-        movieCard.setPadding(new Insets(20));
-        movieCard.setMaxWidth(280);
-        movieCard.setPrefWidth(280);
-        movieCard.setMinHeight(220);
-        movieCard.setPrefHeight(220);
-        movieCard.setStyle(
-            "-fx-background-color: linear-gradient(to bottom, #ffffff, #f8f9fa);" +
-            "-fx-background-radius: 16;" +
-            "-fx-border-color: #e1e5e9;" +
-            "-fx-border-width: 1;" +
-            "-fx-border-radius: 16;" +
-            "-fx-effect: dropshadow(gaussian, rgba(0,0,0,0.12), 15, 0.3, 0, 3);"
-        );
-
-        // Add subtle hover effect to the entire card
-        movieCard.setOnMouseEntered(e -> {
-            movieCard.setStyle(
-                "-fx-background-color: linear-gradient(to bottom, #ffffff, #f8f9fa);" +
-                "-fx-background-radius: 16;" +
-                "-fx-border-color: #c6cbd1;" +
-                "-fx-border-width: 1;" +
-                "-fx-border-radius: 16;" +
-                "-fx-effect: dropshadow(gaussian, rgba(0,0,0,0.18), 20, 0.4, 0, 5);" +
-                "-fx-scale-x: 1.02;" +
-                "-fx-scale-y: 1.02;"
-            );
-        });
-
-        movieCard.setOnMouseExited(e -> {
-            movieCard.setStyle(
-                "-fx-background-color: linear-gradient(to bottom, #ffffff, #f8f9fa);" +
-                "-fx-background-radius: 16;" +
-                "-fx-border-color: #e1e5e9;" +
-                "-fx-border-width: 1;" +
-                "-fx-border-radius: 16;" +
-                "-fx-effect: dropshadow(gaussian, rgba(0,0,0,0.12), 15, 0.3, 0, 3);" +
-                "-fx-scale-x: 1.0;" +
-                "-fx-scale-y: 1.0;"
-            );
-        });
-
-        // Movie title with better text handling
-        Label titleLabel = new Label(movie.getTitle());
-        titleLabel.setWrapText(true);
-        titleLabel.setMaxWidth(240);
-        titleLabel.setMaxHeight(50);
-        titleLabel.setAlignment(Pos.CENTER);
-        titleLabel.setTextAlignment(TextAlignment.CENTER);
-        titleLabel.setStyle(
-            "-fx-font-size: 17px;" +
-            "-fx-text-fill: #1a202c;" +
-            "-fx-font-weight: 700;" +
-            "-fx-text-alignment: center;" +
-            "-fx-padding: 0 0 8 0;"
-        );
-
-        // Content area for movie details
-        VBox contentArea = new VBox(8);
-        contentArea.setAlignment(Pos.CENTER);
-        contentArea.setFillWidth(true);
-        VBox.setVgrow(contentArea, Priority.ALWAYS);
-
-        // Movie details with improved styling
-        VBox detailsBox = new VBox(6);
-        detailsBox.setAlignment(Pos.CENTER);
-        detailsBox.setMaxWidth(240);
-
-        if (movie.getReleaseYear() != null) {
-            HBox yearBox = new HBox(8);
-            yearBox.setAlignment(Pos.CENTER);
-
-            Label yearIcon = new Label("📅");
-            yearIcon.setStyle("-fx-font-size: 14px;");
-
-            Label yearLabel = new Label(movie.getReleaseYear().toString());
-            yearLabel.setStyle(
-                "-fx-font-size: 13px;" +
-                "-fx-text-fill: #4a5568;" +
-                "-fx-font-weight: 500;"
-            );
-
-            yearBox.getChildren().addAll(yearIcon, yearLabel);
-            detailsBox.getChildren().add(yearBox);
-        }
-
-        if (movie.getGenres() != null && !movie.getGenres().isEmpty()) {
-            HBox genreBox = new HBox(8);
-            genreBox.setAlignment(Pos.CENTER);
-
-            Label genreIcon = new Label("🎭");
-            genreIcon.setStyle("-fx-font-size: 14px;");
-
-            Label genreLabel = new Label(truncateText(movie.getGenres(), 20));
-            genreLabel.setWrapText(true);
-            genreLabel.setMaxWidth(200);
-            genreLabel.setTextAlignment(TextAlignment.CENTER);
-            genreLabel.setStyle(
-                "-fx-font-size: 13px;" +
-                "-fx-text-fill: #4a5568;" +
-                "-fx-font-weight: 500;" +
-                "-fx-text-alignment: center;"
-            );
-
-            genreBox.getChildren().addAll(genreIcon, genreLabel);
-            detailsBox.getChildren().add(genreBox);
-        }
-
-        if (movie.getDuration() != null) {
-            HBox durationBox = new HBox(8);
-            durationBox.setAlignment(Pos.CENTER);
-
-            Label durationLabel = new Label("⏱ " + movie.getDuration().toString() + " min");
-            durationLabel.setStyle(
-                "-fx-font-size: 13px;" +
-                "-fx-text-fill: #4a5568;" +
-                "-fx-font-weight: 500;"
-            );
-
-            durationBox.getChildren().add(durationLabel);
-            detailsBox.getChildren().add(durationBox);
-        }
-
-        contentArea.getChildren().add(detailsBox);
-
-        // Spacer to push button to bottom
-        Region spacer = new Region();
-        VBox.setVgrow(spacer, Priority.ALWAYS);
-        contentArea.getChildren().add(spacer);
-
-        // Enhanced watch button
-        Button watchButton = new Button("▶ Watch Now");
-        watchButton.setMaxWidth(Double.MAX_VALUE);
-        watchButton.setStyle(
-            "-fx-background-color: linear-gradient(#667eea 0%, #764ba2 100%);" +
-            "-fx-text-fill: white;" +
-            "-fx-font-size: 14px;" +
-            "-fx-font-weight: 600;" +
-            "-fx-background-radius: 12;" +
-            "-fx-padding: 12 24;" +
-            "-fx-cursor: hand;" +
-            "-fx-border-color: transparent;" +
-            "-fx-effect: dropshadow(gaussian, rgba(102,126,234,0.3), 8, 0.2, 0, 2);"
-        );
-
-        // Enhanced button hover effects
-        watchButton.setOnMouseEntered(e -> {
-            watchButton.setStyle(
-                "-fx-background-color: linear-gradient(#5a6fd8 0%, #6a4190 100%);" +
-                "-fx-text-fill: white;" +
-                "-fx-font-size: 14px;" +
-                "-fx-font-weight: 600;" +
-                "-fx-background-radius: 12;" +
-                "-fx-padding: 12 24;" +
-                "-fx-cursor: hand;" +
-                "-fx-border-color: transparent;" +
-                "-fx-effect: dropshadow(gaussian, rgba(102,126,234,0.4), 12, 0.3, 0, 4);" +
-                "-fx-scale-x: 1.03;" +
-                "-fx-scale-y: 1.03;"
-            );
-        });
-
-        watchButton.setOnMouseExited(e -> {
-            watchButton.setStyle(
-                "-fx-background-color: linear-gradient(#667eea 0%, #764ba2 100%);" +
-                "-fx-text-fill: white;" +
-                "-fx-font-size: 14px;" +
-                "-fx-font-weight: 600;" +
-                "-fx-background-radius: 12;" +
-                "-fx-padding: 12 24;" +
-                "-fx-cursor: hand;" +
-                "-fx-border-color: transparent;" +
-                "-fx-effect: dropshadow(gaussian, rgba(102,126,234,0.3), 8, 0.2, 0, 2);" +
-                "-fx-scale-x: 1.0;" +
-                "-fx-scale-y: 1.0;"
-            );
-        });
-
-        // Watch button action
-        watchButton.setOnAction(e -> {
-            createMovieWatchPage(movie);
-            showMovieWatchPage();
-        });
-
-        movieCard.getChildren().addAll(titleLabel, contentArea, watchButton);
-        return movieCard;
+    private void openMovie(Movie movie) {
+        movieWatchPage.showMovie(movie);
+        loadSegments(movie);
+        showMovieWatchPage();
     }
-
-    // Helper method to truncate long text
-    private String truncateText(String text, int maxLength) {
-        if (text == null) return "";
-        if (text.length() <= maxLength) return text;
-        return text.substring(0, maxLength - 3) + "...";
+    
+    private void leaveMovie() {
+        // Queued behind (or cancelling) a startWatching() still in flight
+        loader.load("watch", () -> {
+            controller.stopWatching();
+            return null;
+        }, ignored -> {}, null);
+        showHomePage();
     }
     
-    private void createMovieWatchPage(Movie movie) {
-        if (movieWatchPage != null) {
-            mainContainer.getChildren().remove(movieWatchPage);
-        }
-        
-        movieWatchPage = new VBox(30);
-        movieWatchPage.setAlignment(Pos.CENTER);
-        movieWatchPage.setPadding(new Insets(30));
-
-        // Header with back button and movie title
-        HBox header = new HBox();
-        header.setAlignment(Pos.CENTER_LEFT);
-        header.setPadding(new Insets(0, 0, 30, 0));
-
-        Button backButton = new Button("← Back to Movies");
-        backButton.setStyle(
-            "-fx-background-color: rgba(255,255,255,0.2);" +
-            "-fx-text-fill: white;" +
-            "-fx-font-size: 14px;" +
-            "-fx-font-weight: 500;" +
-            "-fx-background-radius: 20;" +
-            "-fx-padding: 10 20;" +
-            "-fx-cursor: hand;" +
-            "-fx-border-color: rgba(255,255,255,0.3);" +
-            "-fx-border-radius: 20;"
-        );
-
-        backButton.setOnAction(e -> showHomePage());
-
-        Region spacer = new Region();
-        HBox.setHgrow(spacer, Priority.ALWAYS);
-
-        Label movieTitleLabel = new Label(movie.getTitle());
-        movieTitleLabel.setStyle(
-            "-fx-font-size: 32px;" +
-            "-fx-text-fill: white;" +
-            "-fx-font-weight: 400;"
-        );
-
-        header.getChildren().addAll(backButton, spacer, movieTitleLabel);
-
-        // Main content card
-        VBox contentCard = new VBox(25);
-        contentCard.setMaxWidth(1200);
-        contentCard.setPadding(new Insets(40));
-        contentCard.setAlignment(Pos.CENTER);
-        contentCard.setStyle(
-            "-fx-background-color: white;" +
-            "-fx-background-radius: 20;" +
-            "-fx-effect: dropshadow(gaussian, rgba(0,0,0,0.15), 20, 0, 0, 5);"
-        );
-        
-        List<SceneVariant> segments = controller.getSceneVariantSequence(movie);
-
-        // Container for the 5 segment images
-        HBox segmentsContainer = new HBox(20);
-        segmentsContainer.setAlignment(Pos.CENTER);
-        segmentsContainer.setPadding(new Insets(20, 0, 20, 0));
-
-        // Create 5 segment cards
-        for (SceneVariant variant : segments) {
-            VBox segmentCard = createSegmentCard(variant);
-            segmentsContainer.getChildren().add(segmentCard);
-        }
-
-        // Optional: Add scroll pane if segments might overflow
-        ScrollPane segmentsScrollPane = new ScrollPane(segmentsContainer);
-        segmentsScrollPane.setFitToHeight(true);
-        segmentsScrollPane.setHbarPolicy(ScrollPane.ScrollBarPolicy.AS_NEEDED);
-        segmentsScrollPane.setVbarPolicy(ScrollPane.ScrollBarPolicy.NEVER);
-        segmentsScrollPane.setStyle(
-            "-fx-background: transparent;" +
-            "-fx-background-color: transparent;" +
-            "-fx-border-color: transparent;"
-        );
-        
-        contentCard.getChildren().addAll(segmentsScrollPane);
-        movieWatchPage.getChildren().addAll(header, contentCard);
+    // Plans the movie's sequence in the background and swaps the segment cards in
+    private void loadSegments(Movie movie) {
+        loader.load("watch", () -> controller.startWatching(movie), movieWatchPage::showSegments,
+                ex -> movieWatchPage.showError("Couldn't load this movie."));
+    }
+    
+    // Records the outcome and rebinds the cards after it to the re-planned sequence
+    private void sceneEnded(int position, SceneVariant variant, boolean droppedOff) {
+        Movie movie = movieWatchPage.getMovie();
+        // A channel per scene, so a quick next outcome doesn't cancel this one's recording
+        loader.load("watch:scene:" + position, () -> controller.recordSceneOutcome(movie, variant, droppedOff),
+                remaining -> movieWatchPage.showRemaining(movie, position + 1, remaining), null);
     }
     
     private void showMovieWatchPage() {
@@ -504,96 +236,9 @@ public void start(Stage stage) {
         homePage.setVisible(false);
         profileSpecPage.setVisible(false);
         movieWatchPage.setVisible(true);
-        mainContainer.getChildren().add(movieWatchPage);
         primaryStage.setTitle("Fablemaze - Watch Movie");
     }
     
-    private VBox createSegmentCard(SceneVariant variant) {
-        VBox segmentCard = new VBox(12);
-        segmentCard.setAlignment(Pos.CENTER);
-        segmentCard.setPadding(new Insets(15));
-        segmentCard.setMaxWidth(200);
-        segmentCard.setPrefWidth(200);
-        segmentCard.setStyle(
-            "-fx-background-color: #f8f9fa;" +
-            "-fx-background-radius: 15;" +
-            "-fx-border-color: #e9ecef;" +
-            "-fx-border-width: 2;" +
-            "-fx-border-radius: 15;" +
-            "-fx-effect: dropshadow(gaussian, rgba(0,0,0,0.1), 10, 0, 0, 2);" +
-            "-fx-cursor: hand;"
-        );
-
-        // Add hover effect to segment card
-        segmentCard.setOnMouseEntered(e -> {
-            segmentCard.setStyle(
-                "-fx-background-color: #e8f4fd;" +
-                "-fx-background-radius: 15;" +
-                "-fx-border-color: #667eea;" +
-                "-fx-border-width: 2;" +
-                "-fx-border-radius: 15;" +
-                "-fx-effect: dropshadow(gaussian, rgba(102,126,234,0.3), 15, 0.3, 0, 4);" +
-                "-fx-cursor: hand;" +
-                "-fx-scale-x: 1.03;" +
-                "-fx-scale-y: 1.03;"
-            );
-        });
-
-        segmentCard.setOnMouseExited(e -> {
-            segmentCard.setStyle(
-                "-fx-background-color: #f8f9fa;" +
-                "-fx-background-radius: 15;" +
-                "-fx-border-color: #e9ecef;" +
-                "-fx-border-width: 2;" +
-                "-fx-border-radius: 15;" +
-                "-fx-effect: dropshadow(gaussian, rgba(0,0,0,0.1), 10, 0, 0, 2);" +
-                "-fx-cursor: hand;" +
-                "-fx-scale-x: 1.0;" +
-                "-fx-scale-y: 1.0;"
-            );
-        });
-
-        ImageView segmentImage = new ImageView();
-        segmentImage.setFitWidth(160);
-        segmentImage.setFitHeight(90);
-        segmentImage.setPreserveRatio(true);
-        segmentImage.setSmooth(true);
-
-        // Load image from file or URL
-        try {
-            Image image = new Image(getClass().getResource("/images/" + variant.getFilePath()).toExternalForm());
-            segmentImage.setImage(image);
-        } catch (Exception ex) {
-            // Fallback to placeholder if image not found
-            segmentImage.setImage(null);
-        }
-
-        // Overlay play icon on image
-        StackPane imageContainer = new StackPane();
-        imageContainer.getChildren().add(segmentImage);
-
-        Label playIcon = new Label("▶");
-        playIcon.setStyle(
-            "-fx-font-size: 24px;" +
-            "-fx-text-fill: rgba(255,255,255,0.9);" +
-            "-fx-background-color: rgba(0,0,0,0.5);" +
-            "-fx-background-radius: 50%;" +
-            "-fx-padding: 8;"
-        );
-        imageContainer.getChildren().add(playIcon);
-
-        // Segment info
-        Label segmentLabel = new Label(variant.getVariantName() + "  ⏱" + variant.getDuration() + " min");
-        segmentLabel.setStyle(
-            "-fx-font-size: 14px;" +
-            "-fx-text-fill: #2c3e50;" +
-            "-fx-font-weight: 600;"
-        );
-
-        segmentCard.getChildren().addAll(imageContainer, segmentLabel);
-        return segmentCard;
-    }
-    
     private void createProfileSpecPage() {
         profileSpecPage = new VBox(30);
         profileSpecPage.setAlignment(Pos.CENTER);
@@ -601,11 +246,7 @@ public void start(Stage stage) {
         
         // Header
         Label headerLabel = new Label("Complete Your Profile");
-        headerLabel.setStyle(
-            "-fx-font-size: 36px;" +
-            "-fx-text-fill: white;" +
-            "-fx-font-weight: 300;"
-        );
+        headerLabel.getStyleClass().add("page-title");
         
         // Main content card
         VBox contentCard = new VBox(25);
@@ -613,26 +254,14 @@ public void start(Stage stage) {
         contentCard.setMaxHeight(650);
         contentCard.setPadding(new Insets(40));
         contentCard.setAlignment(Pos.CENTER);
-        contentCard.setStyle(
-            "-fx-background-color: white;" +
-            "-fx-background-radius: 20;" +
-            "-fx-effect: dropshadow(gaussian, rgba(0,0,0,0.2), 20, 0, 0, 5);"
-        );
+        contentCard.getStyleClass().add("content-card");
         
         Label titleLabel = new Label("Help us personalize your experience");
-        titleLabel.setStyle(
-            "-fx-font-size: 24px;" +
-            "-fx-text-fill: #2c3e50;" +
-            "-fx-font-weight: 600;"
-        );
+        titleLabel.getStyleClass().add("card-title");
         
         Label descLabel = new Label("Answer a few questions to get a more personalized experience.");
         descLabel.setWrapText(true);
-        descLabel.setStyle(
-            "-fx-font-size: 16px;" +
-            "-fx-text-fill: #7f8c8d;" +
-            "-fx-text-alignment: center;"
-        );
+        descLabel.getStyleClass().add("description");
         
         // ScrollPane for questions
         ScrollPane scrollPane = new ScrollPane();
@@ -647,11 +276,7 @@ public void start(Stage stage) {
             VBox questionBox = new VBox(15);
             
             Label questionLabel = new Label(questionIndex++ + ". " + question);
-            questionLabel.setStyle(
-                "-fx-font-size: 16px;" +
-                "-fx-text-fill: #2c3e50;" +
-                "-fx-font-weight: 600;"
-            );
+            questionLabel.getStyleClass().add("question-label");
             
             HBox optionBox = new HBox(8);
             ToggleGroup group = new ToggleGroup();
@@ -662,10 +287,7 @@ public void start(Stage stage) {
                 
                 RadioButton radioButton = new RadioButton(optionText);
                 radioButton.setToggleGroup(group);
-                radioButton.setStyle(
-                    "-fx-text-fill: #2c3e50;" +
-                    "-fx-font-size: 14px;"
-                );
+                radioButton.getStyleClass().add("option-radio");
                 
                 radioButton.setOnAction(e -> {
                     answers.put(question, optionValue);
@@ -683,44 +305,23 @@ public void start(Stage stage) {
         scrollPane.setFitToWidth(true);
         scrollPane.setHbarPolicy(ScrollPane.ScrollBarPolicy.NEVER);
         scrollPane.setVbarPolicy(ScrollPane.ScrollBarPolicy.AS_NEEDED);
-        scrollPane.setStyle("-fx-background-color: transparent; -fx-background: transparent;");
+        scrollPane.getStyleClass().add("transparent-scroll");
         scrollPane.setPrefHeight(300);
         
         // Message label
         Label messageLabel = new Label();
-        messageLabel.setStyle("-fx-font-size: 13px;");
+        messageLabel.getStyleClass().add("message-label");
         
         // Buttons
         HBox buttonBox = new HBox(15);
         buttonBox.setAlignment(Pos.CENTER);
         
         Button skipButton = new Button("Skip for now");
-        skipButton.setStyle(
-            "-fx-background-color: transparent;" +
-            "-fx-text-fill: #7f8c8d;" +
-            "-fx-font-size: 14px;" +
-            "-fx-font-weight: 500;" +
-            "-fx-background-radius: 20;" +
-            "-fx-padding: 12 25;" +
-            "-fx-cursor: hand;" +
-            "-fx-border-color: #e9ecef;" +
-            "-fx-border-radius: 20;"
-        );
+        skipButton.getStyleClass().add("secondary-button");
         
         Button completeButton = new Button("Complete Profile");
-        completeButton.setStyle(
-            "-fx-background-color: linear-gradient(#667eea, #764ba2);" +
-            "-fx-text-fill: white;" +
-            "-fx-font-size: 16px;" +
-            "-fx-font-weight: 600;" +
-            "-fx-background-radius: 20;" +
-            "-fx-padding: 12 30;" +
-            "-fx-cursor: hand;" +
-            "-fx-border-color: transparent;"
-        );
+        completeButton.getStyleClass().addAll("primary-button", "pill");
         
-        addButtonHoverEffect(skipButton);
-        addButtonHoverEffect(completeButton);
         
         skipButton.setOnAction(e -> showHomePage());
         
@@ -733,10 +334,20 @@ public void start(Stage stage) {
                 return;
             }
             
-            controller.setAnswers(answers);
-            controller.completeProfile();
-            showHomePage();
-            showMessage(messageLabel, "Profile Completed.", true);
+            completeButton.setDisable(true);
+            Map<String, Integer> submitted = new HashMap<>(answers);
+            loader.load("profile", () -> {
+                controller.setAnswers(submitted);
+                controller.completeProfile();
+                return null;
+            }, ignored -> {
+                completeButton.setDisable(false);
+                showHomePage();
+                showMessage(messageLabel, "Profile Completed.", true);
+            }, ex -> {
+                completeButton.setDisable(false);
+                showMessage(messageLabel, "Something went wrong!", false);
+            });
         });
         
         buttonBox.getChildren().addAll(skipButton, completeButton);
@@ -774,36 +385,19 @@ public void start(Stage stage) {
         leftPanel.setPrefWidth(400);
         leftPanel.setPadding(new Insets(60, 40, 60, 40));
         leftPanel.setAlignment(Pos.CENTER);
-        leftPanel.setStyle(
-            "-fx-background-color: linear-gradient(#667eea, #764ba2);" +
-            "-fx-background-radius: 20 0 0 20;"
-        );
+        leftPanel.getStyleClass().add("brand-panel");
         
         // Logo/Brand area
         Label brandLabel = new Label("Fablemaze");
-        brandLabel.setStyle(
-            "-fx-font-size: 60px;" +
-            "-fx-text-fill: white;" +
-            "-fx-font-weight: 300;"
-        );
+        brandLabel.getStyleClass().add("brand-label");
         
         Label titleLabel = new Label("Welcome to Fablemaze");
-        titleLabel.setStyle(
-            "-fx-font-size: 30px;" +
-            "-fx-font-weight: 300;" +
-            "-fx-text-fill: white;" +
-            "-fx-font-family: 'Segoe UI Light';"
-        );
+        titleLabel.getStyleClass().add("brand-title");
         
         Label descriptionLabel = new Label("Your gateway to a personalized and adaptable film-watching experience.");
         descriptionLabel.setWrapText(true);
         descriptionLabel.setMaxWidth(300);
-        descriptionLabel.setStyle(
-            "-fx-font-size: 16px;" +
-            "-fx-text-fill: rgba(255,255,255,0.9);" +
-            "-fx-text-alignment: center;" +
-            "-fx-line-spacing: 5px;"
-        );
+        descriptionLabel.getStyleClass().add("brand-description");
         
         // Feature highlights
         VBox featuresBox = new VBox(15);
@@ -817,11 +411,7 @@ public void start(Stage stage) {
         
         for (String feature : features) {
             Label featureLabel = new Label(feature);
-            featureLabel.setStyle(
-                "-fx-font-size: 14px;" +
-                "-fx-text-fill: rgba(255,255,255,0.9);" +
-                "-fx-font-weight: 500;"
-            );
+            featureLabel.getStyleClass().add("brand-feature");
             featuresBox.getChildren().add(featureLabel);
         }
         
@@ -861,38 +451,14 @@ public void start(Stage stage) {
         // Toggle buttons
         HBox toggleBox = new HBox(0);
         toggleBox.setAlignment(Pos.CENTER);
-        toggleBox.setStyle(
-            "-fx-background-color: #f8f9fa;" +
-            "-fx-background-radius: 30;" +
-            "-fx-padding: 5;"
-        );
+        toggleBox.getStyleClass().add("auth-toggle-box");
         
         loginToggle = new Button("Sign In");
         signupToggle = new Button("Sign Up");
         
-        String activeStyle = 
-            "-fx-background-color: white;" +
-            "-fx-text-fill: #2c3e50;" +
-            "-fx-font-size: 14px;" +
-            "-fx-font-weight: 600;" +
-            "-fx-background-radius: 25;" +
-            "-fx-padding: 12 30;" +
-            "-fx-cursor: hand;" +
-            "-fx-border-color: transparent;" +
-            "-fx-effect: dropshadow(gaussian, rgba(0,0,0,0.1), 10, 0, 0, 2);";
-        
-        String inactiveStyle = 
-            "-fx-background-color: transparent;" +
-            "-fx-text-fill: #7f8c8d;" +
-            "-fx-font-size: 14px;" +
-            "-fx-font-weight: 500;" +
-            "-fx-background-radius: 25;" +
-            "-fx-padding: 12 30;" +
-            "-fx-cursor: hand;" +
-            "-fx-border-color: transparent;";
-        
-        loginToggle.setStyle(activeStyle);
-        signupToggle.setStyle(inactiveStyle);
+        loginToggle.getStyleClass().add("auth-toggle");
+        signupToggle.getStyleClass().add("auth-toggle");
+        loginToggle.pseudoClassStateChanged(ACTIVE, true);
         
         loginToggle.setOnAction(e -> switchToLogin());
         signupToggle.setOnAction(e -> switchToSignup());
@@ -900,10 +466,7 @@ public void start(Stage stage) {
         toggleBox.getChildren().addAll(loginToggle, signupToggle);
         
         Label subtitleLabel = new Label("Enter your details to continue");
-        subtitleLabel.setStyle(
-            "-fx-font-size: 14px;" +
-            "-fx-text-fill: #7f8c8d;"
-        );
+        subtitleLabel.getStyleClass().add("subtitle");
         
         headerBox.getChildren().addAll(toggleBox, subtitleLabel);
         return headerBox;
@@ -924,39 +487,21 @@ public void start(Stage stage) {
         
         // Remember me checkbox
         CheckBox rememberBox = new CheckBox("Remember me");
-        rememberBox.setStyle(
-            "-fx-text-fill: #7f8c8d;" +
-            "-fx-font-size: 13px;"
-        );
+        rememberBox.getStyleClass().add("remember-check");
         
         // Login button
         Button loginButton = new Button("Sign In");
-        loginButton.setStyle(
-            "-fx-background-color: linear-gradient(#667eea, #764ba2);" +
-            "-fx-text-fill: white;" +
-            "-fx-font-size: 16px;" +
-            "-fx-font-weight: 600;" +
-            "-fx-background-radius: 10;" +
-            "-fx-padding: 15 0;" +
-            "-fx-cursor: hand;" +
-            "-fx-border-color: transparent;"
-        );
+        loginButton.getStyleClass().add("primary-button");
         loginButton.setMaxWidth(Double.MAX_VALUE);
         
         // Message label
         Label messageLabel = new Label();
-        messageLabel.setStyle("-fx-font-size: 13px;");
+        messageLabel.getStyleClass().add("message-label");
         
         // Forgot password link
         Label forgotLabel = new Label("Forgot your password?");
-        forgotLabel.setStyle(
-            "-fx-text-fill: #667eea;" +
-            "-fx-font-size: 13px;" +
-            "-fx-cursor: hand;" +
-            "-fx-underline: true;"
-        );
+        forgotLabel.getStyleClass().add("forgot-link");
         
-        addButtonHoverEffect(loginButton);
         
         loginButton.setOnAction(e -> {
             String username = usernameField.getText().trim();
@@ -967,18 +512,24 @@ public void start(Stage stage) {
                 return;
             }
             
-            String result = controller.login(username, password);
-            
-            if (result.endsWith("Login successful!")) {
-                showMessage(messageLabel, result, true);
-                currentUsername = username;
-                usernameField.clear();
-                passwordField.clear();
-                showHomePage();
+            loginButton.setDisable(true);
+            loader.load("auth", () -> controller.login(username, password), result -> {
+                loginButton.setDisable(false);
                 
-            } else {
-                showMessage(messageLabel, result, false);
-            }
+                if (result.endsWith("Login successful!")) {
+                    showMessage(messageLabel, result, true);
+                    currentUsername = username;
+                    usernameField.clear();
+                    passwordField.clear();
+                    showHomePage();
+                    
+                } else {
+                    showMessage(messageLabel, result, false);
+                }
+            }, ex -> {
+                loginButton.setDisable(false);
+                showMessage(messageLabel, "Something went wrong!", false);
+            });
         });
         
         form.getChildren().addAll(
@@ -1010,26 +561,14 @@ public void start(Stage stage) {
         // Date of birth field
         VBox dobBox = new VBox(8);
         Label dobLabel = new Label("Date of Birth");
-        dobLabel.setStyle("-fx-font-size: 13px; -fx-text-fill: #2c3e50; -fx-font-weight: 600;");
+        dobLabel.getStyleClass().add("field-label");
         
         VBox dobFieldBox = new VBox();
-        dobFieldBox.setStyle(
-            "-fx-background-color: #f8f9fa;" +
-            "-fx-border-color: #e9ecef;" +
-            "-fx-border-width: 2;" +
-            "-fx-border-radius: 10;" +
-            "-fx-background-radius: 10;"
-        );
+        dobFieldBox.getStyleClass().add("input-box");
         
         DatePicker dobPicker = new DatePicker();
         dobPicker.setPromptText("Select your birth date");
-        dobPicker.setStyle(
-            "-fx-background-color: transparent;" +
-            "-fx-border-color: transparent;" +
-            "-fx-padding: 12;" +
-            "-fx-font-size: 14px;" +
-            "-fx-text-fill: #2c3e50;"
-        );
+        dobPicker.getStyleClass().add("input-field");
         dobPicker.setMaxWidth(Double.MAX_VALUE);
         
         dobFieldBox.getChildren().add(dobPicker);
@@ -1038,27 +577,15 @@ public void start(Stage stage) {
         // Gender field
         VBox genderBox = new VBox(8);
         Label genderLabel = new Label("Gender");
-        genderLabel.setStyle("-fx-font-size: 13px; -fx-text-fill: #2c3e50; -fx-font-weight: 600;");
+        genderLabel.getStyleClass().add("field-label");
         
         VBox genderFieldBox = new VBox();
-        genderFieldBox.setStyle(
-            "-fx-background-color: #f8f9fa;" +
-            "-fx-border-color: #e9ecef;" +
-            "-fx-border-width: 2;" +
-            "-fx-border-radius: 10;" +
-            "-fx-background-radius: 10;"
-        );
+        genderFieldBox.getStyleClass().add("input-box");
         
         ComboBox<String> genderComboBox = new ComboBox<>();
         genderComboBox.getItems().addAll("Male", "Female", "Non-binary", "Prefer not to say");
         genderComboBox.setPromptText("Select gender");
-        genderComboBox.setStyle(
-            "-fx-background-color: transparent;" +
-            "-fx-border-color: transparent;" +
-            "-fx-padding: 12;" +
-            "-fx-font-size: 14px;" +
-            "-fx-text-fill: #2c3e50;"
-        );
+        genderComboBox.getStyleClass().add("input-field");
         genderComboBox.setMaxWidth(Double.MAX_VALUE);
         
         genderFieldBox.getChildren().add(genderComboBox);
@@ -1067,29 +594,16 @@ public void start(Stage stage) {
         // Terms checkbox
         CheckBox termsBox = new CheckBox("I agree to the Terms of Service and Privacy Policy");
         termsBox.setWrapText(true);
-        termsBox.setStyle(
-            "-fx-text-fill: #7f8c8d;" +
-            "-fx-font-size: 12px;"
-        );
+        termsBox.getStyleClass().add("terms-check");
         
         // Signup button
         Button signupButton = new Button("Create Account");
-        signupButton.setStyle(
-            "-fx-background-color: linear-gradient(#667eea, #764ba2);" +
-            "-fx-text-fill: white;" +
-            "-fx-font-size: 16px;" +
-            "-fx-font-weight: 600;" +
-            "-fx-background-radius: 10;" +
-            "-fx-padding: 15 0;" +
-            "-fx-cursor: hand;" +
-            "-fx-border-color: transparent;"
-        );
+        signupButton.getStyleClass().add("primary-button");
         signupButton.setMaxWidth(Double.MAX_VALUE);
         
         Label messageLabel = new Label();
-        messageLabel.setStyle("-fx-font-size: 13px;");
+        messageLabel.getStyleClass().add("message-label");
         
-        addButtonHoverEffect(signupButton);
         
         signupButton.setOnAction(e -> {
             String username = usernameField.getText().trim();
@@ -1124,22 +638,28 @@ public void start(Stage stage) {
                 return;
             }
             
-            String result = controller.signUp(username, password, dob, gender);
-            
-            if (result.equals("Sign-Up successful!")) {
-                showMessage(messageLabel, result, true);
-                currentUsername = username;
-                usernameField.clear();
-                passwordField.clear();
-                confirmPasswordField.clear();
-                dobPicker.setValue(null);
-                genderComboBox.setValue(null);
-                termsBox.setSelected(false);
-                showProfileSpecPage();
+            signupButton.setDisable(true);
+            loader.load("auth", () -> controller.signUp(username, password, dob, gender), result -> {
+                signupButton.setDisable(false);
                 
-            } else {
-                showMessage(messageLabel, result, false);
-            }
+                if (result.equals("Sign-Up successful!")) {
+                    showMessage(messageLabel, result, true);
+                    currentUsername = username;
+                    usernameField.clear();
+                    passwordField.clear();
+                    confirmPasswordField.clear();
+                    dobPicker.setValue(null);
+                    genderComboBox.setValue(null);
+                    termsBox.setSelected(false);
+                    showProfileSpecPage();
+                    
+                } else {
+                    showMessage(messageLabel, result, false);
+                }
+            }, ex -> {
+                signupButton.setDisable(false);
+                showMessage(messageLabel, "Something went wrong!", false);
+            });
         });
         
         form.getChildren().addAll(
@@ -1152,7 +672,7 @@ public void start(Stage stage) {
         scrollPane.setFitToWidth(true);
         scrollPane.setHbarPolicy(ScrollPane.ScrollBarPolicy.NEVER);
         scrollPane.setVbarPolicy(ScrollPane.ScrollBarPolicy.AS_NEEDED);
-        scrollPane.setStyle("-fx-background-color: transparent; -fx-background: transparent;");
+        scrollPane.getStyleClass().add("transparent-scroll");
         scrollPane.setPrefHeight(400);
         
         VBox container = new VBox();
@@ -1164,16 +684,10 @@ public void start(Stage stage) {
         VBox fieldBox = new VBox(8);
         
         Label label = new Label(labelText);
-        label.setStyle("-fx-font-size: 13px; -fx-text-fill: #2c3e50; -fx-font-weight: 600;");
+        label.getStyleClass().add("field-label");
         
         VBox inputContainer = new VBox();
-        inputContainer.setStyle(
-            "-fx-background-color: #f8f9fa;" +
-            "-fx-border-color: #e9ecef;" +
-            "-fx-border-width: 2;" +
-            "-fx-border-radius: 10;" +
-            "-fx-background-radius: 10;"
-        );
+        inputContainer.getStyleClass().addAll("input-box", "text-input-box");
         
         TextField inputField;
         if (isPassword) {
@@ -1183,35 +697,7 @@ public void start(Stage stage) {
         }
         
         inputField.setPromptText(placeholder);
-        inputField.setStyle(
-            "-fx-background-color: transparent;" +
-            "-fx-border-color: transparent;" +
-            "-fx-padding: 12;" +
-            "-fx-font-size: 14px;" +
-            "-fx-text-fill: #2c3e50;" +
-            "-fx-prompt-text-fill: #95a5a6;"
-        );
-        
-        // Focus effects
-        inputField.focusedProperty().addListener((obs, wasFocused, isNowFocused) -> {
-            if (isNowFocused) {
-                inputContainer.setStyle(
-                    "-fx-background-color: #f8f9fa;" +
-                    "-fx-border-color: #667eea;" +
-                    "-fx-border-width: 2;" +
-                    "-fx-border-radius: 10;" +
-                    "-fx-background-radius: 10;"
-                );
-            } else {
-                inputContainer.setStyle(
-                    "-fx-background-color: #f8f9fa;" +
-                    "-fx-border-color: #e9ecef;" +
-                    "-fx-border-width: 2;" +
-                    "-fx-border-radius: 10;" +
-                    "-fx-background-radius: 10;"
-                );
-            }
-        });
+        inputField.getStyleClass().add("input-field");
         
         inputContainer.getChildren().add(inputField);
         fieldBox.getChildren().addAll(label, inputContainer);
@@ -1223,29 +709,9 @@ public void start(Stage stage) {
         if (!isLoginMode) {
             isLoginMode = true;
             
-            // Update toggle button styles
-            loginToggle.setStyle(
-                "-fx-background-color: white;" +
-                "-fx-text-fill: #2c3e50;" +
-                "-fx-font-size: 14px;" +
-                "-fx-font-weight: 600;" +
-                "-fx-background-radius: 25;" +
-                "-fx-padding: 12 30;" +
-                "-fx-cursor: hand;" +
-                "-fx-border-color: transparent;" +
-                "-fx-effect: dropshadow(gaussian, rgba(0,0,0,0.1), 10, 0, 0, 2);"
-            );
-            
-            signupToggle.setStyle(
-                "-fx-background-color: transparent;" +
-                "-fx-text-fill: #7f8c8d;" +
-                "-fx-font-size: 14px;" +
-                "-fx-font-weight: 500;" +
-                "-fx-background-radius: 25;" +
-                "-fx-padding: 12 30;" +
-                "-fx-cursor: hand;" +
-                "-fx-border-color: transparent;"
-            );
+            // Update toggle button states
+            loginToggle.pseudoClassStateChanged(ACTIVE, true);
+            signupToggle.pseudoClassStateChanged(ACTIVE, false);
             
             // Show login form
             loginForm.setVisible(true);
@@ -1257,29 +723,9 @@ public void start(Stage stage) {
         if (isLoginMode) {
             isLoginMode = false;
             
-            // Update toggle button styles
-            signupToggle.setStyle(
-                "-fx-background-color: white;" +
-                "-fx-text-fill: #2c3e50;" +
-                "-fx-font-size: 14px;" +
-                "-fx-font-weight: 600;" +
-                "-fx-background-radius: 25;" +
-                "-fx-padding: 12 30;" +
-                "-fx-cursor: hand;" +
-                "-fx-border-color: transparent;" +
-                "-fx-effect: dropshadow(gaussian, rgba(0,0,0,0.1), 10, 0, 0, 2);"
-            );
-            
-            loginToggle.setStyle(
-                "-fx-background-color: transparent;" +
-                "-fx-text-fill: #7f8c8d;" +
-                "-fx-font-size: 14px;" +
-                "-fx-font-weight: 500;" +
-                "-fx-background-radius: 25;" +
-                "-fx-padding: 12 30;" +
-                "-fx-cursor: hand;" +
-                "-fx-border-color: transparent;"
-            );
+            // Update toggle button states
+            signupToggle.pseudoClassStateChanged(ACTIVE, true);
+            loginToggle.pseudoClassStateChanged(ACTIVE, false);
             
             // Show signup form
             signupForm.setVisible(true);
@@ -1289,21 +735,8 @@ public void start(Stage stage) {
     
     private void showMessage(Label messageLabel, String message, boolean isSuccess) {
         messageLabel.setText(message);
-        if (isSuccess) {
-            messageLabel.setStyle("-fx-text-fill: #27ae60; -fx-font-size: 13px; -fx-font-weight: 500;");
-        } else {
-            messageLabel.setStyle("-fx-text-fill: #e74c3c; -fx-font-size: 13px; -fx-font-weight: 500;");
-        }
-    }
-    
-    private void addButtonHoverEffect(Button button) {
-        String originalStyle = button.getStyle();
-        button.setOnMouseEntered(e -> {
-            button.setStyle(button.getStyle() + "-fx-scale-x: 1.02; -fx-scale-y: 1.02;");
-        });
-        button.setOnMouseExited(e -> {
-            button.setStyle(originalStyle);
-        });
+        messageLabel.pseudoClassStateChanged(SUCCESS, isSuccess);
+        messageLabel.pseudoClassStateChanged(ERROR, !isSuccess);
     }
     
     public static void main(String[] args) {
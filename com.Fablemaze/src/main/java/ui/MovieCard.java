@@ -0,0 +1,142 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package ui;
+
+import java.util.function.Consumer;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.CacheHint;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.VBox;
+import javafx.scene.text.TextAlignment;
+import model.Movie;
+
+/**
+ * Home page card for one movie. The nodes are built once and bind() points them at another
+ * movie, so MovieGrid can recycle a card as rows scroll in and out of view.
+ * Looks, hover included, come from the movie-card rules in fablemaze.css. The card is cached
+ * as a bitmap, so the hover scale and scrolling redraw it without re-rendering its drop shadow.
+ * The hint is SCALE, the only transform the card gets; SPEED would also let the cached bitmap
+ * stand in through other changes, at the cost of blurred text.
+ */
+class MovieCard extends VBox {
+
+    private final Label titleLabel = new Label();
+    private final HBox yearBox = new HBox(8);
+    private final Label yearLabel = new Label();
+    private final HBox genreBox = new HBox(8);
+    private final Label genreLabel = new Label();
+    private final HBox durationBox = new HBox(8);
+    private final Label durationLabel = new Label();
+
+    private Movie movie;
+
+    MovieCard(Consumer<Movie> onWatch) {
+        super(12);
+        setAlignment(Pos.TOP_CENTER);
+        setPadding(new Insets(20));
+        setMaxWidth(280);
+        setPrefWidth(280);
+        setMinHeight(220);
+        setPrefHeight(220);
+        getStyleClass().add("movie-card");
+        setCache(true);
+        setCacheHint(CacheHint.SCALE);
+
+        // Movie title with better text handling
+        titleLabel.setWrapText(true);
+        titleLabel.setMaxWidth(240);
+        titleLabel.setMaxHeight(50);
+        titleLabel.setAlignment(Pos.CENTER);
+        titleLabel.setTextAlignment(TextAlignment.CENTER);
+        titleLabel.getStyleClass().add("movie-title");
+
+        // Content area for movie details
+        VBox contentArea = new VBox(8);
+        contentArea.setAlignment(Pos.CENTER);
+        contentArea.setFillWidth(true);
+        VBox.setVgrow(contentArea, Priority.ALWAYS);
+
+        VBox detailsBox = new VBox(6);
+        detailsBox.setAlignment(Pos.CENTER);
+        detailsBox.setMaxWidth(240);
+
+        Label yearIcon = new Label("📅");
+        yearIcon.getStyleClass().add("movie-icon");
+        yearLabel.getStyleClass().add("movie-detail");
+        yearBox.setAlignment(Pos.CENTER);
+        yearBox.getChildren().addAll(yearIcon, yearLabel);
+
+        Label genreIcon = new Label("🎭");
+        genreIcon.getStyleClass().add("movie-icon");
+        genreLabel.setWrapText(true);
+        genreLabel.setMaxWidth(200);
+        genreLabel.setTextAlignment(TextAlignment.CENTER);
+        genreLabel.getStyleClass().add("movie-detail");
+        genreBox.setAlignment(Pos.CENTER);
+        genreBox.getChildren().addAll(genreIcon, genreLabel);
+
+        durationLabel.getStyleClass().add("movie-detail");
+        durationBox.setAlignment(Pos.CENTER);
+        durationBox.getChildren().add(durationLabel);
+
+        detailsBox.getChildren().addAll(yearBox, genreBox, durationBox);
+        contentArea.getChildren().add(detailsBox);
+
+        // Spacer to push button to bottom
+        Region spacer = new Region();
+        VBox.setVgrow(spacer, Priority.ALWAYS);
+        contentArea.getChildren().add(spacer);
+
+        Button watchButton = new Button("▶ Watch Now");
+        watchButton.setMaxWidth(Double.MAX_VALUE);
+        watchButton.getStyleClass().add("watch-button");
+        watchButton.setOnAction(e -> {
+            if (movie != null) {
+                onWatch.accept(movie);
+            }
+        });
+
+        getChildren().addAll(titleLabel, contentArea, watchButton);
+    }
+
+    // Shows another movie in the same nodes; details the movie doesn't have are left out
+    void bind(Movie movie) {
+        this.movie = movie;
+        titleLabel.setText(movie.getTitle());
+
+        boolean hasYear = movie.getReleaseYear() != null;
+        show(yearBox, hasYear);
+        yearLabel.setText(hasYear ? movie.getReleaseYear().toString() : "");
+
+        boolean hasGenres = movie.getGenres() != null && !movie.getGenres().isEmpty();
+        show(genreBox, hasGenres);
+        genreLabel.setText(hasGenres ? truncateText(movie.getGenres(), 20) : "");
+
+        boolean hasDuration = movie.getDuration() != null;
+        show(durationBox, hasDuration);
+        durationLabel.setText(hasDuration ? "⏱ " + movie.getDuration() + " min" : "");
+    }
+
+    Movie getMovie() {
+        return movie;
+    }
+
+    private static void show(Region region, boolean visible) {
+        region.setVisible(visible);
+        region.setManaged(visible);
+    }
+
+    // Helper method to truncate long text
+    private static String truncateText(String text, int maxLength) {
+        if (text == null) return "";
+        if (text.length() <= maxLength) return text;
+        return text.substring(0, maxLength - 3) + "...";
+    }
+}
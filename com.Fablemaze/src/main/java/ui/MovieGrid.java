@@ -0,0 +1,261 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package ui;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import javafx.geometry.Pos;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.layout.HBox;
+import model.Movie;
+
+/**
+ * Home page movie grid that only has nodes for the rows on screen.
+ * It is a ListView whose items are row numbers; the VirtualFlow underneath creates a RowCell per
+ * visible row and rebinds the same cells, and their MovieCards, as the user scrolls. Movies are
+ * fetched a page at a time through the UiDataLoader when a row of that page first comes into
+ * view, and only the most recently used pages are kept, so nodes and heap stay flat whatever
+ * the size of the catalog. Rows whose page hasn't arrived yet show skeleton cards. A page load
+ * is cancelled once no row on screen needs it, so dragging the scrollbar through a large catalog
+ * doesn't leave a query per page passed queued ahead of the loader's other channels.
+ * Call from the FX thread only.
+ */
+class MovieGrid extends ListView<Integer> {
+
+    // One page of the catalog in display order; runs on the loader thread, null on failure.
+    // afterMovieId is the last movie of the page before if that page is loaded, else 0
+    interface PageSource {
+        List<Movie> page(int offset, int limit, int afterMovieId);
+    }
+
+    private static final double CARD_WIDTH = 280;
+    private static final double CARD_HEIGHT = 220;
+    private static final double ROW_GAP = 20;
+
+    private final IntSupplier countSource;
+    private final PageSource pageSource;
+    private final UiDataLoader loader;
+    private final Consumer<Movie> onWatch;
+    private final int columns;
+    private final int pageSize;
+
+    private int movieCount;
+    private final Map<Integer, List<Movie>> pages;
+    private final Set<Integer> requested = new HashSet<>();
+    private final Set<RowCell> cells = Collections.newSetFromMap(new WeakHashMap<>());
+
+    // Metrics
+    private long cellsCreated;
+    private long rowsBound;
+    private long pagesLoaded;
+    private long pagesCancelled;
+
+    MovieGrid(IntSupplier countSource, PageSource pageSource, UiDataLoader loader, Consumer<Movie> onWatch,
+              int columns, int pageRows, int maxPages) {
+        this.countSource = countSource;
+        this.pageSource = pageSource;
+        this.loader = loader;
+        this.onWatch = onWatch;
+        this.columns = Math.max(1, columns);
+        // Whole rows per page, so a row never spans two pages
+        this.pageSize = this.columns * Math.max(1, pageRows);
+
+        int capacity = Math.max(2, maxPages);
+        this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<Movie>> eldest) {
+                return size() > capacity;
+            }
+        };
+
+        setFixedCellSize(CARD_HEIGHT + ROW_GAP);
+        setFocusTraversable(false);
+        getStyleClass().add("movie-grid");
+        setCellFactory(view -> {
+            RowCell cell = new RowCell();
+            cells.add(cell);
+            cellsCreated++;
+            return cell;
+        });
+
+        // Two rows of skeletons until the count arrives
+        getItems().setAll(0, 1);
+    }
+
+    // Configured through -Dfablemaze.ui.moviePageRows and -Dfablemaze.ui.moviePagesCached
+    static MovieGrid fromSystemProperties(IntSupplier countSource, PageSource pageSource, UiDataLoader loader,
+                                          Consumer<Movie> onWatch) {
+        return new MovieGrid(countSource, pageSource, loader, onWatch, 3,
+                Integer.getInteger("fablemaze.ui.moviePageRows", 10),
+                Integer.getInteger("fablemaze.ui.moviePagesCached", 8));
+    }
+
+    // Re-reads the catalog size and drops every loaded page
+    void reload() {
+        loader.load("movies", () -> {
+            int count = countSource.getAsInt();
+            if (count < 0) {
+                throw new IllegalStateException("movie count unavailable");
+            }
+            return count;
+        }, count -> {
+            movieCount = count;
+            pages.clear();
+            requested.clear();
+
+            List<Integer> rows = new ArrayList<>((count + columns - 1) / columns);
+            for (int row = 0; row * columns < count; row++) {
+                rows.add(row);
+            }
+            setPlaceholder(Placeholders.loadError("No movies yet."));
+            getItems().setAll(rows);
+        }, ex -> {
+            setPlaceholder(Placeholders.loadError("Couldn't load movies."));
+            getItems().clear();
+        });
+    }
+
+    private void requestPage(int page) {
+        if (page < 0 || page * pageSize >= movieCount || pages.containsKey(page) || !requested.add(page)) {
+            return;
+        }
+        int offset = page * pageSize;
+        // Scrolling down, the page before is usually loaded and the next one can seek past its last movie
+        List<Movie> previous = pages.get(page - 1);
+        int afterMovieId = previous != null && previous.size() == pageSize ? previous.get(pageSize - 1).getMovieId() : 0;
+        loader.load(pageChannel(page), () -> {
+            List<Movie> movies = pageSource.page(offset, pageSize, afterMovieId);
+            if (movies == null) {
+                throw new IllegalStateException("page " + page + " unavailable");
+            }
+            return movies;
+        }, movies -> {
+            requested.remove(page);
+            pages.put(page, movies);
+            pagesLoaded++;
+            // Only the cells waiting on this page change
+            for (RowCell cell : new ArrayList<>(cells)) {
+                if (cell.waitingFor == page) {
+                    cell.bindRow(cell.getItem());
+                }
+            }
+        }, ex -> requested.remove(page));
+    }
+
+    private static String pageChannel(int page) {
+        return "movies:page:" + page;
+    }
+
+    // Cancels the requested pages outside those of the rows on screen and the page after them
+    private void cancelUnwantedPages(RowCell binding) {
+        if (requested.isEmpty()) {
+            return;
+        }
+        int first = Integer.MAX_VALUE;
+        int last = -1;
+        for (RowCell cell : cells) {
+            // Cells the VirtualFlow keeps spare are invisible but still hold their last row
+            if ((cell == binding || cell.isVisible()) && !cell.isEmpty() && cell.getItem() != null) {
+                int page = cell.getItem() * columns / pageSize;
+                first = Math.min(first, page);
+                last = Math.max(last, page + 1);
+            }
+        }
+        for (Iterator<Integer> it = requested.iterator(); it.hasNext(); ) {
+            int page = it.next();
+            if (page < first || page > last) {
+                loader.cancel(pageChannel(page));
+                it.remove();
+                pagesCancelled++;
+            }
+        }
+    }
+
+    private final class RowCell extends ListCell<Integer> {
+
+        private final HBox cardsRow = new HBox(20);
+        private final HBox skeletonRow = new HBox(20);
+        private final MovieCard[] cards = new MovieCard[columns];
+        int waitingFor = -1;
+
+        RowCell() {
+            cardsRow.setAlignment(Pos.CENTER);
+            skeletonRow.setAlignment(Pos.CENTER);
+            for (int i = 0; i < columns; i++) {
+                cards[i] = new MovieCard(onWatch);
+                cardsRow.getChildren().add(cards[i]);
+                skeletonRow.getChildren().add(Placeholders.skeletonCard(CARD_WIDTH, CARD_HEIGHT, 0));
+            }
+            setText(null);
+        }
+
+        @Override
+        protected void updateItem(Integer row, boolean empty) {
+            super.updateItem(row, empty);
+            if (empty || row == null) {
+                waitingFor = -1;
+                setGraphic(null);
+            } else {
+                bindRow(row);
+            }
+            cancelUnwantedPages(this);
+        }
+
+        void bindRow(int row) {
+            int offset = row * columns;
+            int page = offset / pageSize;
+            List<Movie> movies = pages.get(page);
+
+            if (movies == null) {
+                waitingFor = page;
+                setGraphic(skeletonRow);
+                requestPage(page);
+                return;
+            }
+
+            waitingFor = -1;
+            rowsBound++;
+            int first = offset - page * pageSize;
+            for (int i = 0; i < columns; i++) {
+                boolean filled = first + i < movies.size();
+                if (filled) {
+                    cards[i].bind(movies.get(first + i));
+                }
+                // Keeps the last row's cards in their columns
+                cards[i].setVisible(filled);
+            }
+            setGraphic(cardsRow);
+
+            // Two rows before the end of a page, fetch the next one
+            if (offset + 2 * columns >= (page + 1) * pageSize) {
+                requestPage(page + 1);
+            }
+        }
+    }
+
+    // Metrics
+    int getMovieCount() { return movieCount; }
+    int getLoadedPages() { return pages.size(); }
+    long getCellsCreated() { return cellsCreated; }
+    long getRowsBound() { return rowsBound; }
+    long getPagesLoaded() { return pagesLoaded; }
+    long getPagesCancelled() { return pagesCancelled; }
+
+    @Override
+    public String toString() {
+        return String.format("MovieGrid[movies=%d pagesLoaded=%d pagesCancelled=%d pagesCached=%d cells=%d rowsBound=%d]",
+                getMovieCount(), getPagesLoaded(), getPagesCancelled(), getLoadedPages(), getCellsCreated(), getRowsBound());
+    }
+}
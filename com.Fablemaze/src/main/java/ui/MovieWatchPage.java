@@ -0,0 +1,201 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package ui;
+
+import java.util.ArrayList;
+import java.util.List;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.VBox;
+import model.Movie;
+import model.SceneVariant;
+
+/**
+ * The watch page, built once for the life of the window.
+ * Opening a movie only rebinds it: the title changes and segment cards from a pool are bound to
+ * the new sequence. The pool, and the skeleton cards shown while a sequence is planned, only grow
+ * to the longest sequence shown so far, so the node count stays flat however many movies are opened.
+ * Scenes are watched in order: the first card not yet watched is the current one. Its outcome goes
+ * to the SceneOutcomeListener, and the re-planned rest of the sequence comes back through
+ * showRemaining(), which rebinds the cards after it.
+ * Call from the FX thread only.
+ */
+class MovieWatchPage extends VBox {
+
+    // position is the scene's place in the sequence, from 0
+    interface SceneOutcomeListener {
+        void sceneEnded(int position, SceneVariant variant, boolean droppedOff);
+    }
+
+    private final ThumbnailService thumbnails;
+    private final SceneOutcomeListener onSceneEnded;
+    private final Label movieTitleLabel = new Label();
+    private final HBox segmentsContainer = new HBox(20);
+    private final List<SegmentCard> cards = new ArrayList<>();
+    private final List<VBox> skeletons = new ArrayList<>();
+    private final Label errorLabel = Placeholders.loadError("");
+
+    private Movie movie;
+    private int shown;
+    private int watched;
+
+    // Metrics
+    private long moviesShown;
+    private long cardsBound;
+    private long outcomes;
+    private long replans;
+
+    MovieWatchPage(ThumbnailService thumbnails, Runnable onBack, SceneOutcomeListener onSceneEnded) {
+        super(30);
+        this.thumbnails = thumbnails;
+        this.onSceneEnded = onSceneEnded;
+        setAlignment(Pos.CENTER);
+        setPadding(new Insets(30));
+
+        // Header with back button and movie title
+        HBox header = new HBox();
+        header.setAlignment(Pos.CENTER_LEFT);
+        header.setPadding(new Insets(0, 0, 30, 0));
+
+        Button backButton = new Button("← Back to Movies");
+        backButton.getStyleClass().add("ghost-button");
+        backButton.setOnAction(e -> onBack.run());
+
+        Region spacer = new Region();
+        HBox.setHgrow(spacer, Priority.ALWAYS);
+
+        movieTitleLabel.getStyleClass().add("watch-title");
+
+        header.getChildren().addAll(backButton, spacer, movieTitleLabel);
+
+        // Main content card
+        VBox contentCard = new VBox(25);
+        contentCard.setMaxWidth(1200);
+        contentCard.setPadding(new Insets(40));
+        contentCard.setAlignment(Pos.CENTER);
+        contentCard.getStyleClass().addAll("content-card", "soft");
+
+        // Container for the segment images
+        segmentsContainer.setAlignment(Pos.CENTER);
+        segmentsContainer.setPadding(new Insets(20, 0, 20, 0));
+
+        // Optional: Add scroll pane if segments might overflow
+        ScrollPane segmentsScrollPane = new ScrollPane(segmentsContainer);
+        segmentsScrollPane.setFitToHeight(true);
+        segmentsScrollPane.setHbarPolicy(ScrollPane.ScrollBarPolicy.AS_NEEDED);
+        segmentsScrollPane.setVbarPolicy(ScrollPane.ScrollBarPolicy.NEVER);
+        segmentsScrollPane.getStyleClass().add("transparent-scroll");
+
+        contentCard.getChildren().add(segmentsScrollPane);
+        getChildren().addAll(header, contentCard);
+    }
+
+    // Switches to movie, with skeleton cards until showSegments() has its sequence
+    void showMovie(Movie movie) {
+        this.movie = movie;
+        shown = 0;
+        watched = 0;
+        moviesShown++;
+        movieTitleLabel.setText(movie.getTitle());
+
+        int count = Math.max(1, movie.getSceneCount());
+        while (skeletons.size() < count) {
+            skeletons.add(Placeholders.skeletonCard(200, 0, 90));
+        }
+        segmentsContainer.getChildren().setAll(skeletons.subList(0, count));
+    }
+
+    void showSegments(List<SceneVariant> segments) {
+        ensureCards(segments.size());
+        for (int i = 0; i < segments.size(); i++) {
+            cards.get(i).bind(segments.get(i));
+        }
+        cardsBound += segments.size();
+        watched = 0;
+        showCards(segments.size());
+    }
+
+    /**
+     * Rebinds the cards from position on to the re-planned remaining sequence of movie.
+     * Ignored if another movie is showing, or if a later scene has ended since, whose own
+     * re-plan follows; an empty list (nothing re-planned) leaves the cards as they are.
+     */
+    void showRemaining(Movie movie, int position, List<SceneVariant> remaining) {
+        if (movie != this.movie || position != watched || remaining.isEmpty()) {
+            return;
+        }
+        int total = position + remaining.size();
+        ensureCards(total);
+        for (int i = 0; i < remaining.size(); i++) {
+            cards.get(position + i).bind(remaining.get(i));
+        }
+        cardsBound += remaining.size();
+        replans++;
+        if (total != shown) {
+            showCards(total);
+        } else {
+            updateProgress();
+        }
+    }
+
+    void showError(String message) {
+        shown = 0;
+        errorLabel.setText(message);
+        segmentsContainer.getChildren().setAll(errorLabel);
+    }
+
+    Movie getMovie() {
+        return movie;
+    }
+
+    private void ensureCards(int count) {
+        while (cards.size() < count) {
+            cards.add(new SegmentCard(thumbnails, this::cardEnded));
+        }
+    }
+
+    private void showCards(int count) {
+        shown = count;
+        segmentsContainer.getChildren().setAll(cards.subList(0, count));
+        updateProgress();
+    }
+
+    private void cardEnded(SegmentCard card, SceneVariant variant, boolean droppedOff) {
+        int position = watched;
+        if (position >= shown || cards.get(position) != card) {
+            return;
+        }
+        watched++;
+        outcomes++;
+        updateProgress();
+        onSceneEnded.sceneEnded(position, variant, droppedOff);
+    }
+
+    private void updateProgress() {
+        for (int i = 0; i < shown; i++) {
+            cards.get(i).setProgress(i < watched, i == watched);
+        }
+    }
+
+    // Metrics
+    int getPooledCards() { return cards.size(); }
+    int getPooledSkeletons() { return skeletons.size(); }
+    long getMoviesShown() { return moviesShown; }
+    long getCardsBound() { return cardsBound; }
+    long getOutcomes() { return outcomes; }
+    long getReplans() { return replans; }
+
+    @Override
+    public String toString() {
+        return String.format("MovieWatchPage[movies=%d cardsBound=%d outcomes=%d replans=%d pooledCards=%d pooledSkeletons=%d]",
+                getMoviesShown(), getCardsBound(), getOutcomes(), getReplans(), getPooledCards(), getPooledSkeletons());
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package ui;
+
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.Label;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.VBox;
+
+// Stand-ins shown while a page's data loads in the background, or when it couldn't be loaded
+final class Placeholders {
+
+    private Placeholders() {
+    }
+
+    // Grey stand-in card; height 0 lets it size to its content, imageHeight 0 leaves out the image block
+    static VBox skeletonCard(double width, double height, double imageHeight) {
+        VBox skeleton = new VBox(12);
+        skeleton.setAlignment(Pos.CENTER);
+        skeleton.setPadding(new Insets(20));
+        skeleton.setPrefWidth(width);
+        skeleton.setMaxWidth(width);
+        if (height > 0) {
+            skeleton.setMinHeight(height);
+            skeleton.setPrefHeight(height);
+        }
+        skeleton.getStyleClass().add("skeleton");
+
+        if (imageHeight > 0) {
+            Region image = new Region();
+            image.setPrefSize(160, imageHeight);
+            image.setMaxSize(160, imageHeight);
+            image.getStyleClass().add("skeleton-image");
+            skeleton.getChildren().add(image);
+        }
+
+        for (double barWidth : new double[] { width * 0.7, width * 0.45 }) {
+            Region bar = new Region();
+            bar.setPrefSize(barWidth, 14);
+            bar.setMaxSize(barWidth, 14);
+            bar.getStyleClass().add("skeleton-bar");
+            skeleton.getChildren().add(bar);
+        }
+        return skeleton;
+    }
+
+    static Label loadError(String message) {
+        Label errorLabel = new Label(message);
+        errorLabel.getStyleClass().add("load-error");
+        return errorLabel;
+    }
+}
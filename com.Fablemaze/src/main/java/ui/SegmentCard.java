@@ -0,0 +1,99 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package ui;
+
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.css.PseudoClass;
+import javafx.scene.CacheHint;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.StackPane;
+import javafx.scene.layout.VBox;
+import model.SceneVariant;
+
+/**
+ * Watch page card for one scene variant. Built once and rebound by MovieWatchPage, which keeps
+ * a pool of them across movies instead of building new cards for every movie opened.
+ * The card of the scene being watched is :current; playing it through or skipping it reports
+ * the scene's outcome. Cards of scenes already seen are :watched.
+ * Styled by the segment-card rules in fablemaze.css and, like MovieCard, cached for its hover scale.
+ */
+class SegmentCard extends VBox {
+
+    private static final PseudoClass CURRENT = PseudoClass.getPseudoClass("current");
+    private static final PseudoClass WATCHED = PseudoClass.getPseudoClass("watched");
+
+    // Outcome of this card's scene: watched to the end, or dropped part way
+    interface OutcomeListener {
+        void sceneEnded(SegmentCard card, SceneVariant variant, boolean droppedOff);
+    }
+
+    private final ThumbnailService thumbnails;
+    private final ImageView segmentImage = new ImageView();
+    private final Label segmentLabel = new Label();
+    private final Button skipButton = new Button("Skip scene");
+
+    private SceneVariant variant;
+    private boolean current;
+
+    SegmentCard(ThumbnailService thumbnails, OutcomeListener onEnded) {
+        super(12);
+        this.thumbnails = thumbnails;
+        setAlignment(Pos.CENTER);
+        setPadding(new Insets(15));
+        setMaxWidth(200);
+        setPrefWidth(200);
+        getStyleClass().add("segment-card");
+        setCache(true);
+        setCacheHint(CacheHint.SCALE);
+
+        segmentImage.setFitWidth(ThumbnailService.WIDTH);
+        segmentImage.setFitHeight(ThumbnailService.HEIGHT);
+        segmentImage.setPreserveRatio(true);
+        segmentImage.setSmooth(true);
+
+        // Overlay play icon on image
+        StackPane imageContainer = new StackPane();
+        imageContainer.getChildren().add(segmentImage);
+
+        Label playIcon = new Label("▶");
+        playIcon.getStyleClass().add("play-icon");
+        imageContainer.getChildren().add(playIcon);
+        imageContainer.setOnMouseClicked(e -> {
+            if (current) {
+                onEnded.sceneEnded(this, variant, false);
+            }
+        });
+
+        segmentLabel.getStyleClass().add("segment-label");
+
+        // Only shown on the current card; kept in the layout so cards don't change height
+        skipButton.getStyleClass().add("skip-button");
+        skipButton.setVisible(false);
+        skipButton.setOnAction(e -> {
+            if (current) {
+                onEnded.sceneEnded(this, variant, true);
+            }
+        });
+
+        getChildren().addAll(imageContainer, segmentLabel, skipButton);
+    }
+
+    void bind(SceneVariant variant) {
+        this.variant = variant;
+        // Placeholder now, the downsampled thumbnail once it's decoded
+        thumbnails.bind(segmentImage, variant.getFilePath());
+        segmentLabel.setText(variant.getVariantName() + "  ⏱" + variant.getDuration() + " min");
+    }
+
+    void setProgress(boolean watched, boolean current) {
+        this.current = current;
+        pseudoClassStateChanged(WATCHED, watched);
+        pseudoClassStateChanged(CURRENT, current);
+        skipButton.setVisible(current);
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package ui;
+
+import java.io.ByteArrayInputStream;
+import java.net.URL;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import util.LatencyHistogram;
+
+/**
+ * Scene thumbnails for every page, decoded straight to the size they are shown at.
+ * Images are decoded on background threads with requestedWidth/Height, so a 1080p still costs a
+ * 160x90 bitmap instead of a full-resolution one, and kept in an LRU bounded by decoded bytes
+ * (width x height x 4). Concurrent requests for the same file share one decode. Bytes already
+ * fetched by ScenePrefetcher are decoded from memory instead of being read again.
+ * An ImageView shows a shared placeholder until its image is ready.
+ */
+public class ThumbnailService implements AutoCloseable {
+
+    public static final int WIDTH = 160;
+    public static final int HEIGHT = 90;
+
+    // ImageView property naming the file the view is currently bound to
+    private static final String BOUND_PATH = "thumbnail.path";
+
+    private final Function<String, byte[]> prefetched;
+    private final long maxBytes;
+    private final ThreadPoolExecutor executor;
+    private final Image placeholder = createPlaceholder();
+
+    // Guarded by itself
+    private final LinkedHashMap<String, Image> images = new LinkedHashMap<>(64, 0.75f, true);
+    private long cachedBytes;
+
+    private final Map<String, CompletableFuture<Image>> inFlight = new ConcurrentHashMap<>();
+
+    // Metrics
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder collapsed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder fromPrefetch = new LongAdder();
+    private final LatencyHistogram decodeLatency = new LatencyHistogram();
+
+    public ThumbnailService(Function<String, byte[]> prefetched, long maxBytes, int threads) {
+        this.prefetched = prefetched;
+        this.maxBytes = Math.max(0, maxBytes);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "thumbnail-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    // Configured through -Dfablemaze.thumbnails.* system properties
+    public static ThumbnailService fromSystemProperties(Function<String, byte[]> prefetched) {
+        return new ThumbnailService(
+            prefetched,
+            Long.getLong("fablemaze.thumbnails.maxBytes", 32L * 1024 * 1024),
+            Math.max(1, Integer.getInteger("fablemaze.thumbnails.threads", 2))
+        );
+    }
+
+    /**
+     * Shows filePath's thumbnail in view: at once if cached, otherwise the placeholder until it is
+     * decoded. Rebinding the view to another file before then drops the stale result.
+     * Call from the FX thread.
+     */
+    public void bind(ImageView view, String filePath) {
+        view.getProperties().put(BOUND_PATH, filePath);
+        if (filePath == null) {
+            view.setImage(placeholder);
+            return;
+        }
+
+        Image cached = lookup(filePath);
+        if (cached != null) {
+            view.setImage(cached);
+            return;
+        }
+
+        view.setImage(placeholder);
+        load(filePath).thenAccept(image -> {
+            if (image != null) {
+                Platform.runLater(() -> {
+                    if (filePath.equals(view.getProperties().get(BOUND_PATH))) {
+                        view.setImage(image);
+                    }
+                });
+            }
+        });
+    }
+
+    // The decoded thumbnail; completes with null if the file doesn't exist or can't be decoded
+    public CompletableFuture<Image> get(String filePath) {
+        Image cached = lookup(filePath);
+        return cached != null ? CompletableFuture.completedFuture(cached) : load(filePath);
+    }
+
+    private Image lookup(String filePath) {
+        Image image;
+        synchronized (images) {
+            image = images.get(filePath);
+        }
+        if (image != null) {
+            hits.increment();
+        }
+        return image;
+    }
+
+    private CompletableFuture<Image> load(String filePath) {
+        CompletableFuture<Image> created = new CompletableFuture<>();
+        CompletableFuture<Image> existing = inFlight.putIfAbsent(filePath, created);
+        if (existing != null) {
+            collapsed.increment();
+            return existing;
+        }
+
+        misses.increment();
+        try {
+            executor.execute(() -> {
+                Image image = null;
+                try {
+                    image = decode(filePath);
+                    if (image != null) {
+                        store(filePath, image);
+                    }
+                } catch (RuntimeException e) {
+                    failed.increment();
+                    System.err.println("Thumbnail " + filePath + " failed: " + e.getMessage());
+                } finally {
+                    inFlight.remove(filePath, created);
+                    created.complete(image);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Closed
+            inFlight.remove(filePath, created);
+            created.complete(null);
+        }
+        return created;
+    }
+
+    private Image decode(String filePath) {
+        long start = System.nanoTime();
+        Image image;
+        byte[] bytes = prefetched == null ? null : prefetched.apply(filePath);
+        if (bytes != null) {
+            fromPrefetch.increment();
+            image = new Image(new ByteArrayInputStream(bytes), WIDTH, HEIGHT, true, true);
+        } else {
+            URL url = ThumbnailService.class.getResource("/images/" + filePath);
+            if (url == null) {
+                return null;
+            }
+            // Already on a worker thread, so load synchronously and time the whole decode
+            image = new Image(url.toExternalForm(), WIDTH, HEIGHT, true, true, false);
+        }
+        decodeLatency.record(System.nanoTime() - start);
+
+        if (image.isError()) {
+            failed.increment();
+            return null;
+        }
+        return image;
+    }
+
+    private void store(String filePath, Image image) {
+        long size = sizeOf(image);
+        if (size > maxBytes) {
+            return;
+        }
+        synchronized (images) {
+            Image previous = images.put(filePath, image);
+            if (previous != null) {
+                cachedBytes -= sizeOf(previous);
+            }
+            cachedBytes += size;
+
+            Iterator<Image> eldest = images.values().iterator();
+            while (cachedBytes > maxBytes && eldest.hasNext()) {
+                cachedBytes -= sizeOf(eldest.next());
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    // Decoded size; JavaFX keeps 4 bytes per pixel
+    private static long sizeOf(Image image) {
+        return (long) image.getWidth() * (long) image.getHeight() * 4;
+    }
+
+    // Flat light grey, shared by every view still waiting
+    private static Image createPlaceholder() {
+        WritableImage image = new WritableImage(WIDTH, HEIGHT);
+        PixelWriter writer = image.getPixelWriter();
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                writer.setArgb(x, y, 0xFFE2E6EA);
+            }
+        }
+        return image;
+    }
+
+    public Image getPlaceholder() {
+        return placeholder;
+    }
+
+    public void clear() {
+        synchronized (images) {
+            images.clear();
+            cachedBytes = 0;
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        clear();
+    }
+
+    // Metrics
+    public int size() {
+        synchronized (images) {
+            return images.size();
+        }
+    }
+
+    public long getCachedBytes() {
+        synchronized (images) {
+            return cachedBytes;
+        }
+    }
+
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+    public long getCollapsed() { return collapsed.sum(); }
+    public long getFailed() { return failed.sum(); }
+    public long getEvictions() { return evictions.sum(); }
+    public long getFromPrefetch() { return fromPrefetch.sum(); }
+    public LatencyHistogram getDecodeLatency() { return decodeLatency; }
+
+    // Share of lookups served from the LRU; collapsed requests count as misses
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum() + collapsed.sum();
+        return total == 0 ? 0.0 : h / (double) total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ThumbnailService[images=%d bytes=%d hits=%d misses=%d collapsed=%d failed=%d "
+                + "evictions=%d fromPrefetch=%d hitRate=%.2f decode={%s}]",
+                size(), getCachedBytes(), getHits(), getMisses(), getCollapsed(), getFailed(),
+                getEvictions(), getFromPrefetch(), getHitRate(), decodeLatency);
+    }
+}
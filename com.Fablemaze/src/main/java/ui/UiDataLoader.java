@@ -0,0 +1,137 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package ui;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import javafx.concurrent.Task;
+import util.LatencyHistogram;
+
+/**
+ * Runs controller calls (SQLite, the predictor, /predict) off the JavaFX application thread.
+ * Each request belongs to a channel, e.g. "movies" or "watch". Starting a request cancels the one
+ * still pending on the same channel, and a result is only handed to the page if its request is
+ * still the channel's latest, so a slow answer for a page the user already left never overwrites
+ * the current one. Callbacks run on the FX thread, through Task's own Platform.runLater.
+ * With the default single worker, controller calls also run one at a time and in order, as
+ * AppController expects; a superseded request still in the queue never runs.
+ * Call from the FX thread only.
+ */
+public class UiDataLoader implements AutoCloseable {
+
+    private final ThreadPoolExecutor executor;
+    private final Map<String, Task<?>> latest = new ConcurrentHashMap<>();
+
+    // Metrics
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder superseded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LatencyHistogram loadLatency = new LatencyHistogram();
+
+    public UiDataLoader(int threads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "ui-loader-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    // Configured through -Dfablemaze.ui.loaderThreads
+    public static UiDataLoader fromSystemProperties() {
+        return new UiDataLoader(Math.max(1, Integer.getInteger("fablemaze.ui.loaderThreads", 1)));
+    }
+
+    /**
+     * Runs work in the background, superseding whatever channel was still loading.
+     * onSuccess or onFailure runs on the FX thread unless the request was superseded or cancelled first.
+     */
+    public <T> Task<T> load(String channel, Callable<T> work, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+        long start = System.nanoTime();
+        Task<T> task = new Task<>() {
+            @Override
+            protected T call() throws Exception {
+                return work.call();
+            }
+        };
+
+        task.setOnSucceeded(e -> {
+            if (latest.remove(channel, task)) {
+                loadLatency.record(System.nanoTime() - start);
+                onSuccess.accept(task.getValue());
+            }
+        });
+        task.setOnFailed(e -> {
+            failed.increment();
+            System.err.println("Loading " + channel + " failed: " + task.getException());
+            if (latest.remove(channel, task) && onFailure != null) {
+                onFailure.accept(task.getException());
+            }
+        });
+
+        Task<?> previous = latest.put(channel, task);
+        if (previous != null) {
+            // Not interrupted: an interrupt mid-query can leave a pooled SQLite connection or an HTTP call in a bad state
+            previous.cancel(false);
+            superseded.increment();
+        }
+
+        submitted.increment();
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Closed while the window goes away
+            latest.remove(channel, task);
+        }
+        return task;
+    }
+
+    // The user left the page the channel was loading for
+    public void cancel(String channel) {
+        Task<?> task = latest.remove(channel);
+        if (task != null) {
+            task.cancel(false);
+            superseded.increment();
+        }
+    }
+
+    public void cancelAll() {
+        for (String channel : latest.keySet()) {
+            cancel(channel);
+        }
+    }
+
+    // True while the channel has a request whose result hasn't been delivered yet
+    public boolean isLoading(String channel) {
+        return latest.containsKey(channel);
+    }
+
+    @Override
+    public void close() {
+        cancelAll();
+        executor.shutdownNow();
+    }
+
+    // Metrics
+    public long getSubmitted() { return submitted.sum(); }
+    public long getSuperseded() { return superseded.sum(); }
+    public long getFailed() { return failed.sum(); }
+    public LatencyHistogram getLoadLatency() { return loadLatency; }
+
+    @Override
+    public String toString() {
+        return String.format("UiDataLoader[submitted=%d superseded=%d failed=%d pending=%d latency={%s}]",
+                getSubmitted(), getSuperseded(), getFailed(), latest.size(), loadLatency);
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package util;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Count-based circuit breaker for calls to a remote service.
+ * The last windowSize outcomes are kept; once at least minimumCalls have been seen, the
+ * breaker opens when the failure rate or the slow-call rate reaches its threshold.
+ * A call slower than slowCallThreshold counts as slow even if it succeeded, so a service
+ * that answers but too late trips the breaker like one that is down.
+ * After openDuration the breaker goes half-open and lets probeCalls calls through:
+ * if they all succeed in time it closes again, otherwise it reopens.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,     // calls go through, outcomes are recorded
+        OPEN,       // calls are rejected until openDuration has passed
+        HALF_OPEN   // a limited number of probe calls decide whether to close or reopen
+    }
+
+    private static final byte SUCCESS = 0;
+    private static final byte FAILURE = 1;
+    private static final byte SLOW = 2;
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int probeCalls;
+
+    // Guarded by this
+    private State state = State.CLOSED;
+    private final byte[] window;
+    private int windowNext;
+    private int windowCount;
+    private int failuresInWindow;
+    private int slowInWindow;
+    private long openedAt;
+    private int probesStarted;
+    private int probesSucceeded;
+
+    // Metrics
+    private final LongAdder permitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder slowCalls = new LongAdder();
+    private final LongAdder trips = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, double slowCallRateThreshold,
+                          Duration slowCallThreshold, Duration openDuration, int probeCalls) {
+        this.windowSize = Math.max(1, windowSize);
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, this.windowSize));
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallNanos = slowCallThreshold.toNanos();
+        this.openNanos = openDuration.toNanos();
+        this.probeCalls = Math.max(1, probeCalls);
+        this.window = new byte[this.windowSize];
+    }
+
+    // Configured through -Dfablemaze.breaker.* system properties
+    public static CircuitBreaker fromSystemProperties() {
+        return new CircuitBreaker(
+            Integer.getInteger("fablemaze.breaker.window", 50),
+            Integer.getInteger("fablemaze.breaker.minimumCalls", 10),
+            Double.parseDouble(System.getProperty("fablemaze.breaker.failureRate", "0.5")),
+            Double.parseDouble(System.getProperty("fablemaze.breaker.slowCallRate", "0.5")),
+            Duration.ofMillis(Long.getLong("fablemaze.breaker.slowCallMs", 250L)),
+            Duration.ofMillis(Long.getLong("fablemaze.breaker.openMs", 10_000L)),
+            Integer.getInteger("fablemaze.breaker.probeCalls", 3)
+        );
+    }
+
+    /**
+     * True if a call may go ahead; every permitted call must be followed by exactly one
+     * onSuccess(), onFailure() or release(). False means fail fast and use a fallback.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            probesStarted = 0;
+            probesSucceeded = 0;
+        }
+
+        boolean allowed;
+        switch (state) {
+            case CLOSED:
+                allowed = true;
+                break;
+            case HALF_OPEN:
+                allowed = probesStarted < probeCalls;
+                if (allowed) {
+                    probesStarted++;
+                }
+                break;
+            default:
+                allowed = false;
+        }
+
+        if (allowed) {
+            permitted.increment();
+        } else {
+            rejected.increment();
+        }
+        return allowed;
+    }
+
+    // A permitted call returned a usable result after elapsedNanos
+    public void onSuccess(long elapsedNanos) {
+        latency.record(elapsedNanos);
+        boolean slow = elapsedNanos >= slowCallNanos;
+        if (slow) {
+            slowCalls.increment();
+        }
+        record(slow ? SLOW : SUCCESS);
+    }
+
+    // A permitted call failed or timed out after elapsedNanos
+    public void onFailure(long elapsedNanos) {
+        latency.record(elapsedNanos);
+        failures.increment();
+        record(FAILURE);
+    }
+
+    // A permitted call was abandoned by the caller before the service answered; it says nothing about
+    // the service, so nothing is recorded, and a half-open probe slot it held goes to the next call
+    public synchronized void release() {
+        if (state == State.HALF_OPEN && probesStarted > probesSucceeded) {
+            probesStarted--;
+        }
+    }
+
+    private synchronized void record(byte outcome) {
+        switch (state) {
+            case HALF_OPEN:
+                if (outcome != SUCCESS) {
+                    open();
+                } else if (++probesSucceeded >= probeCalls) {
+                    state = State.CLOSED;
+                    clearWindow();
+                }
+                break;
+            case CLOSED:
+                if (windowCount == windowSize) {
+                    forget(window[windowNext]);
+                } else {
+                    windowCount++;
+                }
+                window[windowNext] = outcome;
+                windowNext = (windowNext + 1) % windowSize;
+                if (outcome == FAILURE) {
+                    failuresInWindow++;
+                } else if (outcome == SLOW) {
+                    slowInWindow++;
+                }
+
+                if (windowCount >= minimumCalls
+                        && (failuresInWindow >= failureRateThreshold * windowCount
+                            || slowInWindow >= slowCallRateThreshold * windowCount)) {
+                    open();
+                }
+                break;
+            default:
+                // A call permitted before the breaker opened; it no longer matters
+        }
+    }
+
+    private void forget(byte outcome) {
+        if (outcome == FAILURE) {
+            failuresInWindow--;
+        } else if (outcome == SLOW) {
+            slowInWindow--;
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        trips.increment();
+        clearWindow();
+    }
+
+    private void clearWindow() {
+        windowNext = 0;
+        windowCount = 0;
+        failuresInWindow = 0;
+        slowInWindow = 0;
+    }
+
+    // Current state; an OPEN breaker whose openDuration has passed reports HALF_OPEN only after the next tryAcquire()
+    public synchronized State getState() { return state; }
+
+    // Metrics
+    public long getPermittedCalls() { return permitted.sum(); }
+    public long getRejectedCalls() { return rejected.sum(); }
+    public long getFailedCalls() { return failures.sum(); }
+    public long getSlowCalls() { return slowCalls.sum(); }
+    public long getTrips() { return trips.sum(); }
+    public LatencyHistogram getLatency() { return latency; }
+
+    @Override
+    public String toString() {
+        return String.format("CircuitBreaker[state=%s permitted=%d rejected=%d failed=%d slow=%d trips=%d latency{%s}]",
+                getState(), getPermittedCalls(), getRejectedCalls(), getFailedCalls(), getSlowCalls(), getTrips(),
+                latency);
+    }
+}
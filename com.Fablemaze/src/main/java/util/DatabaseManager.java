@@ -5,24 +5,53 @@
 package util;
 
 import java.sql.*;
+import java.util.List;
 
 public class DatabaseManager {
 
-    private static final String DB_URL = "jdbc:sqlite:movie_app.db";
+    // Override with -Dfablemaze.db.url=jdbc:sqlite:/path/to/movie_app.db
+    private static final String DB_URL = System.getProperty("fablemaze.db.url", "jdbc:sqlite:movie_app.db");
+    private static final int POOL_SIZE = Integer.getInteger("fablemaze.db.poolSize", 4);
+    private static final long BORROW_TIMEOUT_MS = Long.getLong("fablemaze.db.borrowTimeoutMs", 5000L);
+
+    // Applied once per physical connection, not per borrow
+    private static final List<String> PRAGMAS = List.of(
+        "PRAGMA journal_mode=WAL",
+        "PRAGMA synchronous=NORMAL",
+        "PRAGMA cache_size=-16000",
+        "PRAGMA mmap_size=268435456",
+        "PRAGMA temp_store=MEMORY",
+        "PRAGMA busy_timeout=5000"
+    );
+
+    private static final ConnectionPool pool = new ConnectionPool(DB_URL, POOL_SIZE, BORROW_TIMEOUT_MS, PRAGMAS);
     
-    public static Connection connect() {
-        try {
-            Connection conn = DriverManager.getConnection(DB_URL);
-            System.out.println("Connected to SQLite.");
-            return conn;
-        } catch (SQLException e) {
-            System.err.println("Connection failed: " + e.getMessage());
-            return null;
-        }
-    }
+    // UserPreferenceStats rebuilt from the whole SceneViewing history
+    private static final String PREFERENCE_STATS_BACKFILL = """
+        INSERT INTO UserPreferenceStats (user_id, viewing_count, kept_count, pacing_sum, pacing_count,
+                                         intensity_sum, intensity_count, dialogue_sum, dialogue_count,
+                                         action_sum, action_count, last_viewing_id)
+        SELECT vs.user_id,
+               COUNT(*),
+               COUNT(CASE WHEN NOT scv.dropped_off THEN 1 END),
+               TOTAL(CASE WHEN NOT scv.dropped_off THEN sv.pacing_score END),
+               COUNT(CASE WHEN NOT scv.dropped_off THEN sv.pacing_score END),
+               TOTAL(CASE WHEN NOT scv.dropped_off THEN sv.intensity_score END),
+               COUNT(CASE WHEN NOT scv.dropped_off THEN sv.intensity_score END),
+               TOTAL(CASE WHEN NOT scv.dropped_off THEN sv.dialogue_density END),
+               COUNT(CASE WHEN NOT scv.dropped_off THEN sv.dialogue_density END),
+               TOTAL(CASE WHEN NOT scv.dropped_off THEN sv.action_level END),
+               COUNT(CASE WHEN NOT scv.dropped_off THEN sv.action_level END),
+               MAX(scv.viewing_id)
+        FROM SceneViewing scv
+        JOIN ViewingSession vs ON scv.session_id = vs.session_id
+        JOIN SceneVariant sv ON scv.variant_id = sv.variant_id
+        GROUP BY vs.user_id
+    """;
 
-    public static void initSchema() {
-        String createUserTable = """
+    private static final List<SchemaMigrator.Migration> MIGRATIONS = List.of(
+        new SchemaMigrator.Migration(1, "Initial schema",
+            """
             CREATE TABLE IF NOT EXISTS User (
                 user_id INTEGER PRIMARY KEY AUTOINCREMENT,
                 username TEXT NOT NULL UNIQUE,
@@ -39,8 +68,9 @@ public class DatabaseManager {
                 favourite_genres TEXT,
                 avg_session_length REAL DEFAULT 0,
                 registration_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP		 
-            );
-
+            )
+            """,
+            """
             CREATE TABLE IF NOT EXISTS Movie (
                 movie_id INTEGER PRIMARY KEY AUTOINCREMENT,
                 title TEXT NOT NULL,
@@ -50,15 +80,17 @@ public class DatabaseManager {
                 rating TEXT CHECK(rating IN ('G', 'PG', 'PG-13', 'R')),
                 imdb_rating REAL,
                 scene_count INTEGER NOT NULL
-            );
-
+            )
+            """,
+            """
             CREATE TABLE IF NOT EXISTS Scene (
                 scene_id INTEGER PRIMARY KEY AUTOINCREMENT,
                 movie_id INTEGER NOT NULL,
                 scene_index INTEGER NOT NULL,
                 FOREIGN KEY (movie_id) REFERENCES Movie(movie_id)
-            );
-
+            )
+            """,
+            """
             CREATE TABLE IF NOT EXISTS SceneVariant (
                 variant_id INTEGER PRIMARY KEY AUTOINCREMENT,
                 scene_id INTEGER NOT NULL,
@@ -72,8 +104,9 @@ public class DatabaseManager {
                 emotional_tone REAL CHECK(emotional_tone >= -5 AND emotional_tone <= 5),
                 duration INTEGER NOT NULL,
                 FOREIGN KEY (scene_id) REFERENCES Scene(scene_id)
-            );
-
+            )
+            """,
+            """
             CREATE TABLE IF NOT EXISTS ViewingSession (
                 session_id INTEGER PRIMARY KEY AUTOINCREMENT,
                 user_id INTEGER NOT NULL,
@@ -84,8 +117,9 @@ public class DatabaseManager {
                 completed BOOLEAN DEFAULT FALSE,
                 FOREIGN KEY (user_id) REFERENCES User(user_id),
                 FOREIGN KEY (movie_id) REFERENCES Movie(movie_id)
-            );
-
+            )
+            """,
+            """
             CREATE TABLE IF NOT EXISTS SceneViewing (
                 viewing_id INTEGER PRIMARY KEY AUTOINCREMENT,
                 session_id INTEGER NOT NULL,
@@ -95,9 +129,135 @@ public class DatabaseManager {
                 timestamp TIMESTAMP NOT NULL,
                 FOREIGN KEY (session_id) REFERENCES ViewingSession(session_id),
                 FOREIGN KEY (variant_id) REFERENCES SceneVariant(variant_id)
-            );
-        """;
-        
+            )
+            """
+        ),
+        new SchemaMigrator.Migration(2, "Foreign-key, lookup and covering indexes",
+            // getScenesByMovieId: seek by movie and read back in scene_index order
+            "CREATE INDEX IF NOT EXISTS idx_scene_movie_index ON Scene(movie_id, scene_index)",
+            // getVariantsBySceneId and the movie graph join
+            "CREATE INDEX IF NOT EXISTS idx_variant_scene ON SceneVariant(scene_id, variant_id)",
+            // Predictor history join: user -> sessions -> viewings, answered from the indexes alone
+            "CREATE INDEX IF NOT EXISTS idx_session_user ON ViewingSession(user_id, session_id)",
+            "CREATE INDEX IF NOT EXISTS idx_session_movie ON ViewingSession(movie_id)",
+            "CREATE INDEX IF NOT EXISTS idx_viewing_session ON SceneViewing(session_id, variant_id, dropped_off, watch_duration)",
+            "CREATE INDEX IF NOT EXISTS idx_viewing_variant ON SceneViewing(variant_id)",
+            "ANALYZE"
+        ),
+        new SchemaMigrator.Migration(3, "Precomputed sequences and job watermarks",
+            // Written by job.PrecomputeJob; the signatures say which inputs a row was computed from
+            """
+            CREATE TABLE IF NOT EXISTS PrecomputedSequence (
+                user_id INTEGER NOT NULL,
+                movie_id INTEGER NOT NULL,
+                device_type TEXT NOT NULL,
+                variant_sequence TEXT NOT NULL, -- comma-separated variant ids in scene order
+                avg_engagement REAL,
+                user_signature INTEGER NOT NULL,
+                movie_signature INTEGER NOT NULL,
+                history_mark INTEGER NOT NULL, -- highest SceneViewing.viewing_id the row accounts for
+                computed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                PRIMARY KEY (user_id, movie_id, device_type),
+                FOREIGN KEY (user_id) REFERENCES User(user_id),
+                FOREIGN KEY (movie_id) REFERENCES Movie(movie_id)
+            ) WITHOUT ROWID
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS JobWatermark (
+                job_name TEXT PRIMARY KEY,
+                viewing_id INTEGER NOT NULL, -- highest SceneViewing.viewing_id covered by the last complete run
+                completed_at TIMESTAMP
+            )
+            """
+        ),
+        new SchemaMigrator.Migration(4, "Per-user preference statistics",
+            // Running sums behind the predictor's history preferences; kept up to date by the trigger from migration 6
+            """
+            CREATE TABLE IF NOT EXISTS UserPreferenceStats (
+                user_id INTEGER PRIMARY KEY,
+                viewing_count INTEGER NOT NULL DEFAULT 0,
+                kept_count INTEGER NOT NULL DEFAULT 0, -- viewings not dropped off; the sums below are over these
+                pacing_sum REAL NOT NULL DEFAULT 0,
+                pacing_count INTEGER NOT NULL DEFAULT 0,
+                intensity_sum REAL NOT NULL DEFAULT 0,
+                intensity_count INTEGER NOT NULL DEFAULT 0,
+                dialogue_sum REAL NOT NULL DEFAULT 0,
+                dialogue_count INTEGER NOT NULL DEFAULT 0,
+                action_sum REAL NOT NULL DEFAULT 0,
+                action_count INTEGER NOT NULL DEFAULT 0,
+                last_viewing_id INTEGER NOT NULL DEFAULT 0,
+                FOREIGN KEY (user_id) REFERENCES User(user_id)
+            )
+            """,
+            // Back-fill from the existing history, once
+            PREFERENCE_STATS_BACKFILL
+        ),
+        new SchemaMigrator.Migration(5, "Scorer signature on precomputed sequences",
+            // Model and planner a row was computed with; existing rows get 0, which never matches, so they are recomputed
+            "ALTER TABLE PrecomputedSequence ADD COLUMN scorer_signature INTEGER NOT NULL DEFAULT 0"
+        ),
+        new SchemaMigrator.Migration(6, "Preference statistics kept current by a trigger",
+            // Every writer keeps the totals current, not only SceneViewingDAO: rows added behind the app's back
+            // (Generate test data.py, say) went uncounted, so the totals are rebuilt once before the trigger takes over
+            "DELETE FROM UserPreferenceStats",
+            PREFERENCE_STATS_BACKFILL,
+            """
+            CREATE TRIGGER IF NOT EXISTS trg_scene_viewing_preference_stats AFTER INSERT ON SceneViewing
+            BEGIN
+                INSERT INTO UserPreferenceStats (user_id, viewing_count, kept_count, pacing_sum, pacing_count,
+                                                 intensity_sum, intensity_count, dialogue_sum, dialogue_count,
+                                                 action_sum, action_count, last_viewing_id)
+                SELECT vs.user_id,
+                       1,
+                       CASE WHEN NOT NEW.dropped_off THEN 1 ELSE 0 END,
+                       CASE WHEN NOT NEW.dropped_off THEN TOTAL(sv.pacing_score) ELSE 0 END,
+                       CASE WHEN NOT NEW.dropped_off THEN COUNT(sv.pacing_score) ELSE 0 END,
+                       CASE WHEN NOT NEW.dropped_off THEN TOTAL(sv.intensity_score) ELSE 0 END,
+                       CASE WHEN NOT NEW.dropped_off THEN COUNT(sv.intensity_score) ELSE 0 END,
+                       CASE WHEN NOT NEW.dropped_off THEN TOTAL(sv.dialogue_density) ELSE 0 END,
+                       CASE WHEN NOT NEW.dropped_off THEN COUNT(sv.dialogue_density) ELSE 0 END,
+                       CASE WHEN NOT NEW.dropped_off THEN TOTAL(sv.action_level) ELSE 0 END,
+                       CASE WHEN NOT NEW.dropped_off THEN COUNT(sv.action_level) ELSE 0 END,
+                       NEW.viewing_id
+                FROM ViewingSession vs
+                JOIN SceneVariant sv ON sv.variant_id = NEW.variant_id
+                WHERE vs.session_id = NEW.session_id
+                GROUP BY vs.user_id
+                ON CONFLICT (user_id) DO UPDATE SET
+                    viewing_count = viewing_count + excluded.viewing_count,
+                    kept_count = kept_count + excluded.kept_count,
+                    pacing_sum = pacing_sum + excluded.pacing_sum,
+                    pacing_count = pacing_count + excluded.pacing_count,
+                    intensity_sum = intensity_sum + excluded.intensity_sum,
+                    intensity_count = intensity_count + excluded.intensity_count,
+                    dialogue_sum = dialogue_sum + excluded.dialogue_sum,
+                    dialogue_count = dialogue_count + excluded.dialogue_count,
+                    action_sum = action_sum + excluded.action_sum,
+                    action_count = action_count + excluded.action_count,
+                    last_viewing_id = MAX(last_viewing_id, excluded.last_viewing_id);
+            END
+            """
+        )
+    );
+
+    public static Connection connect() {
+        try {
+            return pool.borrow();
+        } catch (SQLException e) {
+            System.err.println("Connection failed: " + e.getMessage());
+            return null;
+        }
+    }
+
+    public static ConnectionPool getPool() {
+        return pool;
+    }
+
+    public static void shutdown() {
+        pool.close();
+    }
+
+    public static void initSchema() {
         String loadDataSql = """
             -- Insert Movies
             INSERT INTO Movie (title, release_year, duration, genres, rating, imdb_rating, scene_count)
@@ -190,25 +350,24 @@ public class DatabaseManager {
         """;
         
 
-        try (Connection conn = connect();
-            Statement stmt = conn.createStatement()) {
-            
-            for (String sql : createUserTable.split(";")) {
-                if (!sql.strip().isEmpty()) {
-                    stmt.execute(sql);
-                }
-            }
+        try (Connection conn = connect()) {
+            // Fast path: one version read when the schema is already current
+            int applied = SchemaMigrator.migrate(conn, MIGRATIONS);
             
             // Run this code to populate the database on creation.
             /*
-            for (String sql : loadDataSql.split(";")) {
-                if (!sql.strip().isEmpty()) {
-                    stmt.execute(sql);
+            try (Statement stmt = conn.createStatement()) {
+                for (String sql : loadDataSql.split(";")) {
+                    if (!sql.strip().isEmpty()) {
+                        stmt.execute(sql);
+                    }
                 }
             }
             */
             
-            System.out.println("Schema initialized.");
+            if (applied > 0) {
+                System.out.println("Schema initialized.");
+            }
         } catch (SQLException e) {
             System.err.println("Schema init error: " + e.getMessage());
         }
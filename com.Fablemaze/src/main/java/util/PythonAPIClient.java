@@ -0,0 +1,490 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package util;
+
+    
+import java.net.http.*;
+import java.net.URI;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import model.MovieGraph;
+import model.SceneVariant;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import prediction.BatchPrediction;
+import prediction.VariantAlternative;
+
+/**
+ * Non-blocking client for the Flask prediction service (app.py).
+ * Calls return CompletableFutures completed on the client's own daemon executor.
+ * Each call has a deadline covering all attempts; an attempt that fails to connect or
+ * gets a 5xx moves on to the next configured endpoint while time remains.
+ */
+public class PythonAPIClient {
+    
+    // Per-endpoint call metrics
+    public static class EndpointStats {
+        private final URI baseUri;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        
+        EndpointStats(URI baseUri) {
+            this.baseUri = baseUri;
+        }
+        
+        public URI getBaseUri() { return baseUri; }
+        public LatencyHistogram getLatency() { return latency; }
+        public long getRequests() { return requests.sum(); }
+        public long getErrors() { return errors.sum(); }
+        public long getTimeouts() { return timeouts.sum(); }
+        
+        @Override
+        public String toString() {
+            return String.format("%s[requests=%d errors=%d timeouts=%d latency{%s}]",
+                    baseUri, getRequests(), getErrors(), getTimeouts(), latency);
+        }
+    }
+    
+    // Thrown (wrapped in the future) when the service answers with a non-200 status
+    public static class PredictionServiceException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        
+        private final int statusCode;
+        
+        public PredictionServiceException(int statusCode, String message) {
+            super("Prediction failed (" + statusCode + "): " + message);
+            this.statusCode = statusCode;
+        }
+        
+        public int getStatusCode() { return statusCode; }
+    }
+    
+    private final HttpClient client;
+    private final ExecutorService executor;
+    private final List<EndpointStats> endpoints;
+    private final Duration defaultDeadline;
+    private final AtomicInteger nextEndpoint = new AtomicInteger();
+    
+    // Concurrent identical sequence requests share one backend call
+    private final SingleFlight<String, int[]> sequenceFlights = new SingleFlight<>();
+    
+    public PythonAPIClient() {
+        this(List.of(URI.create("http://localhost:5000")), Duration.ofSeconds(2));
+    }
+    
+    public PythonAPIClient(List<URI> baseUris, Duration defaultDeadline) {
+        if (baseUris.isEmpty()) {
+            throw new IllegalArgumentException("At least one endpoint is required");
+        }
+        List<EndpointStats> stats = new ArrayList<>();
+        for (URI uri : baseUris) {
+            stats.add(new EndpointStats(uri));
+        }
+        this.endpoints = Collections.unmodifiableList(stats);
+        this.defaultDeadline = defaultDeadline;
+        
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "prediction-client-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        // HTTP/2 where the server supports it; the Flask dev server answers in HTTP/1.1 over the same pooled connections.
+        // Each endpoint gets a share of the deadline to connect in, so an unreachable one leaves time to fail over
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(defaultDeadline.dividedBy(baseUris.size()))
+            .executor(executor)
+            .build();
+    }
+    
+    // Configured through -Dfablemaze.predictor.endpoints (comma separated base URLs) and -Dfablemaze.predictor.deadlineMs
+    public static PythonAPIClient fromSystemProperties() {
+        List<URI> uris = new ArrayList<>();
+        for (String endpoint : System.getProperty("fablemaze.predictor.endpoints", "http://localhost:5000").split(",")) {
+            if (!endpoint.isBlank()) {
+                uris.add(URI.create(endpoint.trim()));
+            }
+        }
+        return new PythonAPIClient(uris, Duration.ofMillis(Long.getLong("fablemaze.predictor.deadlineMs", 2000L)));
+    }
+    
+    public CompletableFuture<int[]> predictSequenceAsync(int userId, int movieId, String deviceType) {
+        return predictSequenceAsync(userId, movieId, deviceType, defaultDeadline);
+    }
+    
+    /**
+     * Variant ids of the predicted sequence, in scene order.
+     * A call made while an identical one is in flight joins it instead of hitting the service;
+     * the deadline still applies to each caller separately, and the shared request keeps
+     * running until the latest deadline among the callers that joined it.
+     */
+    public CompletableFuture<int[]> predictSequenceAsync(int userId, int movieId, String deviceType, Duration deadline) {
+        JSONObject json = new JSONObject();
+        json.put("user_id", userId);
+        json.put("movie_id", movieId);
+        json.put("device_type", deviceType);
+        
+        String key = userId + ":" + movieId + ":" + deviceType;
+        CompletableFuture<int[]> waiter = sequenceFlights.execute(key, deadline, flightDeadline -> {
+            CompletableFuture<String> post = postAsync("/predict_sequence", json, flightDeadline);
+            CompletableFuture<int[]> parsed = post.thenApply(body -> parseIntArray(body, "variant_sequence"));
+            // Abandoning the flight cancels parsed; stop the request behind it too
+            parsed.whenComplete((value, error) -> {
+                if (parsed.isCancelled()) {
+                    post.cancel(false);
+                }
+            });
+            return parsed;
+        });
+        
+        // Callers share the parsed array; each gets its own copy
+        CompletableFuture<int[]> result = waiter.thenApply(int[]::clone);
+        // Cancellation doesn't flow upstream by itself; pass it on so an abandoned call can be cancelled
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                waiter.cancel(false);
+            }
+        });
+        return result;
+    }
+    
+    public CompletableFuture<List<VariantAlternative>> alternativesAsync(int userId, int movieId, int sceneIndex, int topN) {
+        return alternativesAsync(userId, movieId, sceneIndex, topN, defaultDeadline);
+    }
+    
+    // Best topN variants of one scene, highest engagement first; empty if the scene doesn't exist
+    public CompletableFuture<List<VariantAlternative>> alternativesAsync(int userId, int movieId, int sceneIndex,
+                                                                         int topN, Duration deadline) {
+        JSONObject json = new JSONObject();
+        json.put("user_id", userId);
+        json.put("movie_id", movieId);
+        json.put("scene_index", sceneIndex);
+        json.put("top_n", topN);
+        
+        CompletableFuture<String> post = postAsync("/alternatives", json, deadline);
+        CompletableFuture<List<VariantAlternative>> parsed = post.thenApply(PythonAPIClient::parseAlternatives);
+        // The prefetcher cancels rankings it no longer needs; stop the request behind them too
+        parsed.whenComplete((value, error) -> {
+            if (parsed.isCancelled()) {
+                post.cancel(false);
+            }
+        });
+        return parsed;
+    }
+    
+    public CompletableFuture<List<BatchPrediction>> predictBatchAsync(int userId, int[] movieIds, String deviceType) {
+        return predictBatchAsync(userId, movieIds, deviceType, defaultDeadline);
+    }
+    
+    // One user across many movies in a single request; pairs the service couldn't score are left out
+    public CompletableFuture<List<BatchPrediction>> predictBatchAsync(int userId, int[] movieIds, String deviceType,
+                                                                      Duration deadline) {
+        JSONObject json = new JSONObject();
+        json.put("user_id", userId);
+        json.put("movie_ids", new JSONArray(movieIds));
+        json.put("device_type", deviceType);
+        
+        return postAsync("/predict_batch", json, deadline)
+            .thenApply(PythonAPIClient::parseBatch);
+    }
+    
+    public CompletableFuture<List<BatchPrediction>> predictBatchAsync(int[] userIds, int movieId, String deviceType) {
+        return predictBatchAsync(userIds, movieId, deviceType, defaultDeadline);
+    }
+    
+    // Many users for one movie in a single request; pairs the service couldn't score are left out
+    public CompletableFuture<List<BatchPrediction>> predictBatchAsync(int[] userIds, int movieId, String deviceType,
+                                                                      Duration deadline) {
+        JSONObject json = new JSONObject();
+        json.put("user_ids", new JSONArray(userIds));
+        json.put("movie_id", movieId);
+        json.put("device_type", deviceType);
+        
+        return postAsync("/predict_batch", json, deadline)
+            .thenApply(PythonAPIClient::parseBatch);
+    }
+    
+    // Resolves the predicted variant ids against an already loaded movie graph
+    public CompletableFuture<List<SceneVariant>> predictSceneVariantsAsync(int userId, MovieGraph graph, String deviceType) {
+        return predictSequenceAsync(userId, graph.getMovie().getMovieId(), deviceType)
+            .thenApply(graph::resolveSequence);
+    }
+    
+    public HttpResponse<String> predictSequence(int userId, int movieId, String deviceType) throws Exception {
+
+        JSONObject json = new JSONObject();
+        json.put("user_id", userId);
+        json.put("movie_id", movieId);
+        json.put("device_type", deviceType);
+
+        HttpRequest request = HttpRequest.newBuilder()
+            .uri(endpoints.get(0).getBaseUri().resolve("/predict_sequence"))
+            .header("Content-Type", "application/json")
+            .timeout(defaultDeadline)
+            .POST(BodyPublishers.ofString(json.toString(), StandardCharsets.UTF_8))
+            .build();
+
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+        
+    }
+    
+    // Blocking form of predictSceneVariantsAsync()
+    public List<SceneVariant> predictSceneVariants(int userId, MovieGraph graph, String deviceType) throws Exception {
+        try {
+            return predictSceneVariantsAsync(userId, graph, deviceType).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+    
+    public void PredictAndPrintSequence(int userId, int movieId, String deviceType) throws Exception {
+        
+        HttpResponse<String> response = predictSequence(userId, movieId, deviceType);
+        System.out.println("Response Code: " + response.statusCode());
+        System.out.println("Response Body: " + response.body());
+        
+    }
+    
+    // POSTs to the endpoints in turn (starting round-robin) until one answers 200 or the deadline passes
+    private CompletableFuture<String> postAsync(String path, JSONObject json, Duration deadline) {
+        long deadlineNanos = System.nanoTime() + deadline.toNanos();
+        return postAsync(path, json, () -> deadlineNanos);
+    }
+    
+    // Same, against a deadline (a System.nanoTime() value) that may move later while the call runs
+    private CompletableFuture<String> postAsync(String path, JSONObject json, LongSupplier deadlineNanos) {
+        int first = Math.floorMod(nextEndpoint.getAndIncrement(), endpoints.size());
+        String body = json.toString();
+        
+        AtomicReference<CompletableFuture<?>> sending = new AtomicReference<>();
+        CompletableFuture<String> result = attempt(path, body, first, 0, deadlineNanos, sending);
+        expireAt(result, deadlineNanos);
+        // Timed out or cancelled: stop the request on the wire as well
+        result.whenComplete((value, error) -> {
+            CompletableFuture<?> send = sending.get();
+            if (error != null && send != null) {
+                send.cancel(true);
+            }
+        });
+        return result;
+    }
+    
+    // Fails future with a TimeoutException once the deadline has passed, checking again if it was moved meanwhile
+    private static void expireAt(CompletableFuture<?> future, LongSupplier deadlineNanos) {
+        long remaining = deadlineNanos.getAsLong() - System.nanoTime();
+        if (remaining <= 0) {
+            future.completeExceptionally(new TimeoutException("Prediction deadline exceeded"));
+            return;
+        }
+        CompletableFuture.delayedExecutor(remaining, TimeUnit.NANOSECONDS).execute(() -> {
+            if (!future.isDone()) {
+                expireAt(future, deadlineNanos);
+            }
+        });
+    }
+    
+    private CompletableFuture<String> attempt(String path, String body, int first, int tried, LongSupplier deadlineNanos,
+                                              AtomicReference<CompletableFuture<?>> sending) {
+        EndpointStats endpoint = endpoints.get((first + tried) % endpoints.size());
+        if (deadlineNanos.getAsLong() - System.nanoTime() <= 0) {
+            return CompletableFuture.failedFuture(new HttpTimeoutException("Prediction deadline exceeded"));
+        }
+        
+        // No per-request timeout: expireAt() bounds the whole call, and follows the deadline if it moves
+        HttpRequest request = HttpRequest.newBuilder()
+            .uri(endpoint.getBaseUri().resolve(path))
+            .header("Content-Type", "application/json")
+            .POST(BodyPublishers.ofString(body, StandardCharsets.UTF_8))
+            .build();
+        
+        long start = System.nanoTime();
+        endpoint.requests.increment();
+        
+        CompletableFuture<String> result = new CompletableFuture<>();
+        CompletableFuture<HttpResponse<String>> send = client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+        sending.set(send);
+        send.whenComplete((response, error) -> {
+            endpoint.latency.record(System.nanoTime() - start);
+            
+            boolean retryable;
+            Throwable failure;
+            if (error != null) {
+                failure = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                // The endpoint was never reached on a connect timeout, so another one may still answer in time
+                boolean expired = deadlineNanos.getAsLong() - System.nanoTime() <= 0;
+                retryable = !expired && (!(failure instanceof HttpTimeoutException) || failure instanceof HttpConnectTimeoutException);
+                if (failure instanceof HttpTimeoutException || expired) {
+                    endpoint.timeouts.increment();
+                } else {
+                    endpoint.errors.increment();
+                }
+            } else if (response.statusCode() == 200) {
+                result.complete(response.body());
+                return;
+            } else {
+                endpoint.errors.increment();
+                failure = new PredictionServiceException(response.statusCode(), response.body());
+                retryable = response.statusCode() >= 500;
+            }
+            
+            if (retryable && tried + 1 < endpoints.size()) {
+                attempt(path, body, first, tried + 1, deadlineNanos, sending).whenComplete((value, retryError) -> {
+                    if (retryError != null) {
+                        result.completeExceptionally(retryError);
+                    } else {
+                        result.complete(value);
+                    }
+                });
+            } else {
+                result.completeExceptionally(failure);
+            }
+        });
+        return result;
+    }
+    
+    /**
+     * Reads the integer array stored under key straight from the response text,
+     * e.g. {"variant_sequence": [3, 5, 8]}, without building a JSON tree.
+     */
+    static int[] parseIntArray(String body, String key) {
+        int i = body.indexOf("\"" + key + "\"");
+        if (i >= 0) {
+            i = skipWhitespace(body, i + key.length() + 2);
+            i = i < body.length() && body.charAt(i) == ':' ? skipWhitespace(body, i + 1) : -1;
+        }
+        if (i < 0 || i >= body.length() || body.charAt(i) != '[') {
+            throw new IllegalStateException("No " + key + " array in response: " + body);
+        }
+        
+        int[] values = new int[16];
+        int count = 0;
+        i++;
+        while (true) {
+            i = skipWhitespace(body, i);
+            if (i >= body.length()) {
+                throw new IllegalStateException("Unterminated " + key + " array in response");
+            }
+            char c = body.charAt(i);
+            if (c == ']') {
+                break;
+            }
+            if (c == ',') {
+                i++;
+                continue;
+            }
+            
+            boolean negative = c == '-';
+            if (negative) {
+                i++;
+            }
+            int start = i;
+            int value = 0;
+            while (i < body.length() && body.charAt(i) >= '0' && body.charAt(i) <= '9') {
+                value = value * 10 + (body.charAt(i) - '0');
+                i++;
+            }
+            if (i == start) {
+                throw new IllegalStateException("Non-integer value in " + key + " at offset " + i);
+            }
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            values[count++] = negative ? -value : value;
+        }
+        return Arrays.copyOf(values, count);
+    }
+    
+    private static int skipWhitespace(String text, int i) {
+        while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+    
+    static List<VariantAlternative> parseAlternatives(String body) {
+        String trimmed = body.trim();
+        // get_alternative_variants() returns None for an unknown scene
+        if (trimmed.equals("null")) {
+            return List.of();
+        }
+        
+        JSONArray array = new JSONArray(trimmed);
+        List<VariantAlternative> alternatives = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject alt = array.getJSONObject(i);
+            alternatives.add(new VariantAlternative(
+                alt.getInt("variant_id"),
+                alt.optString("variant_name", null),
+                alt.getDouble("engagement_score"),
+                alt.getDouble("dropout_probability"),
+                alt.optString("file_path", null),
+                alt.optDouble("pacing_score", Double.NaN),
+                alt.optDouble("intensity_score", Double.NaN),
+                alt.optDouble("action_level", Double.NaN)
+            ));
+        }
+        return alternatives;
+    }
+    
+    static List<BatchPrediction> parseBatch(String body) {
+        JSONArray array = new JSONObject(body).getJSONArray("results");
+        List<BatchPrediction> predictions = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject result = array.getJSONObject(i);
+            JSONArray sequence = result.getJSONArray("variant_sequence");
+            JSONArray scores = result.getJSONArray("engagement_scores");
+            
+            int[] variantIds = new int[sequence.length()];
+            for (int j = 0; j < variantIds.length; j++) {
+                variantIds[j] = sequence.getInt(j);
+            }
+            double[] engagement = new double[scores.length()];
+            for (int j = 0; j < engagement.length; j++) {
+                engagement[j] = scores.getDouble(j);
+            }
+            
+            predictions.add(new BatchPrediction(
+                result.getInt("user_id"),
+                result.getInt("movie_id"),
+                variantIds,
+                engagement,
+                result.getDouble("avg_engagement_score")
+            ));
+        }
+        return predictions;
+    }
+    
+    public List<EndpointStats> getEndpointStats() {
+        return endpoints;
+    }
+    
+    public SingleFlight<String, int[]> getSequenceFlights() {
+        return sequenceFlights;
+    }
+    
+    // Stops the client's threads; pending calls fail
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+}
@@ -0,0 +1,151 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package util;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Collapses concurrent calls for the same key into one in-flight call.
+ * The first caller for a key starts the call; callers arriving before it completes
+ * share its result. Every caller gets its own future, bounded by its own deadline, so
+ * cancelling or timing out one caller never affects the others. The shared call runs
+ * until the latest deadline of any caller that joined it, and is cancelled only when
+ * every caller waiting on it has cancelled or timed out.
+ */
+public class SingleFlight<K, V> {
+
+    private static final class Flight<V> {
+        final CompletableFuture<V> shared = new CompletableFuture<>();
+        final AtomicLong deadlineNanos;
+        CompletableFuture<V> source;
+        int waiters;        // guarded by this
+        boolean abandoned;  // guarded by this
+
+        Flight(long deadlineNanos) {
+            this.deadlineNanos = new AtomicLong(deadlineNanos);
+        }
+    }
+
+    private final ConcurrentHashMap<K, Flight<V>> inFlight = new ConcurrentHashMap<>();
+
+    // Metrics
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder collapsed = new LongAdder();
+    private final LongAdder abandoned = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    /**
+     * The call is handed the flight's deadline as a System.nanoTime() value to read whenever it
+     * needs it: it moves later when a caller with a later deadline joins. The returned future
+     * fails with a TimeoutException once this caller's own deadline has passed.
+     */
+    public CompletableFuture<V> execute(K key, Duration deadline, Function<LongSupplier, CompletableFuture<V>> call) {
+        calls.increment();
+        long deadlineNanos = System.nanoTime() + deadline.toNanos();
+        while (true) {
+            Flight<V> created = new Flight<>(deadlineNanos);
+            Flight<V> flight = inFlight.putIfAbsent(key, created);
+            boolean leader = flight == null;
+            if (leader) {
+                flight = created;
+            }
+
+            synchronized (flight) {
+                if (flight.abandoned) {
+                    // Every waiter gave up while we were joining; it has already left the map, so start over
+                    continue;
+                }
+                flight.waiters++;
+            }
+            flight.deadlineNanos.accumulateAndGet(deadlineNanos, (current, joined) -> joined - current > 0 ? joined : current);
+
+            if (leader) {
+                executions.increment();
+                start(key, flight, call);
+            } else {
+                collapsed.increment();
+            }
+            return waiterFor(key, flight, deadline);
+        }
+    }
+
+    private void start(K key, Flight<V> flight, Function<LongSupplier, CompletableFuture<V>> call) {
+        CompletableFuture<V> source;
+        try {
+            source = call.apply(flight.deadlineNanos::get);
+        } catch (RuntimeException e) {
+            source = CompletableFuture.failedFuture(e);
+        }
+        boolean abandonedAlready;
+        synchronized (flight) {
+            flight.source = source;
+            abandonedAlready = flight.abandoned;
+        }
+        if (abandonedAlready) {
+            source.cancel(true);
+        }
+        source.whenComplete((value, error) -> {
+            inFlight.remove(key, flight);
+            if (error != null) {
+                flight.shared.completeExceptionally(error);
+            } else {
+                flight.shared.complete(value);
+            }
+        });
+    }
+
+    private CompletableFuture<V> waiterFor(K key, Flight<V> flight, Duration deadline) {
+        CompletableFuture<V> waiter = flight.shared.copy().orTimeout(deadline.toNanos(), TimeUnit.NANOSECONDS);
+        waiter.whenComplete((value, error) -> {
+            // Still running means this caller cancelled or ran out of time
+            if (flight.shared.isDone()) {
+                return;
+            }
+            if (!waiter.isCancelled()) {
+                timedOut.increment();
+            }
+            boolean abandon;
+            CompletableFuture<V> source;
+            synchronized (flight) {
+                abandon = --flight.waiters == 0 && !flight.shared.isDone();
+                if (abandon) {
+                    // Out of the map before anyone can see it abandoned, so joiners never spin on it
+                    flight.abandoned = true;
+                    inFlight.remove(key, flight);
+                }
+                source = flight.source;
+            }
+            if (abandon) {
+                abandoned.increment();
+                if (source != null) {
+                    source.cancel(true);
+                }
+            }
+        });
+        return waiter;
+    }
+
+    // Metrics
+    public int getInFlight() { return inFlight.size(); }
+    public long getCalls() { return calls.sum(); }
+    public long getExecutions() { return executions.sum(); }
+    public long getCollapsed() { return collapsed.sum(); }
+    public long getAbandoned() { return abandoned.sum(); }
+    public long getTimedOut() { return timedOut.sum(); }
+
+    @Override
+    public String toString() {
+        return String.format("SingleFlight[inFlight=%d calls=%d executions=%d collapsed=%d abandoned=%d timedOut=%d]",
+                getInFlight(), getCalls(), getExecutions(), getCollapsed(), getAbandoned(), getTimedOut());
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package prediction;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import model.MovieGraph;
+import model.Scene;
+import model.SceneVariant;
+import model.User;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * FeatureEncoder against segment_predictor.py's feature pipeline: the same users, movies and clock
+ * must give the same rows, in the same order, including the COALESCE defaults for missing values
+ * and code 0 for labels the encoders never saw.
+ */
+class FeatureEncoderParityTest {
+
+    // The model reads float32, so a column only has to match once cast
+    private static final double RELATIVE_TOLERANCE = 1e-6;
+    private static final double PROBABILITY_TOLERANCE = 1e-5;
+
+    private static JSONObject fixture;
+    private static LocalSequencePredictor predictor;
+    private static Map<Integer, User> users;
+    private static Map<Integer, MovieGraph> graphs;
+    private static SessionContext context;
+
+    @BeforeAll
+    static void load() {
+        fixture = ParityFixture.load();
+        predictor = ParityFixture.predictor();
+        users = ParityFixture.users(fixture);
+        graphs = ParityFixture.graphs(fixture);
+        context = ParityFixture.context(fixture);
+    }
+
+    @Test
+    void encodeMovieMatchesPythonFeatures() {
+        FeatureEncoder encoder = predictor.getEncoder();
+        List<String> columns = predictor.getFeatureColumns();
+        int width = encoder.getWidth();
+        for (JSONObject parityCase : ParityFixture.cases(fixture)) {
+            User user = user(parityCase);
+            MovieGraph graph = graph(parityCase);
+            String name = ParityFixture.describe(parityCase);
+
+            assertArrayEquals(variantIds(parityCase), encodedVariantIds(graph), name + " row order");
+
+            float[] expected = ParityFixture.features(parityCase, width);
+            float[] actual = new float[graph.getVariantCount() * width];
+            int rows = encoder.encodeMovie(user, graph, context, actual);
+            assertEquals(expected.length / width, rows, name + " rows");
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < width; c++) {
+                    float want = expected[r * width + c];
+                    assertEquals(want, actual[r * width + c], Math.max(1.0, Math.abs(want)) * RELATIVE_TOLERANCE,
+                            name + " row " + r + " " + columns.get(c));
+                }
+            }
+        }
+    }
+
+    @Test
+    void encodeSceneMatchesEncodeMovie() {
+        FeatureEncoder encoder = predictor.getEncoder();
+        int width = encoder.getWidth();
+        for (JSONObject parityCase : ParityFixture.cases(fixture)) {
+            User user = user(parityCase);
+            MovieGraph graph = graph(parityCase);
+            float[] movieRows = new float[graph.getVariantCount() * width];
+            encoder.encodeMovie(user, graph, context, movieRows);
+
+            int row = 0;
+            for (Scene scene : graph.getScenes()) {
+                float[] sceneRows = new float[graph.getVariantCount() * width];
+                int rows = encoder.encodeScene(user, graph, scene.getSceneIndex(), context, sceneRows, 0);
+                for (int r = 0; r < rows; r++, row++) {
+                    for (int c = 0; c < width; c++) {
+                        assertEquals(movieRows[row * width + c], sceneRows[r * width + c],
+                                ParityFixture.describe(parityCase) + " scene " + scene.getSceneIndex() + " row " + r);
+                    }
+                }
+            }
+            assertEquals(graph.getVariantCount(), row);
+        }
+    }
+
+    @Test
+    void predictDropoutMatchesPredictProba() {
+        for (JSONObject parityCase : ParityFixture.cases(fixture)) {
+            double[] expected = ParityFixture.dropout(parityCase);
+            float[] dropout = predictor.predictDropout(user(parityCase), graph(parityCase), context);
+            assertEquals(expected.length, dropout.length, ParityFixture.describe(parityCase) + " rows");
+            for (int r = 0; r < expected.length; r++) {
+                assertEquals(expected[r], dropout[r], PROBABILITY_TOLERANCE, ParityFixture.describe(parityCase) + " row " + r);
+            }
+        }
+    }
+
+    private static User user(JSONObject parityCase) {
+        User user = users.get(parityCase.getInt("user_id"));
+        assertNotNull(user, ParityFixture.describe(parityCase) + " user");
+        return user;
+    }
+
+    private static MovieGraph graph(JSONObject parityCase) {
+        MovieGraph graph = graphs.get(parityCase.getInt("movie_id"));
+        assertNotNull(graph, ParityFixture.describe(parityCase) + " movie");
+        return graph;
+    }
+
+    private static int[] variantIds(JSONObject parityCase) {
+        JSONArray ids = parityCase.getJSONArray("variant_ids");
+        int[] out = new int[ids.length()];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = ids.getInt(i);
+        }
+        return out;
+    }
+
+    // Scene then variant order, the order encodeMovie() writes rows in
+    private static int[] encodedVariantIds(MovieGraph graph) {
+        List<Integer> ids = new ArrayList<>();
+        for (Scene scene : graph.getScenes()) {
+            for (SceneVariant variant : graph.getVariants(scene.getSceneIndex())) {
+                ids.add(variant.getVariantId());
+            }
+        }
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
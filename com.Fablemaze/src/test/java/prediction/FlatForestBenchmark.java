@@ -0,0 +1,86 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package prediction;
+
+import java.util.concurrent.TimeUnit;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Scoring every variant of the catalog for one user: the node-object tree walk, one row at a
+ * time, against FlatForest's block evaluator. 900 rows is today's catalog (30 movies, 300
+ * scenes, 3 variants each); the larger sizes show how both scale. Rows are the parity
+ * fixture's real feature rows, repeated to size.
+ *
+ *   mvn -Pjmh test-compile exec:exec -Djmh.args=FlatForest
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlatForestBenchmark {
+
+    @Param({"900", "9000", "90000"})
+    public int rows;
+
+    private XGBoostModel model;
+    private FlatForest forest;
+    private float[] batch;
+    private float[][] rowArrays;
+    private float[] probabilities;
+
+    @Setup
+    public void setUp() {
+        LocalSequencePredictor predictor = ParityFixture.predictor();
+        model = predictor.getModel();
+        forest = predictor.getForest();
+        int width = predictor.getFeatureColumns().size();
+
+        float[] fixtureRows = new float[0];
+        for (JSONObject parityCase : ParityFixture.cases(ParityFixture.load())) {
+            float[] caseRows = ParityFixture.features(parityCase, width);
+            float[] joined = new float[fixtureRows.length + caseRows.length];
+            System.arraycopy(fixtureRows, 0, joined, 0, fixtureRows.length);
+            System.arraycopy(caseRows, 0, joined, fixtureRows.length, caseRows.length);
+            fixtureRows = joined;
+        }
+
+        batch = new float[rows * width];
+        rowArrays = new float[rows][width];
+        for (int r = 0; r < rows; r++) {
+            int source = (r % (fixtureRows.length / width)) * width;
+            System.arraycopy(fixtureRows, source, batch, r * width, width);
+            System.arraycopy(fixtureRows, source, rowArrays[r], 0, width);
+        }
+        probabilities = new float[rows];
+    }
+
+    @Benchmark
+    public void nodeTreeWalk(Blackhole blackhole) {
+        for (int r = 0; r < rows; r++) {
+            probabilities[r] = model.predictProbability(rowArrays[r]);
+        }
+        blackhole.consume(probabilities);
+    }
+
+    @Benchmark
+    public void flatForest(Blackhole blackhole) {
+        forest.predictProbabilities(batch, rows, probabilities);
+        blackhole.consume(probabilities);
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package prediction;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import model.Movie;
+import model.MovieGraph;
+import model.Scene;
+import model.SceneVariant;
+import model.User;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * The fixture written by "Generate parity fixture.py": feature rows built by segment_predictor.py
+ * and the dropout probabilities predict_proba() gives for them.
+ */
+final class ParityFixture {
+
+    static final String RESOURCE = "/parity/xgboost_parity.json";
+
+    private static LocalSequencePredictor predictor;
+
+    private ParityFixture() {
+    }
+
+    static JSONObject load() {
+        try (InputStream in = ParityFixture.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing test resource " + RESOURCE);
+            }
+            return new JSONObject(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // The exported model, from -Dfablemaze.model.dir as the app loads it
+    static synchronized LocalSequencePredictor predictor() {
+        if (predictor == null) {
+            Path modelDir = Paths.get(System.getProperty("fablemaze.model.dir", ".."));
+            try {
+                predictor = LocalSequencePredictor.load(modelDir);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return predictor;
+    }
+
+    // A case's feature rows, row-major as FeatureEncoder writes them
+    static float[] features(JSONObject parityCase, int width) {
+        JSONArray rows = parityCase.getJSONArray("features");
+        float[] out = new float[rows.length() * width];
+        for (int r = 0; r < rows.length(); r++) {
+            JSONArray row = rows.getJSONArray(r);
+            for (int c = 0; c < width; c++) {
+                out[r * width + c] = (float) row.getDouble(c);
+            }
+        }
+        return out;
+    }
+
+    static double[] dropout(JSONObject parityCase) {
+        JSONArray values = parityCase.getJSONArray("dropout");
+        double[] out = new double[values.length()];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = values.getDouble(i);
+        }
+        return out;
+    }
+
+    // The fixture's users by id, with the NULLs the database has
+    static Map<Integer, User> users(JSONObject fixture) {
+        Map<Integer, User> users = new HashMap<>();
+        JSONArray rows = fixture.getJSONArray("users");
+        for (int i = 0; i < rows.length(); i++) {
+            JSONObject row = rows.getJSONObject(i);
+            User user = new User(
+                row.getInt("user_id"),
+                "parity",
+                "",
+                optString(row, "dob"),
+                optString(row, "sex"),
+                optDouble(row, "openness"),
+                optDouble(row, "conscientiousness"),
+                optDouble(row, "extraversion"),
+                optDouble(row, "agreeableness"),
+                optDouble(row, "neuroticism"),
+                row.optInt("total_watch_time", 0),
+                optDouble(row, "preferred_pacing"),
+                optString(row, "favourite_genres"),
+                optDouble(row, "avg_session_length"),
+                null
+            );
+            users.put(user.getUserId(), user);
+        }
+        return users;
+    }
+
+    // The fixture's movie graphs by movie id
+    static Map<Integer, MovieGraph> graphs(JSONObject fixture) {
+        Map<Integer, MovieGraph> graphs = new HashMap<>();
+        JSONArray rows = fixture.getJSONArray("movies");
+        for (int i = 0; i < rows.length(); i++) {
+            JSONObject row = rows.getJSONObject(i);
+            int movieId = row.getInt("movie_id");
+            Movie movie = new Movie(
+                movieId,
+                row.getString("title"),
+                optInteger(row, "release_year"),
+                optInteger(row, "duration"),
+                optString(row, "genres"),
+                optString(row, "rating"),
+                optDouble(row, "imdb_rating"),
+                row.getInt("scene_count")
+            );
+
+            List<Scene> scenes = new ArrayList<>();
+            Map<Integer, List<SceneVariant>> variantsBySceneId = new HashMap<>();
+            JSONArray sceneRows = row.getJSONArray("scenes");
+            for (int s = 0; s < sceneRows.length(); s++) {
+                JSONObject sceneRow = sceneRows.getJSONObject(s);
+                int sceneId = sceneRow.getInt("scene_id");
+                scenes.add(new Scene(sceneId, movieId, sceneRow.getInt("scene_index")));
+
+                List<SceneVariant> variants = new ArrayList<>();
+                JSONArray variantRows = sceneRow.getJSONArray("variants");
+                for (int v = 0; v < variantRows.length(); v++) {
+                    JSONObject variant = variantRows.getJSONObject(v);
+                    variants.add(new SceneVariant(
+                        variant.getInt("variant_id"),
+                        sceneId,
+                        optString(variant, "variant_name"),
+                        optString(variant, "file_path"),
+                        optDouble(variant, "pacing_score"),
+                        optDouble(variant, "intensity_score"),
+                        optDouble(variant, "dialogue_density"),
+                        optDouble(variant, "action_level"),
+                        optDouble(variant, "character_focus"),
+                        optDouble(variant, "emotional_tone"),
+                        variant.optInt("duration", 0)
+                    ));
+                }
+                variantsBySceneId.put(sceneId, variants);
+            }
+            graphs.put(movieId, new MovieGraph(movie, scenes, variantsBySceneId));
+        }
+        return graphs;
+    }
+
+    // The clock and device the fixture was generated with
+    static SessionContext context(JSONObject fixture) {
+        return new SessionContext(fixture.getString("device_type"), LocalDateTime.parse(fixture.getString("generated_at")));
+    }
+
+    static List<JSONObject> cases(JSONObject fixture) {
+        JSONArray cases = fixture.getJSONArray("cases");
+        List<JSONObject> out = new ArrayList<>();
+        for (int i = 0; i < cases.length(); i++) {
+            out.add(cases.getJSONObject(i));
+        }
+        return out;
+    }
+
+    static String describe(JSONObject parityCase) {
+        return "user " + parityCase.getInt("user_id") + " movie " + parityCase.getInt("movie_id");
+    }
+
+    private static String optString(JSONObject row, String key) {
+        return row.isNull(key) ? null : row.getString(key);
+    }
+
+    private static Double optDouble(JSONObject row, String key) {
+        return row.isNull(key) ? null : row.getDouble(key);
+    }
+
+    private static Integer optInteger(JSONObject row, String key) {
+        return row.isNull(key) ? null : row.getInt(key);
+    }
+}
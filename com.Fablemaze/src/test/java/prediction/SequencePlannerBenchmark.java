@@ -0,0 +1,98 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package prediction;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import model.Movie;
+import model.MovieGraph;
+import model.Scene;
+import model.SceneVariant;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Planning a 100-scene x 5-variant title, the size the planner has to handle in under 1 ms:
+ * exact Viterbi without a runtime limit, and the beam search with one. The limit is 85% of
+ * the title's average runtime, so it binds and the beam has to trade scenes off against it.
+ * The beam's cost grows with beamWidth squared; 8 is the default, 32 shows where the budget runs out.
+ * Dropout, pacing, tone and durations are random but seeded, so runs compare.
+ *
+ *   mvn -Pjmh test-compile exec:exec -Djmh.args=SequencePlanner
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SequencePlannerBenchmark {
+
+    @Param({"100"})
+    public int scenes;
+
+    @Param({"5"})
+    public int variants;
+
+    @Param({"8", "32"})
+    public int beamWidth;
+
+    private SequencePlanner planner;
+    private MovieGraph graph;
+    private float[] dropout;
+    private int maxDuration;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        planner = new SequencePlanner(0.01, 0.01, beamWidth);
+
+        Movie movie = new Movie(1, "Benchmark", 2025, scenes * 2, "[\"drama\"]", "PG-13", 7.0, scenes);
+        List<Scene> sceneList = new ArrayList<>();
+        Map<Integer, List<SceneVariant>> variantsBySceneId = new HashMap<>();
+        dropout = new float[scenes * variants];
+        long totalDuration = 0;
+        int variantId = 1;
+        for (int s = 0; s < scenes; s++) {
+            int sceneId = s + 1;
+            sceneList.add(new Scene(sceneId, movie.getMovieId(), s + 1));
+            List<SceneVariant> sceneVariants = new ArrayList<>();
+            for (int v = 0; v < variants; v++) {
+                int duration = 60 + random.nextInt(120);
+                totalDuration += duration;
+                dropout[variantId - 1] = 0.02f + 0.3f * random.nextFloat();
+                sceneVariants.add(new SceneVariant(variantId++, sceneId, "Variant_" + (v + 1), "",
+                        random.nextDouble() * 10, random.nextDouble() * 10, random.nextDouble(),
+                        random.nextDouble(), random.nextDouble(), random.nextDouble() * 10, duration));
+            }
+            variantsBySceneId.put(sceneId, sceneVariants);
+        }
+        graph = new MovieGraph(movie, sceneList, variantsBySceneId);
+        maxDuration = (int) (totalDuration / variants * 85 / 100);
+    }
+
+    @Benchmark
+    public int[] viterbi() {
+        return planner.plan(graph, dropout, 0);
+    }
+
+    @Benchmark
+    public int[] beamWithRuntimeLimit() {
+        return planner.plan(graph, dropout, maxDuration);
+    }
+}
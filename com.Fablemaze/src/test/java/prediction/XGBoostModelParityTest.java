@@ -0,0 +1,69 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package prediction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The in-process scoring engine against predict_proba() on the same feature rows.
+ * Both evaluate float32 thresholds over the same trees, so the only difference left is the
+ * order leaf values are summed in.
+ */
+class XGBoostModelParityTest {
+
+    private static final double TOLERANCE = 1e-5;
+
+    private static JSONObject fixture;
+    private static LocalSequencePredictor predictor;
+
+    @BeforeAll
+    static void load() {
+        fixture = ParityFixture.load();
+        predictor = ParityFixture.predictor();
+    }
+
+    @Test
+    void featureColumnsMatchTheExport() {
+        JSONArray columns = fixture.getJSONArray("feature_columns");
+        List<String> expected = columns.toList().stream().map(String::valueOf).toList();
+        assertEquals(expected, predictor.getFeatureColumns());
+    }
+
+    @Test
+    void treeWalkMatchesPredictProba() {
+        int width = predictor.getFeatureColumns().size();
+        XGBoostModel model = predictor.getModel();
+        for (JSONObject parityCase : ParityFixture.cases(fixture)) {
+            float[] rows = ParityFixture.features(parityCase, width);
+            double[] expected = ParityFixture.dropout(parityCase);
+            for (int r = 0; r < expected.length; r++) {
+                float probability = model.predictProbability(Arrays.copyOfRange(rows, r * width, (r + 1) * width));
+                assertEquals(expected[r], probability, TOLERANCE, ParityFixture.describe(parityCase) + " row " + r);
+            }
+        }
+    }
+
+    @Test
+    void flatForestMatchesPredictProba() {
+        int width = predictor.getFeatureColumns().size();
+        FlatForest forest = predictor.getForest();
+        for (JSONObject parityCase : ParityFixture.cases(fixture)) {
+            float[] rows = ParityFixture.features(parityCase, width);
+            double[] expected = ParityFixture.dropout(parityCase);
+            float[] probabilities = new float[expected.length];
+            forest.predictProbabilities(rows, expected.length, probabilities);
+            for (int r = 0; r < expected.length; r++) {
+                assertEquals(expected[r], probabilities[r], TOLERANCE, ParityFixture.describe(parityCase) + " row " + r);
+            }
+        }
+    }
+}
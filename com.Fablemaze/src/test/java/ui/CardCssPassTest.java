@@ -0,0 +1,311 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package ui;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import javafx.event.Event;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.FlowPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+import model.Movie;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Headless rendering benchmark: CSS work while the home page scrolls and the pointer moves from
+ * card to card, entering and leaving each card's watch button on the way. The stylesheet-driven
+ * MovieCard is compared with the inline-style cards it replaced, whose mouse handlers swapped
+ * setStyle() strings on every enter and exit.
+ * Each simulated frame counts the nodes its CSS pass processes and, of those, the ones whose
+ * styles were reapplied: selectors matched again from scratch, as setStyle() makes JavaFX do, some
+ * of it at once inside the mouse handler. A pseudo-class change such as :hover only moves already
+ * matched styles to the new state. The frame's mouse handlers, CSS pass and layout are timed
+ * together, as a pulse would run them. Counts are per second at 60 frames a second; times vary
+ * from run to run, so only the counts are asserted.
+ */
+class CardCssPassTest {
+
+    private static final int CARDS = 30;
+    private static final int WARMUP_FRAMES = 120;
+    private static final int FRAMES = 600;
+    private static final int FRAMES_PER_SECOND = 60;
+
+    // Node.cssFlag, Node.styleHelper (replaced whenever the node's styles are reapplied) and
+    // Node.setHover(), which the Scene calls as the pointer moves
+    private static Field cssFlag;
+    private static Field styleHelper;
+    private static Method setHover;
+
+    @BeforeAll
+    static void startToolkit() throws Exception {
+        FxTestSupport.startToolkit();
+        cssFlag = Node.class.getDeclaredField("cssFlag");
+        cssFlag.setAccessible(true);
+        styleHelper = Node.class.getDeclaredField("styleHelper");
+        styleHelper.setAccessible(true);
+        setHover = Node.class.getDeclaredMethod("setHover", boolean.class);
+        setHover.setAccessible(true);
+    }
+
+    @Test
+    void stylesheetCardsOnlyUpdateWhereInlineCardsReapply() throws Exception {
+        Result stylesheet = run("stylesheet", movie -> {
+            MovieCard card = new MovieCard(m -> { });
+            card.bind(movie);
+            return card;
+        });
+        Result inline = run("inline styles", CardCssPassTest::inlineStyledCard);
+
+        System.out.println("Card CSS passes while scrolling and hovering (headless)");
+        System.out.println("  " + stylesheet);
+        System.out.println("  " + inline);
+
+        assertEquals(0, stylesheet.reapplied, "stylesheet cards reapplied");
+        assertTrue(inline.reapplied > 0, "inline cards reapplied");
+        assertTrue(stylesheet.processed <= inline.processed, "stylesheet cards processed no more nodes than inline ones");
+    }
+
+    private static Result run(String name, Function<Movie, Region> cardFactory) throws Exception {
+        Stage stage = FxTestSupport.call(() -> {
+            FlowPane cards = new FlowPane(20, 20);
+            cards.setPadding(new Insets(20));
+            cards.setPrefWrapLength(940);
+            for (int i = 1; i <= CARDS; i++) {
+                cards.getChildren().add(cardFactory.apply(new Movie(i, "Movie " + i, 1990 + i, 90 + i,
+                        "[\"drama\", \"comedy\"]", "PG-13", 7.0, 10)));
+            }
+            ScrollPane scrollPane = new ScrollPane(cards);
+            scrollPane.setFitToWidth(true);
+            return FxTestSupport.show(scrollPane, 1000, 800);
+        });
+        Scene scene = stage.getScene();
+        ScrollPane scrollPane = (ScrollPane) scene.getRoot();
+        List<Node> cards = FxTestSupport.call(() -> new ArrayList<>(((Parent) scrollPane.getContent()).getChildrenUnmodifiable()));
+
+        Result result = new Result(name);
+        FxTestSupport.run(() -> {
+            Map<Node, Object> helpers = new IdentityHashMap<>();
+            FxTestSupport.layout(scene);
+            reapplied(scene.getRoot(), helpers);
+            for (int frame = 0; frame < WARMUP_FRAMES + FRAMES; frame++) {
+                long start = System.nanoTime();
+                step(scrollPane, cards, frame);
+                long handlers = System.nanoTime() - start;
+
+                int processed = processed(scene.getRoot(), false);
+                start = System.nanoTime();
+                FxTestSupport.cssPass(scene);
+                long css = System.nanoTime() - start;
+                scene.getRoot().layout();
+                long frameNanos = handlers + System.nanoTime() - start;
+
+                int reapplied = reapplied(scene.getRoot(), helpers);
+                if (frame >= WARMUP_FRAMES) {
+                    result.processed += processed;
+                    result.reapplied += reapplied;
+                    result.cssNanos += css;
+                    result.frameNanos += frameNanos;
+                }
+            }
+        });
+        FxTestSupport.run(stage::close);
+        return result;
+    }
+
+    // Scrolls a little every frame; every fourth frame the pointer moves to the next card, then over its button and off it
+    private static void step(ScrollPane scrollPane, List<Node> cards, int frame) {
+        int period = 240;
+        double position = frame % period;
+        scrollPane.setVvalue((position < period / 2 ? position : period - position) / (period / 2.0));
+
+        int index = frame / 4 % cards.size();
+        Node card = cards.get(index);
+        Node button = card.lookup(".button");
+        switch (frame % 4) {
+            case 0 -> {
+                hover(cards.get((index + cards.size() - 1) % cards.size()), false);
+                hover(card, true);
+            }
+            case 1 -> hover(button, true);
+            case 2 -> hover(button, false);
+            default -> { }
+        }
+    }
+
+    // What the Scene does when the pointer enters or leaves node
+    private static void hover(Node node, boolean entered) {
+        try {
+            setHover.invoke(node, entered);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+        Event.fireEvent(node, new MouseEvent(entered ? MouseEvent.MOUSE_ENTERED : MouseEvent.MOUSE_EXITED,
+                0, 0, 0, 0, MouseButton.NONE, 0, false, false, false, false,
+                false, false, false, false, false, false, null));
+    }
+
+    // Nodes the next CSS pass processes: a parent being reapplied or updated updates every child at least
+    private static int processed(Node node, boolean parentProcessed) {
+        String flag = flag(node);
+        boolean processed = parentProcessed || flag.equals("UPDATE") || flag.equals("REAPPLY");
+        int count = processed ? 1 : 0;
+        if (node instanceof Parent parent) {
+            for (Node child : parent.getChildrenUnmodifiable()) {
+                count += processed(child, processed);
+            }
+        }
+        return count;
+    }
+
+    // Nodes whose style helper was replaced since the last call; records the current ones in helpers
+    private static int reapplied(Node node, Map<Node, Object> helpers) {
+        Object helper;
+        try {
+            helper = styleHelper.get(node);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+        boolean known = helpers.containsKey(node);
+        Object previous = helpers.put(node, helper);
+        int count = known && previous != helper ? 1 : 0;
+        if (node instanceof Parent parent) {
+            for (Node child : parent.getChildrenUnmodifiable()) {
+                count += reapplied(child, helpers);
+            }
+        }
+        return count;
+    }
+
+    private static String flag(Node node) {
+        try {
+            return String.valueOf(cssFlag.get(node));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Result {
+        final String name;
+        long processed;
+        long reapplied;
+        long cssNanos;
+        long frameNanos;
+
+        Result(String name) {
+            this.name = name;
+        }
+
+        private double perSecond(double value) {
+            return value * FRAMES_PER_SECOND / FRAMES;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: processed=%.0f nodes/s reapplied=%.0f nodes/s cssPass=%.2fms/s frame=%.2fms/s",
+                    name, perSecond(processed), perSecond(reapplied), perSecond(cssNanos / 1e6), perSecond(frameNanos / 1e6));
+        }
+    }
+
+    // The home page card as it was built before the stylesheet: inline styles, swapped by the hover handlers
+    private static Region inlineStyledCard(Movie movie) {
+        VBox movieCard = new VBox(12);
+        movieCard.setAlignment(Pos.TOP_CENTER);
+        movieCard.setPadding(new Insets(20));
+        movieCard.setMaxWidth(280);
+        movieCard.setPrefWidth(280);
+        movieCard.setMinHeight(220);
+        movieCard.setPrefHeight(220);
+        String cardStyle = "-fx-background-color: linear-gradient(to bottom, #ffffff, #f8f9fa);"
+                + "-fx-background-radius: 16;"
+                + "-fx-border-width: 1;"
+                + "-fx-border-radius: 16;";
+        movieCard.setStyle(cardStyle
+                + "-fx-border-color: #e1e5e9;"
+                + "-fx-effect: dropshadow(gaussian, rgba(0,0,0,0.12), 15, 0.3, 0, 3);");
+        movieCard.setOnMouseEntered(e -> movieCard.setStyle(cardStyle
+                + "-fx-border-color: #c6cbd1;"
+                + "-fx-effect: dropshadow(gaussian, rgba(0,0,0,0.18), 20, 0.4, 0, 5);"
+                + "-fx-scale-x: 1.02;"
+                + "-fx-scale-y: 1.02;"));
+        movieCard.setOnMouseExited(e -> movieCard.setStyle(cardStyle
+                + "-fx-border-color: #e1e5e9;"
+                + "-fx-effect: dropshadow(gaussian, rgba(0,0,0,0.12), 15, 0.3, 0, 3);"
+                + "-fx-scale-x: 1.0;"
+                + "-fx-scale-y: 1.0;"));
+
+        Label titleLabel = new Label(movie.getTitle());
+        titleLabel.setWrapText(true);
+        titleLabel.setMaxWidth(240);
+        titleLabel.setStyle("-fx-font-size: 17px; -fx-text-fill: #1a202c; -fx-font-weight: 700;"
+                + "-fx-text-alignment: center; -fx-padding: 0 0 8 0;");
+
+        VBox contentArea = new VBox(8);
+        contentArea.setAlignment(Pos.CENTER);
+        VBox.setVgrow(contentArea, Priority.ALWAYS);
+        VBox detailsBox = new VBox(6);
+        detailsBox.setAlignment(Pos.CENTER);
+        String detailStyle = "-fx-font-size: 13px; -fx-text-fill: #4a5568; -fx-font-weight: 500;";
+        for (String[] detail : new String[][] {
+                { "📅", movie.getReleaseYear().toString() },
+                { "🎭", movie.getGenres() },
+                { null, "⏱ " + movie.getDuration() + " min" } }) {
+            HBox box = new HBox(8);
+            box.setAlignment(Pos.CENTER);
+            if (detail[0] != null) {
+                Label icon = new Label(detail[0]);
+                icon.setStyle("-fx-font-size: 14px;");
+                box.getChildren().add(icon);
+            }
+            Label label = new Label(detail[1]);
+            label.setStyle(detailStyle);
+            box.getChildren().add(label);
+            detailsBox.getChildren().add(box);
+        }
+        Region spacer = new Region();
+        VBox.setVgrow(spacer, Priority.ALWAYS);
+        contentArea.getChildren().addAll(detailsBox, spacer);
+
+        Button watchButton = new Button("▶ Watch Now");
+        watchButton.setMaxWidth(Double.MAX_VALUE);
+        String buttonStyle = "-fx-text-fill: white; -fx-font-size: 14px; -fx-font-weight: 600;"
+                + "-fx-background-radius: 12; -fx-padding: 12 24; -fx-cursor: hand; -fx-border-color: transparent;";
+        watchButton.setStyle(buttonStyle
+                + "-fx-background-color: linear-gradient(#667eea 0%, #764ba2 100%);"
+                + "-fx-effect: dropshadow(gaussian, rgba(102,126,234,0.3), 8, 0.2, 0, 2);");
+        watchButton.setOnMouseEntered(e -> watchButton.setStyle(buttonStyle
+                + "-fx-background-color: linear-gradient(#5a6fd8 0%, #6a4190 100%);"
+                + "-fx-effect: dropshadow(gaussian, rgba(102,126,234,0.4), 12, 0.3, 0, 4);"
+                + "-fx-scale-x: 1.03; -fx-scale-y: 1.03;"));
+        watchButton.setOnMouseExited(e -> watchButton.setStyle(buttonStyle
+                + "-fx-background-color: linear-gradient(#667eea 0%, #764ba2 100%);"
+                + "-fx-effect: dropshadow(gaussian, rgba(102,126,234,0.3), 8, 0.2, 0, 2);"
+                + "-fx-scale-x: 1.0; -fx-scale-y: 1.0;"));
+
+        movieCard.getChildren().addAll(titleLabel, contentArea, watchButton);
+        return movieCard;
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package ui;
+
+import com.sun.management.GcInfo;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.text.Text;
+import javafx.stage.Stage;
+import org.junit.jupiter.api.Assumptions;
+
+/**
+ * Starts the JavaFX toolkit once for the UI tests, headless on Monocle (set up by surefire), and
+ * runs test code on the FX thread.
+ * JavaFX lays out text through the system's Pango on Linux; where that isn't installed (a bare
+ * container) every Label fails, so the UI tests are skipped rather than failed.
+ */
+final class FxTestSupport {
+
+    private static final long TIMEOUT_SECONDS = 30;
+    private static boolean started;
+    private static String textLayoutError;
+    private static Method doCssPass;
+
+    private FxTestSupport() {
+    }
+
+    // Call from @BeforeAll; skips the test class if text can't be laid out
+    static synchronized void startToolkit() throws Exception {
+        if (!started) {
+            CountDownLatch latch = new CountDownLatch(1);
+            Platform.startup(latch::countDown);
+            Platform.setImplicitExit(false);
+            if (!latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("JavaFX toolkit didn't start");
+            }
+            started = true;
+            textLayoutError = call(() -> {
+                try {
+                    new Text("Fablemaze").getLayoutBounds();
+                    return null;
+                } catch (LinkageError e) {
+                    return e.toString();
+                }
+            });
+        }
+        Assumptions.assumeTrue(textLayoutError == null, () -> "JavaFX text layout unavailable: " + textLayoutError);
+    }
+
+    // Runs work on the FX thread and waits for its result
+    static <T> T call(Supplier<T> work) throws Exception {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                result.complete(work.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        try {
+            return result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    static void run(Runnable work) throws Exception {
+        call(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    // Polls condition on the FX thread until it holds, letting pulses and loader callbacks run in between
+    static void waitUntil(BooleanSupplier condition, String what) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (!call(condition::getAsBoolean)) {
+            if (System.nanoTime() > deadline) {
+                throw new TimeoutException("Timed out waiting for " + what);
+            }
+            Thread.sleep(2);
+        }
+    }
+
+    // A shown stage with root in a scene of the given size and the app's stylesheet
+    static Stage show(Parent root, double width, double height) {
+        Scene scene = new Scene(root, width, height);
+        scene.getStylesheets().add(FxTestSupport.class.getResource("/ui/fablemaze.css").toExternalForm());
+        Stage stage = new Stage();
+        stage.setScene(scene);
+        stage.show();
+        return stage;
+    }
+
+    // CSS and layout passes as a pulse runs them; returns the time taken in nanoseconds
+    static long layout(Scene scene) {
+        long start = System.nanoTime();
+        cssPass(scene);
+        scene.getRoot().layout();
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * The pulse's CSS pass: only the nodes whose styles or pseudo-class states changed are processed.
+     * Node.applyCss() can't stand in for it, as it forces the whole subtree through CSS every time.
+     */
+    static void cssPass(Scene scene) {
+        try {
+            synchronized (FxTestSupport.class) {
+                if (doCssPass == null) {
+                    doCssPass = Scene.class.getDeclaredMethod("doCSSPass");
+                    doCssPass.setAccessible(true);
+                }
+            }
+            doCssPass.invoke(scene);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Scene CSS pass unavailable", e);
+        }
+    }
+
+    static int countNodes(Node node) {
+        int count = 1;
+        if (node instanceof Parent parent) {
+            for (Node child : parent.getChildrenUnmodifiable()) {
+                count += countNodes(child);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Heap live after a full collection, in bytes, as the collector itself measured it: other threads
+     * (the renderer, loaders) allocate again as soon as it ends, so a later reading of the heap overstates it.
+     */
+    static long usedHeapAfterGc() throws InterruptedException {
+        // The collector managing every pool is the one that runs System.gc()
+        com.sun.management.GarbageCollectorMXBean full = null;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof com.sun.management.GarbageCollectorMXBean candidate
+                    && (full == null || candidate.getMemoryPoolNames().length > full.getMemoryPoolNames().length)) {
+                full = candidate;
+            }
+        }
+        if (full == null) {
+            System.gc();
+            return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        }
+
+        // System.gc() is skipped while the renderer holds a JNI critical region; try again until it runs
+        long before = full.getCollectionCount();
+        for (int attempt = 0; attempt < 10 && full.getCollectionCount() == before; attempt++) {
+            System.gc();
+            if (full.getCollectionCount() == before) {
+                Thread.sleep(20);
+            }
+        }
+
+        GcInfo info = full.getLastGcInfo();
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage usage = info.getMemoryUsageAfterGc().get(pool.getName());
+            if (pool.getType() == MemoryType.HEAP && usage != null) {
+                used += usage.getUsed();
+            }
+        }
+        return used;
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package ui;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+import model.Movie;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Headless benchmark of the virtualized home grid as the catalog grows a hundredfold.
+ * For each catalog size the grid is scrolled top to bottom in jumps, each jump waiting for its
+ * page to arrive, and then reports the live node count, the cells and pages it holds, the heap
+ * in use and the median layout time of a jump. Cells, nodes and pages must stay within bounds
+ * set by the viewport, not the catalog; heap and layout time are printed for comparison, as they
+ * vary from run to run. A first, discarded run warms up the JIT and the CSS caches.
+ * Dragging the scrollbar through the catalog while the loader is busy must not leave a page
+ * query queued for every page passed.
+ */
+class MovieGridScalingTest {
+
+    private static final int[] CATALOG_SIZES = { 1_000, 10_000, 100_000 };
+    private static final int COLUMNS = 3;
+    private static final int PAGE_ROWS = 10;
+    private static final int MAX_PAGES = 8;
+    private static final int JUMPS = 40;
+    private static final int DRAG_STEPS = 200;
+    private static final double VIEWPORT_HEIGHT = 800;
+    private static final double ROW_HEIGHT = 240;
+
+    // Rows on screen, plus one partly scrolled in and one the VirtualFlow keeps spare
+    private static final int MAX_CELLS = (int) Math.ceil(VIEWPORT_HEIGHT / ROW_HEIGHT) + 2;
+    // About 70 nodes per row of three cards, and the ListView's own
+    private static final int MAX_NODES = 500;
+
+    @BeforeAll
+    static void startToolkit() throws Exception {
+        FxTestSupport.startToolkit();
+    }
+
+    @Test
+    void nodesCellsAndPagesStayFlatAsTheCatalogGrows() throws Exception {
+        scroll(CATALOG_SIZES[0]);
+        List<Result> results = new ArrayList<>();
+        for (int size : CATALOG_SIZES) {
+            results.add(scroll(size));
+        }
+
+        System.out.println("MovieGrid scaling (headless)");
+        for (Result result : results) {
+            System.out.println("  " + result);
+        }
+
+        for (Result result : results) {
+            assertTrue(result.cells <= MAX_CELLS, "cells created at " + result.movies + " movies: " + result.cells);
+            assertTrue(result.nodes <= MAX_NODES, "live nodes at " + result.movies + " movies: " + result.nodes);
+            assertTrue(result.pages <= MAX_PAGES, "pages cached at " + result.movies + " movies");
+        }
+    }
+
+    @Test
+    void draggingPastPagesCancelsTheirLoads() throws Exception {
+        int movies = CATALOG_SIZES[CATALOG_SIZES.length - 1];
+        CountDownLatch firstPage = new CountDownLatch(1);
+        AtomicInteger queried = new AtomicInteger();
+        try (UiDataLoader loader = new UiDataLoader(1)) {
+            MovieGrid grid = FxTestSupport.call(() -> new MovieGrid(() -> movies, (offset, limit, afterMovieId) -> {
+                // Holds the single worker on the first page while the scrollbar is dragged
+                if (queried.incrementAndGet() == 1) {
+                    try {
+                        firstPage.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return page(movies, offset, limit, afterMovieId);
+            }, loader, movie -> { }, COLUMNS, PAGE_ROWS, MAX_PAGES));
+            Stage stage = FxTestSupport.call(() -> FxTestSupport.show(grid, 1000, VIEWPORT_HEIGHT));
+            Scene scene = stage.getScene();
+
+            FxTestSupport.run(grid::reload);
+            FxTestSupport.waitUntil(() -> grid.getMovieCount() == movies, "catalog count");
+            FxTestSupport.waitUntil(() -> queried.get() == 1, "first page");
+
+            int rows = (movies + COLUMNS - 1) / COLUMNS;
+            for (int step = 1; step <= DRAG_STEPS; step++) {
+                int row = (int) ((long) (rows - 1) * step / DRAG_STEPS);
+                FxTestSupport.run(() -> {
+                    grid.scrollTo(row);
+                    FxTestSupport.layout(scene);
+                });
+            }
+            firstPage.countDown();
+            FxTestSupport.waitUntil(() -> {
+                FxTestSupport.layout(scene);
+                return !skeletonsOnScreen(grid);
+            }, "rows at the end");
+
+            System.out.println("MovieGrid drag over " + DRAG_STEPS + " pages: " + queried.get() + " pages queried, "
+                    + FxTestSupport.call(grid::getPagesCancelled) + " cancelled");
+            // The page held on the worker, the last page or two on screen and the one fetched ahead
+            assertTrue(queried.get() <= 4, "pages queried: " + queried.get());
+            FxTestSupport.run(stage::close);
+        }
+    }
+
+    private static Result scroll(int movies) throws Exception {
+        try (UiDataLoader loader = new UiDataLoader(1)) {
+            MovieGrid grid = FxTestSupport.call(() -> new MovieGrid(() -> movies, (offset, limit, afterMovieId) -> page(movies, offset, limit, afterMovieId),
+                    loader, movie -> { }, COLUMNS, PAGE_ROWS, MAX_PAGES));
+            Stage stage = FxTestSupport.call(() -> FxTestSupport.show(grid, 1000, VIEWPORT_HEIGHT));
+            Scene scene = stage.getScene();
+
+            FxTestSupport.run(grid::reload);
+            FxTestSupport.waitUntil(() -> grid.getMovieCount() == movies, "catalog count");
+
+            int rows = (movies + COLUMNS - 1) / COLUMNS;
+            long[] layoutNanos = new long[JUMPS];
+            for (int jump = 0; jump < JUMPS; jump++) {
+                int row = (int) ((long) (rows - 1) * jump / (JUMPS - 1));
+                int index = jump;
+                FxTestSupport.run(() -> {
+                    grid.scrollTo(row);
+                    layoutNanos[index] = FxTestSupport.layout(scene);
+                });
+                FxTestSupport.waitUntil(() -> {
+                    FxTestSupport.layout(scene);
+                    return !skeletonsOnScreen(grid);
+                }, "rows around " + row);
+            }
+
+            Result result = FxTestSupport.call(() -> new Result(movies, FxTestSupport.countNodes(scene.getRoot()),
+                    grid.getCellsCreated(), grid.getLoadedPages(), median(layoutNanos)));
+            result.heapBytes = FxTestSupport.usedHeapAfterGc();
+            FxTestSupport.run(stage::close);
+            return result;
+        }
+    }
+
+    // Spare cells the VirtualFlow keeps hidden may still show a row whose page load was cancelled
+    private static boolean skeletonsOnScreen(MovieGrid grid) {
+        for (Node skeleton : grid.lookupAll(".skeleton")) {
+            Node node = skeleton;
+            while (node != grid && node.isVisible()) {
+                node = node.getParent();
+            }
+            if (node == grid) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Movie ids here are positions + 1, so a keyset hint must name the movie just before offset
+    private static List<Movie> page(int movies, int offset, int limit, int afterMovieId) {
+        if (afterMovieId != 0 && afterMovieId != offset) {
+            throw new IllegalStateException("page at " + offset + " asked for movies after " + afterMovieId);
+        }
+        List<Movie> page = new ArrayList<>(limit);
+        for (int id = offset + 1; id <= Math.min(movies, offset + limit); id++) {
+            page.add(new Movie(id, "Movie " + id, 1990 + id % 35, 90 + id % 60, "[\"drama\", \"comedy\"]",
+                    "PG-13", 6.5, 10));
+        }
+        return page;
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static final class Result {
+        final int movies;
+        final int nodes;
+        final long cells;
+        final int pages;
+        final long layoutNanos;
+        long heapBytes;
+
+        Result(int movies, int nodes, long cells, int pages, long layoutNanos) {
+            this.movies = movies;
+            this.nodes = nodes;
+            this.cells = cells;
+            this.pages = pages;
+            this.layoutNanos = layoutNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("movies=%d nodes=%d cells=%d pagesCached=%d heap=%.1fMB layout=%.2fms",
+                    movies, nodes, cells, pages, heapBytes / (1024.0 * 1024.0), layoutNanos / 1e6);
+        }
+    }
+}
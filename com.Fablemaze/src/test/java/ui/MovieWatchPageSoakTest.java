@@ -0,0 +1,114 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package ui;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+import javax.imageio.ImageIO;
+import model.Movie;
+import model.SceneVariant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Headless soak test of the reusable watch page: 10,000 movie opens, each planned, laid out,
+ * and every tenth one re-planned, as a scene outcome would be. Movies run from
+ * 1 to MAX_SCENES scenes, so the pools reach their size within the first cycle; from then on
+ * the pool counters and the live node count must not move. Heap is printed every 1,000 opens.
+ */
+class MovieWatchPageSoakTest {
+
+    private static final int OPENS = 10_000;
+    private static final int MAX_SCENES = 20;
+    private static final int SAMPLE_EVERY = 1_000;
+    private static final int THUMBNAILS = 60;
+
+    @BeforeAll
+    static void startToolkit() throws Exception {
+        FxTestSupport.startToolkit();
+    }
+
+    @Test
+    void poolsAndNodesStayFlatOverTenThousandOpens() throws Exception {
+        byte[] png = png();
+        try (ThumbnailService thumbnails = new ThumbnailService(path -> png, 2L * 1024 * 1024, 1)) {
+            MovieWatchPage page = FxTestSupport.call(() -> new MovieWatchPage(thumbnails, () -> { },
+                    (position, variant, droppedOff) -> { }));
+            Stage stage = FxTestSupport.call(() -> FxTestSupport.show(page, 1280, 800));
+            Scene scene = stage.getScene();
+
+            System.out.println("MovieWatchPage soak (headless)");
+            int firstCycleNodes = -1;
+            int maxNodes = 0;
+            for (int opened = 0; opened < OPENS; opened += SAMPLE_EVERY) {
+                int from = opened;
+                int[] nodes = FxTestSupport.call(() -> {
+                    int most = 0;
+                    for (int i = from; i < from + SAMPLE_EVERY; i++) {
+                        open(page, i);
+                        FxTestSupport.layout(scene);
+                        most = Math.max(most, FxTestSupport.countNodes(scene.getRoot()));
+                    }
+                    return new int[] { most };
+                });
+                maxNodes = nodes[0];
+                if (firstCycleNodes < 0) {
+                    firstCycleNodes = maxNodes;
+                }
+
+                String counters = FxTestSupport.call(page::toString);
+                long heap = FxTestSupport.usedHeapAfterGc();
+                System.out.printf("  opens=%d maxNodes=%d heap=%.1fMB %s%n",
+                        from + SAMPLE_EVERY, maxNodes, heap / (1024.0 * 1024.0), counters);
+
+                assertEquals(firstCycleNodes, maxNodes, "live nodes after " + (from + SAMPLE_EVERY) + " opens");
+                assertEquals(MAX_SCENES, (int) FxTestSupport.call(page::getPooledCards), "pooled cards");
+                assertEquals(MAX_SCENES, (int) FxTestSupport.call(page::getPooledSkeletons), "pooled skeletons");
+            }
+
+            assertEquals(OPENS, (long) FxTestSupport.call(page::getMoviesShown));
+            assertEquals(OPENS / 10, (long) FxTestSupport.call(page::getReplans), "re-plans");
+            assertTrue(thumbnails.size() <= THUMBNAILS, "thumbnails cached");
+            FxTestSupport.run(stage::close);
+        }
+    }
+
+    // Opens movie i with (i % MAX_SCENES) + 1 scenes; every tenth is re-planned from the first scene on
+    private static void open(MovieWatchPage page, int i) {
+        int scenes = i % MAX_SCENES + 1;
+        Movie movie = new Movie(i + 1, "Movie " + (i + 1), 2000 + i % 25, 100, "[\"drama\"]", "PG-13", 7.0, scenes);
+        page.showMovie(movie);
+        page.showSegments(sequence(i, 0, scenes));
+        if (i % 10 == 5) {
+            page.showRemaining(movie, 0, sequence(i + 1, 0, scenes));
+        }
+    }
+
+    private static List<SceneVariant> sequence(int seed, int from, int to) {
+        List<SceneVariant> variants = new ArrayList<>(to - from);
+        for (int s = from; s < to; s++) {
+            int id = seed * MAX_SCENES + s;
+            variants.add(new SceneVariant(id, s + 1, "Variant_" + (id % 3 + 1), "scene_" + (id % THUMBNAILS) + ".png",
+                    5.0, 5.0, 0.5, 0.5, 0.5, 5.0, 60 + id % 90));
+        }
+        return variants;
+    }
+
+    // One small thumbnail for every path, served as if prefetched
+    private static byte[] png() throws IOException {
+        BufferedImage image = new BufferedImage(ThumbnailService.WIDTH, ThumbnailService.HEIGHT, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
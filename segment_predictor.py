@@ -58,10 +58,12 @@ class SegmentSequencePredictor:
         """Get user profile and historical behavior with defaults for missing data"""
         conn = self.connect_db()
         
-        # Get user basic info with COALESCE for nullable fields
-        user_query = """
+        # Get user basic info with COALESCE for nullable fields, and the running history
+        # totals from UserPreferenceStats (one row per user, however long the history)
+        stats_source, stats_params = self.preference_stats_source(conn, [user_id])
+        user_query = f"""
         SELECT 
-            user_id, 
+            u.user_id, 
             dob, 
             COALESCE(sex, 'Other') as sex,
             COALESCE(openness, 5.0) as openness,
@@ -73,32 +75,89 @@ class SegmentSequencePredictor:
             COALESCE(total_watch_time, 0) as total_watch_time,
             COALESCE(favourite_genres, 'drama') as favourite_genres,
             COALESCE(avg_session_length, 60) as avg_session_length,
-            registration_date
-        FROM User WHERE user_id = ?
+            registration_date,
+            {self.PREFERENCE_STATS_COLUMNS}
+        FROM User u
+        LEFT JOIN {stats_source} ups ON ups.user_id = u.user_id
+        WHERE u.user_id = ?
         """
         
-        user_df = pd.read_sql_query(user_query, conn, params=[user_id])
+        user_df = pd.read_sql_query(user_query, conn, params=stats_params + [user_id])
+        conn.close()
         
         if len(user_df) == 0:
-            conn.close()
             raise ValueError(f"User {user_id} not found")
         
-        # Get user's historical viewing patterns (empty DataFrame is fine for new users)
-        history_query = """
-        SELECT sv.pacing_score, sv.intensity_score, sv.dialogue_density,
-            sv.action_level, sv.character_focus, sv.emotional_tone,
-            scv.dropped_off, 
-            (CAST(scv.watch_duration AS FLOAT) / sv.duration) as completion_ratio
-        FROM SceneViewing scv
-        JOIN ViewingSession vs ON scv.session_id = vs.session_id
-        JOIN SceneVariant sv ON scv.variant_id = sv.variant_id
-        WHERE vs.user_id = ?
+        user_profile = user_df.iloc[0]
+        return user_profile, self.preference_stats(user_profile)
+    
+    # Totals kept by a trigger on SceneViewing (the Java app's schema migration 6);
+    # users without a row have no history yet
+    PREFERENCE_STATS_TRIGGER = 'trg_scene_viewing_preference_stats'
+    
+    # The same totals computed from the history, for a database the trigger isn't installed in
+    PREFERENCE_STATS_FROM_HISTORY = """(
+            SELECT vs.user_id,
+                   COUNT(*) as viewing_count,
+                   COUNT(CASE WHEN NOT scv.dropped_off THEN 1 END) as kept_count,
+                   TOTAL(CASE WHEN NOT scv.dropped_off THEN sv.pacing_score END) as pacing_sum,
+                   COUNT(CASE WHEN NOT scv.dropped_off THEN sv.pacing_score END) as pacing_count,
+                   TOTAL(CASE WHEN NOT scv.dropped_off THEN sv.intensity_score END) as intensity_sum,
+                   COUNT(CASE WHEN NOT scv.dropped_off THEN sv.intensity_score END) as intensity_count,
+                   TOTAL(CASE WHEN NOT scv.dropped_off THEN sv.dialogue_density END) as dialogue_sum,
+                   COUNT(CASE WHEN NOT scv.dropped_off THEN sv.dialogue_density END) as dialogue_count,
+                   TOTAL(CASE WHEN NOT scv.dropped_off THEN sv.action_level END) as action_sum,
+                   COUNT(CASE WHEN NOT scv.dropped_off THEN sv.action_level END) as action_count
+            FROM SceneViewing scv
+            JOIN ViewingSession vs ON scv.session_id = vs.session_id
+            JOIN SceneVariant sv ON scv.variant_id = sv.variant_id
+            WHERE vs.user_id IN ({placeholders})
+            GROUP BY vs.user_id)"""
+    
+    def preference_stats_source(self, conn, user_ids):
+        """Table expression with the users' history totals, and the parameters it takes.
+        
+        UserPreferenceStats only while the trigger keeps it current for every writer; a database
+        the Java app hasn't migrated, or one regenerated since, falls back to the history join.
         """
+        trigger = conn.execute("SELECT 1 FROM sqlite_master WHERE type = 'trigger' AND name = ?",
+                               [self.PREFERENCE_STATS_TRIGGER]).fetchone()
+        if trigger:
+            return 'UserPreferenceStats', []
+        placeholders = ','.join('?' * len(user_ids))
+        return self.PREFERENCE_STATS_FROM_HISTORY.format(placeholders=placeholders), list(user_ids)
+    
+    PREFERENCE_STATS_COLUMNS = """
+            COALESCE(ups.viewing_count, 0) as viewing_count,
+            COALESCE(ups.kept_count, 0) as kept_count,
+            COALESCE(ups.pacing_sum, 0) as pacing_sum,
+            COALESCE(ups.pacing_count, 0) as pacing_count,
+            COALESCE(ups.intensity_sum, 0) as intensity_sum,
+            COALESCE(ups.intensity_count, 0) as intensity_count,
+            COALESCE(ups.dialogue_sum, 0) as dialogue_sum,
+            COALESCE(ups.dialogue_count, 0) as dialogue_count,
+            COALESCE(ups.action_sum, 0) as action_sum,
+            COALESCE(ups.action_count, 0) as action_count"""
+    
+    @staticmethod
+    def preference_stats(user_profile):
+        """History summary from the UserPreferenceStats columns of a profile row.
         
-        history_df = pd.read_sql_query(history_query, conn, params=[user_id])
-        conn.close()
+        Means are over non-dropped segments, NaN when there is nothing to average,
+        as .mean() over the history rows would give.
+        """
+        def mean(name):
+            count = user_profile[f'{name}_count']
+            return user_profile[f'{name}_sum'] / count if count > 0 else float('nan')
         
-        return user_df.iloc[0], history_df
+        return {
+            'viewing_count': int(user_profile['viewing_count']),
+            'kept_count': int(user_profile['kept_count']),
+            'avg_pacing': mean('pacing'),
+            'avg_intensity': mean('intensity'),
+            'avg_dialogue': mean('dialogue'),
+            'avg_action': mean('action'),
+        }
     
     def get_movie_segments(self, movie_id):
         """Get all available segments for a movie"""
@@ -126,19 +185,18 @@ class SegmentSequencePredictor:
         
         return segments_df
     
-    def create_prediction_features(self, user_profile, user_history, segments_df):
+    def create_prediction_features(self, user_profile, user_stats, segments_df):
         """Create features for each segment prediction with robust defaults"""
         predictions_data = []
         
         # Calculate user preferences from history or use sensible defaults
-        if len(user_history) > 0:
+        if user_stats['viewing_count'] > 0:
             # User's preferred content characteristics (from non-dropped segments)
-            good_segments = user_history[user_history['dropped_off'] == False]
-            if len(good_segments) > 0:
-                avg_preferred_pacing = good_segments['pacing_score'].mean()
-                avg_preferred_intensity = good_segments['intensity_score'].mean()
-                avg_preferred_dialogue = good_segments['dialogue_density'].mean()
-                avg_preferred_action = good_segments['action_level'].mean()
+            if user_stats['kept_count'] > 0:
+                avg_preferred_pacing = user_stats['avg_pacing']
+                avg_preferred_intensity = user_stats['avg_intensity']
+                avg_preferred_dialogue = user_stats['avg_dialogue']
+                avg_preferred_action = user_stats['avg_action']
             else:
                 # Fallback to user's stated preference or neutral
                 avg_preferred_pacing = user_profile.get('preferred_pacing', 5.0)
@@ -289,9 +347,9 @@ class SegmentSequencePredictor:
         try:
             # Get user profile and history
             print("1. Loading user profile...")
-            user_profile, user_history = self.get_user_profile(user_id)
+            user_profile, user_stats = self.get_user_profile(user_id)
             print(f"   User: {user_profile['sex']}, Age: {datetime.now().year - pd.to_datetime(user_profile['dob']).year}")
-            print(f"   Viewing History: {len(user_history)} segments")
+            print(f"   Viewing History: {user_stats['viewing_count']} segments")
             
             # Get movie segments
             print("2. Loading movie segments...")
@@ -304,7 +362,7 @@ class SegmentSequencePredictor:
             
             # Create prediction features
             print("3. Creating prediction features...")
-            prediction_df = self.create_prediction_features(user_profile, user_history, segments_df)
+            prediction_df = self.create_prediction_features(user_profile, user_stats, segments_df)
             prediction_df['device_type'] = device_type  # Override device type
             
             # Preprocess features
@@ -384,7 +442,7 @@ class SegmentSequencePredictor:
         
         try:
             # Get user profile and segments
-            user_profile, user_history = self.get_user_profile(user_id)
+            user_profile, user_stats = self.get_user_profile(user_id)
             segments_df = self.get_movie_segments(movie_id)
             
             # Filter to specific scene
@@ -394,7 +452,7 @@ class SegmentSequencePredictor:
                 return None
             
             # Create prediction features
-            prediction_df = self.create_prediction_features(user_profile, user_history, scene_segments)
+            prediction_df = self.create_prediction_features(user_profile, user_stats, scene_segments)
             
             # Preprocess and predict
             feature_data = self.preprocess_features(prediction_df)
@@ -424,6 +482,126 @@ class SegmentSequencePredictor:
             print(f"Error getting alternatives: {e}")
             return None
 
+    def get_user_profiles(self, user_ids):
+        """Get profiles and viewing history totals for several users in one query"""
+        conn = self.connect_db()
+        placeholders = ','.join('?' * len(user_ids))
+        
+        # Same defaults and history totals as get_user_profile
+        stats_source, stats_params = self.preference_stats_source(conn, user_ids)
+        user_query = f"""
+        SELECT 
+            u.user_id, 
+            dob, 
+            COALESCE(sex, 'Other') as sex,
+            COALESCE(openness, 5.0) as openness,
+            COALESCE(conscientiousness, 5.0) as conscientiousness,
+            COALESCE(extraversion, 5.0) as extraversion,
+            COALESCE(agreeableness, 5.0) as agreeableness,
+            COALESCE(neuroticism, 5.0) as neuroticism,
+            COALESCE(preferred_pacing, 5.0) as preferred_pacing,
+            COALESCE(total_watch_time, 0) as total_watch_time,
+            COALESCE(favourite_genres, 'drama') as favourite_genres,
+            COALESCE(avg_session_length, 60) as avg_session_length,
+            registration_date,
+            {self.PREFERENCE_STATS_COLUMNS}
+        FROM User u
+        LEFT JOIN {stats_source} ups ON ups.user_id = u.user_id
+        WHERE u.user_id IN ({placeholders})
+        """
+        
+        users_df = pd.read_sql_query(user_query, conn, params=stats_params + list(user_ids))
+        conn.close()
+        
+        profiles = {}
+        for _, user_profile in users_df.iterrows():
+            user_id = int(user_profile['user_id'])
+            profiles[user_id] = (user_profile, self.preference_stats(user_profile))
+        
+        return profiles
+    
+    def get_movies_segments(self, movie_ids):
+        """Get all available segments for several movies in one query, keyed by movie_id"""
+        conn = self.connect_db()
+        placeholders = ','.join('?' * len(movie_ids))
+        
+        query = f"""
+        SELECT m.movie_id, m.title, m.release_year, m.duration as movie_duration,
+               m.genres, m.rating as movie_rating, m.imdb_rating, m.scene_count,
+               s.scene_id, s.scene_index,
+               sv.variant_id, sv.variant_name, sv.pacing_score, sv.intensity_score,
+               sv.dialogue_density, sv.action_level, sv.character_focus,
+               sv.emotional_tone, sv.duration as segment_duration, sv.file_path
+        FROM Movie m
+        JOIN Scene s ON m.movie_id = s.movie_id
+        JOIN SceneVariant sv ON s.scene_id = sv.scene_id
+        WHERE m.movie_id IN ({placeholders})
+        ORDER BY m.movie_id, s.scene_index, sv.variant_id
+        """
+        
+        segments_df = pd.read_sql_query(query, conn, params=list(movie_ids))
+        conn.close()
+        
+        return {int(movie_id): group.reset_index(drop=True)
+                for movie_id, group in segments_df.groupby('movie_id')}
+    
+    def predict_batch(self, user_ids, movie_ids, device_type='desktop'):
+        """Predict optimal sequences for one user x N movies or N users x one movie.
+        
+        Profiles and segments are loaded once and every row is scored in a single
+        predict_proba call. Returns one result per pair that could be scored and an
+        error entry for each pair that could not.
+        """
+        if len(user_ids) != 1 and len(movie_ids) != 1:
+            raise ValueError("Batch must be one user with many movies or many users with one movie")
+        
+        profiles = self.get_user_profiles(user_ids)
+        segments_by_movie = self.get_movies_segments(movie_ids)
+        
+        frames = []
+        errors = []
+        for user_id in user_ids:
+            for movie_id in movie_ids:
+                if user_id not in profiles:
+                    errors.append({'user_id': user_id, 'movie_id': movie_id, 'error': f"User {user_id} not found"})
+                    continue
+                if movie_id not in segments_by_movie:
+                    errors.append({'user_id': user_id, 'movie_id': movie_id,
+                                   'error': f"Movie {movie_id} not found or has no segments"})
+                    continue
+                
+                user_profile, user_stats = profiles[user_id]
+                pair_df = self.create_prediction_features(user_profile, user_stats, segments_by_movie[movie_id])
+                pair_df['device_type'] = device_type
+                pair_df['user_id'] = user_id
+                pair_df['movie_id'] = movie_id
+                frames.append(pair_df)
+        
+        results = []
+        if frames:
+            prediction_df = pd.concat(frames, ignore_index=True)
+            feature_data = self.preprocess_features(prediction_df)
+            
+            # One model invocation for every row of every pair
+            prediction_df['dropout_probability'] = self.model.predict_proba(feature_data)[:, 1]
+            prediction_df['engagement_score'] = 1 - prediction_df['dropout_probability']
+            
+            # Best variant per scene, as in predict_segment_sequence
+            best_rows = prediction_df.loc[
+                prediction_df.groupby(['user_id', 'movie_id', 'scene_index'], sort=True)['engagement_score'].idxmax()
+            ]
+            
+            for (user_id, movie_id), sequence in best_rows.groupby(['user_id', 'movie_id'], sort=False):
+                results.append({
+                    'user_id': int(user_id),
+                    'movie_id': int(movie_id),
+                    'variant_sequence': [int(v) for v in sequence['variant_id']],
+                    'engagement_scores': [float(e) for e in sequence['engagement_score']],
+                    'avg_engagement_score': float(sequence['engagement_score'].mean())
+                })
+        
+        return {'results': results, 'errors': errors}
+
 def main():
     """Example usage of the predictor"""
     